@@ -0,0 +1,149 @@
+package br.ufpe.cin.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.files.FilesTuple;
+import br.ufpe.cin.mergers.util.MergeContext;
+
+/**
+ * Merge scenario shared by the benchmarks. It is either one of the <i>testfiles</i> folders,
+ * or a synthetic class with the given number of members (<i>synthetic-N</i>)
+ * edited by both revisions, with conflicts, renamings and new imports.
+ * Benchmarks must run from the project folder.
+ */
+@State(Scope.Benchmark)
+public class ScenarioState {
+
+	private static final String SYNTHETIC = "synthetic-";
+
+	@Param({
+		"deletioninleft", "deletioninner", "deletioninnerinleft", "deletioninnerinright",
+		"deletioninnernewinstanceoforiginal", "deletioninnernewinstanceofrenamed", "deletioninnernoeditionoforiginal",
+		"deletioninnernoinstanceoforiginal", "deletioninnernotrefactoring", "deletioninright",
+		"duplicationsconflicting", "duplicationsnoconflict",
+		"importmembermember", "importpackagemember", "importpackagepackage",
+		"initlblocksdistincts", "initlblocksnobase", "initlblocksthreeversions",
+		"nereofieldfield", "nereofieldmethod", "nereomethodfield", "nereomethodmethod",
+		"renaminginleft", "renaminginright", "renaminginterfaceleftnoconf", "renaminginterfacerightnoconf",
+		"renamingmethodleftconf", "renamingmethodleftnoconf", "renamingmethodrightconf", "renamingmethodrightnoconf",
+		"renamingmutual",
+		"synthetic-100", "synthetic-500", "synthetic-2000"
+	})
+	public String scenario;
+
+	//compared with -p shareSubtrees=false,true
+	@Param({"false"})
+	public boolean shareSubtrees;
+
+	public File left;
+	public File base;
+	public File right;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		//no console output, and no growing log of merged files between iterations
+		JFSTMerge.isGit = true;
+		JFSTMerge.logFiles = false;
+		JFSTMerge.shareSubtrees = shareSubtrees;
+
+		if (scenario.startsWith(SYNTHETIC)) {
+			generate(Integer.parseInt(scenario.substring(SYNTHETIC.length())));
+		} else {
+			File folder = new File("testfiles", scenario);
+			if (new File(folder, "base.java").isFile()) {
+				left = new File(folder, "left.java");
+				base = new File(folder, "base.java");
+				right = new File(folder, "right.java");
+			} else { //scenarios with folders are represented by its largest file
+				List<FilesTuple> tuples = FilesManager.fillFilesTuples(new File(folder, "left").getPath(), new File(folder, "base").getPath(), new File(folder, "right").getPath(), null, new ArrayList<String>());
+				FilesTuple largest = tuples.stream().max(Comparator.comparingLong(ScenarioState::size)).get();
+				left = largest.getLeftFile();
+				base = largest.getBaseFile();
+				right = largest.getRightFile();
+			}
+		}
+	}
+
+	/**
+	 * @return a new context of the scenario, as created by the merge of its files.
+	 */
+	public MergeContext newContext() {
+		return new MergeContext(left, base, right, null);
+	}
+
+	private void generate(int members) throws IOException {
+		File folder = Files.createTempDirectory("jfstmerge-" + scenario).toFile();
+		folder.deleteOnExit();
+		left = write(folder, "left", synthetic(members, 1));
+		base = write(folder, "base", synthetic(members, 0));
+		right = write(folder, "right", synthetic(members, 2));
+	}
+
+	/**
+	 * Synthetic class with the given number of methods and fields.
+	 * Left (1) and right (2) edit distinct methods and the same one, rename a method,
+	 * and add imports and members referencing edited ones.
+	 */
+	private static String synthetic(int members, int revision) {
+		StringBuilder code = new StringBuilder();
+		code.append("package synthetic;\n\n");
+		code.append("import java.util.List;\n");
+		if (revision == 1) code.append("import java.util.Map;\n");
+		if (revision == 2) code.append("import java.util.Set;\n");
+		code.append("\npublic class Synthetic {\n\n");
+		for (int i = 0; i < members; i++) {
+			if (i % 2 == 0) {
+				code.append("\tprivate int field").append(i).append(" = ").append(i).append(";\n\n");
+			} else {
+				String name = (revision == 1 && i == members / 2 + 1) ? "renamed" + i : "method" + i;
+				code.append("\tpublic int ").append(name).append("(int x) {\n");
+				code.append("\t\tint y = x + field").append(i - 1).append(";\n");
+				if (i % 10 == 1 && revision == 1 || i % 10 == 7 && revision == 2) {
+					code.append("\t\ty = y * ").append(i).append(";\n");
+				}
+				if (i == 3 && revision != 0) {
+					code.append("\t\ty = y - ").append(revision).append(";\n");
+				}
+				code.append("\t\treturn y * 2;\n\t}\n\n");
+			}
+		}
+		for (int i = 0; revision != 0 && i < members / 50 + 1; i++) {
+			int referenced = (revision == 1) ? 10 * i + 7 : 10 * i + 1;
+			code.append("\tpublic int added").append(revision).append("_").append(i).append("(int x) {\n");
+			code.append("\t\treturn method").append(referenced).append("(x);\n\t}\n\n");
+		}
+		code.append("}\n");
+		return code.toString();
+	}
+
+	private static File write(File folder, String revision, String content) throws IOException {
+		File file = new File(folder, revision + File.separator + "Synthetic.java");
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static long size(FilesTuple tuple) {
+		long size = 0;
+		for (File f : new File[] { tuple.getLeftFile(), tuple.getBaseFile(), tuple.getRightFile() }) {
+			if (f != null) {
+				size += f.length();
+			}
+		}
+		return size;
+	}
+}
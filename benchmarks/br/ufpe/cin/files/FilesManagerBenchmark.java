@@ -0,0 +1,77 @@
+package br.ufpe.cin.files;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.ufpe.cin.benchmarks.ScenarioState;
+import br.ufpe.cin.mergers.MergeStages;
+import br.ufpe.cin.mergers.util.MergeConflict;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.printers.Prettyprinter;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+
+/**
+ * Printing of the merged tree, indented while printed, extraction of conflicts from the merged code,
+ * and similarity of the left and base revisions, as compared by the renaming handlers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FilesManagerBenchmark {
+
+	private FSTNode superImposedTree;
+	private String semistructuredOutput;
+	private String unstructuredOutput;
+	private String leftContent;
+	private String baseContent;
+
+	@Setup(Level.Trial)
+	public void setUp(ScenarioState state) throws Exception {
+		MergeContext context = MergeStages.merged(state);
+		superImposedTree = context.superImposedTree;
+		semistructuredOutput = context.semistructuredOutput;
+		unstructuredOutput = context.getUnstructuredOutput();
+		leftContent = context.getLeftContent();
+		baseContent = context.getBaseContent();
+	}
+
+	@Benchmark
+	public String print() {
+		return Prettyprinter.print(superImposedTree);
+	}
+
+	@Benchmark
+	public List<MergeConflict> extractSemistructuredMergeConflicts() {
+		return FilesManager.extractMergeConflicts(semistructuredOutput);
+	}
+
+	@Benchmark
+	public List<MergeConflict> extractUnstructuredMergeConflicts() {
+		return FilesManager.extractMergeConflicts(unstructuredOutput);
+	}
+
+	@Benchmark
+	public double computeStringSimilarity() {
+		return FilesManager.computeStringSimilarity(leftContent, baseContent);
+	}
+
+	@Benchmark
+	public double computeBoundedStringSimilarity() {
+		return FilesManager.computeStringSimilarity(leftContent, baseContent, 0.7);
+	}
+}
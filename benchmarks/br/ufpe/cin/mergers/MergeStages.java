@@ -0,0 +1,60 @@
+package br.ufpe.cin.mergers;
+
+import br.ufpe.cin.benchmarks.ScenarioState;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.parser.JParser;
+import br.ufpe.cin.printers.Prettyprinter;
+
+/**
+ * Runs the stages of the merge of a scenario up to a given point,
+ * so benchmarks can measure the following stage in isolation.
+ */
+public final class MergeStages {
+
+	/**
+	 * @return context with the unstructured merge and the parsed trees of the scenario.
+	 */
+	public static MergeContext parsed(ScenarioState state) throws Exception {
+		MergeContext context = state.newContext();
+		context.getUnstructuredOutput(); //computed in advance, out of the measured stages
+
+		JParser parser = new JParser();
+		context.leftTree = parser.parse(context.getLeftSnapshot());
+		context.baseTree = parser.parse(context.getBaseSnapshot());
+		context.rightTree = parser.parse(context.getRightSnapshot());
+		context.leftTree.index = 0;
+		context.baseTree.index = 1;
+		context.rightTree.index = 2;
+		return context;
+	}
+
+	/**
+	 * @return context with the superimposed tree, before merging the matched content.
+	 */
+	public static MergeContext superimposed(ScenarioState state) throws Exception {
+		MergeContext context = parsed(state);
+		context.superImposedTree = SemistructuredMerge.superimpose(SemistructuredMerge.superimpose(context.leftTree, context.baseTree, null, context, true), context.rightTree, null, context, false);
+		SemistructuredMerge.removeRemainingBaseNodes(context.superImposedTree, context);
+		return context;
+	}
+
+	/**
+	 * @return context as given to the conflicts handlers.
+	 */
+	public static MergeContext handlersInput(ScenarioState state) throws Exception {
+		MergeContext context = parsed(state);
+		context.join(SemistructuredMerge.merge(context.leftTree, context.baseTree, context.rightTree));
+		context.semistructuredOutput = Prettyprinter.print(context.superImposedTree);
+		return context;
+	}
+
+	/**
+	 * @return context with the result of the whole merge of the scenario.
+	 */
+	public static MergeContext merged(ScenarioState state) throws Exception {
+		MergeContext context = state.newContext();
+		context.getUnstructuredOutput(); //computed in advance, out of the measured stages
+		context.semistructuredOutput = SemistructuredMerge.merge(context.getLeftSnapshot(), context.getBaseSnapshot(), context.getRightSnapshot(), context);
+		return context;
+	}
+}
@@ -0,0 +1,82 @@
+package br.ufpe.cin.mergers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.ufpe.cin.benchmarks.ScenarioState;
+import br.ufpe.cin.mergers.util.MergeContext;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+
+/**
+ * Superimposition, merge of matched content, and the whole semistructured merge.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SemistructuredMergeBenchmark {
+
+	//every stage modifies its input, so it is rebuilt for each invocation
+
+	@State(Scope.Thread)
+	public static class Parsed {
+		MergeContext context;
+
+		@Setup(Level.Invocation)
+		public void setUp(ScenarioState state) throws Exception {
+			context = MergeStages.parsed(state);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Superimposed {
+		MergeContext context;
+
+		@Setup(Level.Invocation)
+		public void setUp(ScenarioState state) throws Exception {
+			context = MergeStages.superimposed(state);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Initial {
+		MergeContext context;
+
+		@Setup(Level.Invocation)
+		public void setUp(ScenarioState state) {
+			context = state.newContext();
+		}
+	}
+
+	@Benchmark
+	public FSTNode superimpose(Parsed parsed) {
+		MergeContext context = parsed.context;
+		FSTNode leftBase = SemistructuredMerge.superimpose(context.leftTree, context.baseTree, null, context, true);
+		return SemistructuredMerge.superimpose(leftBase, context.rightTree, null, context, false);
+	}
+
+	@Benchmark
+	public FSTNode mergeMatchedContent(Superimposed superimposed) throws Exception {
+		MergeContext context = superimposed.context;
+		SemistructuredMerge.mergeMatchedContent(context.superImposedTree, context);
+		return context.superImposedTree;
+	}
+
+	@Benchmark
+	public String merge(Initial initial) throws Exception {
+		MergeContext context = initial.context;
+		return SemistructuredMerge.merge(context.getLeftSnapshot(), context.getBaseSnapshot(), context.getRightSnapshot(), context);
+	}
+}
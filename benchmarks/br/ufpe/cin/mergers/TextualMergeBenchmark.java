@@ -0,0 +1,42 @@
+package br.ufpe.cin.mergers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.ufpe.cin.benchmarks.ScenarioState;
+import br.ufpe.cin.mergers.util.MergeContext;
+
+/**
+ * Unstructured merge of the whole files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TextualMergeBenchmark {
+
+	private MergeContext context;
+
+	@Setup(Level.Trial)
+	public void setUp(ScenarioState state) {
+		context = state.newContext();
+	}
+
+	@Benchmark
+	public String merge() throws Exception {
+		return TextualMerge.merge(context.getLeftSnapshot(), context.getBaseSnapshot(), context.getRightSnapshot(), false);
+	}
+}
@@ -0,0 +1,83 @@
+package br.ufpe.cin.mergers.handlers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.ufpe.cin.benchmarks.ScenarioState;
+import br.ufpe.cin.mergers.MergeStages;
+import br.ufpe.cin.mergers.util.MergeContext;
+
+/**
+ * Each handler of special kinds of conflicts, and all of them in sequence, as in {@link ConflictsHandler#handle(MergeContext)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConflictsHandlerBenchmark {
+
+	//handlers modify the merged tree, so it is rebuilt for each invocation
+	@State(Scope.Thread)
+	public static class Input {
+		MergeContext context;
+
+		@Setup(Level.Invocation)
+		public void setUp(ScenarioState state) throws Exception {
+			context = MergeStages.handlersInput(state);
+		}
+	}
+
+	@Benchmark
+	public MergeContext typeAmbiguityErrorHandler(Input input) {
+		ConflictsHandler.findAndDetectTypeAmbiguityErrors(input.context);
+		return input.context;
+	}
+
+	@Benchmark
+	public MergeContext newElementReferencingEditedOneHandler(Input input) {
+		ConflictsHandler.findAndDetectNewElementReferencingEditedOne(input.context);
+		return input.context;
+	}
+
+	@Benchmark
+	public MergeContext renamingConflictsHandler(Input input) {
+		ConflictsHandler.findAndResolveRenamingOrDeletionConflicts(input.context);
+		return input.context;
+	}
+
+	@Benchmark
+	public MergeContext initializationBlocksHandler(Input input) throws Exception {
+		ConflictsHandler.findAndDetectInitializationBlocks(input.context);
+		return input.context;
+	}
+
+	@Benchmark
+	public MergeContext deletionsHandler(Input input) {
+		ConflictsHandler.findAndDetectDeletionsOfHighLevelElements(input.context);
+		return input.context;
+	}
+
+	@Benchmark
+	public MergeContext duplicatedDeclarationHandler(Input input) {
+		ConflictsHandler.findAndAccountDuplicatedDeclarationErrors(input.context);
+		return input.context;
+	}
+
+	@Benchmark
+	public MergeContext conflictsHandler(Input input) throws Exception {
+		ConflictsHandler.handle(input.context);
+		return input.context;
+	}
+}
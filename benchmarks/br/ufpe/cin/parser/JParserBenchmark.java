@@ -0,0 +1,48 @@
+package br.ufpe.cin.parser;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.ufpe.cin.benchmarks.ScenarioState;
+import br.ufpe.cin.files.SourceSnapshot;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+
+/**
+ * Parsing of the three revisions of the files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JParserBenchmark {
+
+	private SourceSnapshot left;
+	private SourceSnapshot base;
+	private SourceSnapshot right;
+
+	@Setup(Level.Trial)
+	public void setUp(ScenarioState state) {
+		left = SourceSnapshot.of(state.left);
+		base = SourceSnapshot.of(state.base);
+		right = SourceSnapshot.of(state.right);
+	}
+
+	@Benchmark
+	public FSTNode[] parse() throws Exception {
+		JParser parser = new JParser();
+		return new FSTNode[] { parser.parse(left), parser.parse(base), parser.parse(right) };
+	}
+}
@@ -0,0 +1,47 @@
+package br.ufpe.cin.statistics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.ufpe.cin.benchmarks.ScenarioState;
+import br.ufpe.cin.mergers.MergeStages;
+import br.ufpe.cin.mergers.util.MergeContext;
+
+/**
+ * Computation and logging of the statistics of a merged file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsBenchmark {
+
+	//statistics are stored in the context, so it is rebuilt for each invocation
+	@State(Scope.Thread)
+	public static class Merged {
+		MergeContext context;
+
+		@Setup(Level.Invocation)
+		public void setUp(ScenarioState state) throws Exception {
+			context = MergeStages.merged(state);
+		}
+	}
+
+	@Benchmark
+	public MergeContext compute(Merged merged) throws Exception {
+		Statistics.compute(merged.context);
+		return merged.context;
+	}
+}
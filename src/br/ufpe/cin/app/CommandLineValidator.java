@@ -37,6 +37,9 @@ public final class CommandLineValidator {
 				}
 			}
 
+		} else if(merger.numberOfThreads < 1){ //at least one thread is necessary to merge
+			throw new ParameterException("Invalid number of threads. Inform a positive number.");
+
 		} else if(!merger.directoriespath.isEmpty()){
 			if(merger.directoriespath.size()!=3){ //three directories path must be given
 				throw new ParameterException("Invalid number of directories. Inform 3.");
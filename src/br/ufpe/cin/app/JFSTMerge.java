@@ -2,14 +2,21 @@ package br.ufpe.cin.app;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import br.ufpe.cin.exceptions.MergeAbortedException;
 import br.ufpe.cin.exceptions.PrintException;
 import br.ufpe.cin.exceptions.SemistructuredMergeException;
 import br.ufpe.cin.exceptions.TextualMergeException;
@@ -17,12 +24,12 @@ import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.files.FilesTuple;
 import br.ufpe.cin.logging.LoggerFactory;
 import br.ufpe.cin.mergers.SemistructuredMerge;
-import br.ufpe.cin.mergers.TextualMerge;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
 import br.ufpe.cin.mergers.util.MergeScenario;
 import br.ufpe.cin.printers.Prettyprinter;
 import br.ufpe.cin.statistics.Statistics;
+import br.ufpe.cin.statistics.StatisticsSpool;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
@@ -39,8 +46,11 @@ public class JFSTMerge {
 	//log of activities
 	private static final Logger LOGGER = LoggerFactory.make();
 
+	//exit code of a merge aborted by an error
+	static final int ERROR_EXIT_CODE = -1;
+
 	//indicator of conflicting merge
-	private static int conflictState = 0;
+	private int conflictState = 0;
 
 	//command line options
 	@Parameter(names = "-f", arity = 3, description = "Files to be merged (mine, base, yours)")
@@ -61,6 +71,24 @@ public class JFSTMerge {
 	@Parameter(names = "-l", description = "Parameter to disable logging of merged files (true or false).",arity = 1)
 	public static boolean logFiles = true;
 
+	@Parameter(names = "-s", description = "Parameter to disable statistics computation (true or false). Without statistics, unstructured merge is only performed when needed by semistructured merge.",arity = 1)
+	public static boolean computeStatistics = true;
+
+	@Parameter(names = "-p", description = "Parameter to cache the parsed files in the $HOME/.jfstmerge/cache folder, limited to 256 MB, so repeated files are not parsed again (true or false). Optional, defaults to false.",arity = 1)
+	public static boolean useParsedTreeCache = false;
+
+	@Parameter(names = "-b", description = "Parameter to compile the unstructured merge output in background, while semistructured merge runs (true or false). Optional, defaults to false.",arity = 1)
+	public static boolean compileInBackground = false;
+
+	@Parameter(names = "-r", description = "Parameter to also store the statistics in the binary store $HOME/.jfstmerge/statistics.bin, queried with br.ufpe.cin.statistics.StatisticsQuery (true or false). Optional, defaults to false.",arity = 1)
+	public static boolean storeBinaryStatistics = false;
+
+	@Parameter(names = "-t", description = "Parameter to share the subtrees of the merged files in the merged tree during superimposition, copying them only when changed, instead of copying them beforehand (true or false). Optional, defaults to false.",arity = 1)
+	public static boolean shareSubtrees = false;
+
+	@Parameter(names = "-j", description = "Number of threads used to merge the files of directories in parallel. Optional, defaults to 1 (sequential merge).")
+	int numberOfThreads = 1;
+
 	/**
 	 * Merges merge scenarios, indicated by .revisions files. 
 	 * This is mainly used for evaluation purposes.
@@ -118,25 +146,65 @@ public class JFSTMerge {
 	 * @return merged files tuples
 	 */
 	public List<FilesTuple> mergeDirectories(String leftDirPath, String baseDirPath, String rightDirPath, String outputDirPath) {
+		return mergeDirectories(leftDirPath, baseDirPath, rightDirPath, outputDirPath, 1);
+	}
+
+	/**
+	 * Merges directories, spreading the merge of the matched files over the given number of threads.
+	 * Larger files are scheduled first, but the merged tuples are reported, printed and returned 
+	 * in the same order as in a sequential merge.
+	 * @param leftDirPath (mine)
+	 * @param baseDirPath (older)
+	 * @param rightDirPath (yours)
+	 * @param outputDirPath can be null, in this case, the output will only be printed in the console.
+	 * @param numberOfThreads to merge files in parallel, 1 means sequential merge.
+	 * @return merged files tuples
+	 * @throws MergeAbortedException when an error aborts the merge of a file, in this thread or in a merge thread
+	 */
+	public List<FilesTuple> mergeDirectories(String leftDirPath, String baseDirPath, String rightDirPath, String outputDirPath, int numberOfThreads) {
 		List<FilesTuple> filesTuple = FilesManager.fillFilesTuples(leftDirPath, baseDirPath, rightDirPath, outputDirPath, new ArrayList<String>());
-		for (FilesTuple tuple : filesTuple) {
-			File left = tuple.getLeftFile();
-			File base = tuple.getBaseFile();
-			File right = tuple.getRightFile();
-
-			//merging the file tuple
-			MergeContext context = mergeFiles(left, base, right, null);
-			tuple.setContext(context);
-
-			//printing the resulting merged code
-			if (outputDirPath != null) {
-				try {
-					Prettyprinter.generateMergedTuple(tuple);
-				} catch (PrintException pe) {
-					System.err.println("An error occurred. See " + LoggerFactory.logfile + " file for more details.\n Send the log to gjcc@cin.ufpe.br for analysis if preferable.");
-					LOGGER.log(Level.SEVERE, "", pe);
-					System.exit(-1);
+
+		ForkJoinPool pool = null;
+		Map<FilesTuple, ForkJoinTask<MergeContext>> parallelMerges = new IdentityHashMap<FilesTuple, ForkJoinTask<MergeContext>>();
+		if (numberOfThreads > 1 && filesTuple.size() > 1) {
+			pool = new ForkJoinPool(numberOfThreads);
+
+			//largest files first, so the longest merges do not end up alone at the tail of the run
+			List<FilesTuple> schedule = new ArrayList<FilesTuple>(filesTuple);
+			schedule.sort(Comparator.comparingLong(JFSTMerge::estimateMergeSize).reversed());
+			for (FilesTuple tuple : schedule) {
+				parallelMerges.put(tuple, pool.submit(() -> merge(tuple.getLeftFile(), tuple.getBaseFile(), tuple.getRightFile(), null)));
+			}
+		}
+
+		try {
+			for (FilesTuple tuple : filesTuple) {
+				File left = tuple.getLeftFile();
+				File base = tuple.getBaseFile();
+				File right = tuple.getRightFile();
+
+				//merging the file tuple
+				MergeContext context;
+				if (pool != null) {
+					context = parallelMerges.get(tuple).join(); //errors of the merge thread are thrown again here
+					report(context, null);
+				} else {
+					context = mergeFiles(left, base, right, null);
 				}
+				tuple.setContext(context);
+
+				//printing the resulting merged code
+				if (outputDirPath != null) {
+					try {
+						Prettyprinter.generateMergedTuple(tuple);
+					} catch (PrintException pe) {
+						throw new MergeAbortedException(pe);
+					}
+				}
+			}
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
 			}
 		}
 		return filesTuple;
@@ -151,66 +219,118 @@ public class JFSTMerge {
 	 * @return context with relevant information gathered during the merging process.
 	 */
 	public MergeContext mergeFiles(File left, File base, File right, String outputFilePath) {
+		MergeContext context = merge(left, base, right, outputFilePath);
+		report(context, outputFilePath);
+		return context;
+	}
+
+	/**
+	 * Merges the given files without printing or logging anything about the result.
+	 * Its messages are kept in the context, to be printed with the result.
+	 * It does not touch shared state, so it can be called concurrently for different files.
+	 * @return context with the merged content and relevant information gathered during the merging process.
+	 */
+	private MergeContext merge(File left, File base, File right, String outputFilePath) {
 		FilesManager.validateFiles(left, base, right);
+		MergeContext context = new MergeContext(left, base, right, outputFilePath);
 		if (!isGit) {
-			System.out.println("MERGING FILES: \n" + ((left != null) ? left.getAbsolutePath() : "<empty left>") + "\n" + ((base != null) ? base.getAbsolutePath() : "<empty base>") + "\n" + ((right != null) ? right.getAbsolutePath() : "<empty right>"));
+			context.consoleMessages.append("MERGING FILES: \n" + ((left != null) ? left.getAbsolutePath() : "<empty left>") + "\n" + ((base != null) ? base.getAbsolutePath() : "<empty base>") + "\n" + ((right != null) ? right.getAbsolutePath() : "<empty right>"))
+			.append(System.lineSeparator());
 		}
 
-		MergeContext context = new MergeContext(left, base, right, outputFilePath);
-
 		//there is no need to call specific merge algorithms in equal or consistenly changes files (fast-forward merge)
-		if (FilesManager.areFilesDifferent(left, base, right, outputFilePath, context)) {
+		if (FilesManager.areFilesDifferent(context.getLeftSnapshot(), context.getBaseSnapshot(), context.getRightSnapshot(), context)) {
+			//unstructured merge is computed on demand by the context, when required by handlers or statistics
+			boolean unstructuredMergeInBackground = compileInBackground && computeStatistics && !isGit; //the compilation is only needed by the statistics
+			if (unstructuredMergeInBackground) {
+				context.compileUnstructuredOutputInBackground();
+			}
+			long unstructuredMergeTime = context.unstructuredMergeTime;
 			long t0 = System.nanoTime();
 			try {
-				//running unstructured merge first is necessary due to future steps.
-				context.unstructuredOutput = TextualMerge.merge(left, base, right, false);
-				context.unstructuredMergeTime = System.nanoTime() - t0;
-
-				context.semistructuredOutput = SemistructuredMerge.merge(left, base, right, context);
-				context.semistructuredMergeTime = context.semistructuredMergeTime + (System.nanoTime() - t0);
-
-				conflictState = checkConflictState(context);
+				context.semistructuredOutput = SemistructuredMerge.merge(context.getLeftSnapshot(), context.getBaseSnapshot(), context.getRightSnapshot(), context);
+				context.semistructuredMergeTime += semistructuredMergeTime(context, t0, unstructuredMergeTime, unstructuredMergeInBackground);
 			} catch (TextualMergeException tme) { //textual merge must work even when semistructured not, so this exception precedes others
-				System.err.println("An error occurred. See " + LoggerFactory.logfile + " file for more details.\n Send the log to gjcc@cin.ufpe.br for analysis if preferable.");
-				LOGGER.log(Level.SEVERE, "", tme);
-				System.exit(-1);
+				throw new MergeAbortedException(tme);
 			} catch (SemistructuredMergeException sme) {
 				LOGGER.log(Level.WARNING, "", sme);
-				context.semistructuredOutput = context.unstructuredOutput;
-				context.semistructuredMergeTime = System.nanoTime() - t0;
+				context.semistructuredMergeTime += semistructuredMergeTime(context, t0, unstructuredMergeTime, unstructuredMergeInBackground);
+				context.semistructuredOutput = context.getUnstructuredOutput();
+			}
+			context.hasConflicts = checkConflictState(context) > 0;
 
-				conflictState = checkConflictState(context);
+			//the unstructured output is written and logged later, so it is merged now, in the same thread of the semistructured merge
+			if (!isGit && (computeStatistics || outputFilePath != null)) {
+				context.getUnstructuredOutput();
 			}
 		}
+		return context;
+	}
+
+	/**
+	 * Time spent by the semistructured merge since the given start. The unstructured merge run meanwhile
+	 * by the handlers is accounted as unstructured merge time only, unless it ran in another thread.
+	 * @param context of the merge
+	 * @param t0 start of the semistructured merge, as given by {@link System#nanoTime()}
+	 * @param unstructuredMergeTime of the context at the start
+	 * @param unstructuredMergeInBackground whether the unstructured merge runs in another thread
+	 */
+	private static long semistructuredMergeTime(MergeContext context, long t0, long unstructuredMergeTime, boolean unstructuredMergeInBackground) {
+		long elapsed = System.nanoTime() - t0;
+		if (!unstructuredMergeInBackground) {
+			elapsed -= context.unstructuredMergeTime - unstructuredMergeTime;
+		}
+		return elapsed;
+	}
 
-		//printing the resulting merged code
+	/**
+	 * Prints, writes and logs the result of a merge. 
+	 * Called in the order the files were given, so outputs and statistics logs are deterministic.
+	 * @param context resulting from the merge
+	 * @param outputFilePath of the merged file. Can be <b>null</b>, in this case, the output will only be printed in the console.
+	 */
+	private void report(MergeContext context, String outputFilePath) {
+		if (context.hasConflicts) {
+			conflictState = 1;
+		}
+
+		//printing the messages of the merge and the resulting merged code
 		try {
 			if(!isGit){
+				System.out.print(context.consoleMessages);
 				Prettyprinter.printOnScreenMergedCode(context);
 			}
 			Prettyprinter.generateMergedFile(context, outputFilePath);
 		} catch (PrintException pe) {
-			System.err.println("An error occurred. See " + LoggerFactory.logfile + " file for more details.\n Send the log to gjcc@cin.ufpe.br for analysis if preferable.");
-			LOGGER.log(Level.SEVERE, "", pe);
-			System.exit(-1);
+			throw new MergeAbortedException(pe);
 		}
 
-		//computing statistics
-		try {
-			Statistics.compute(context);
-		} catch (Exception e) {
-			System.err.println("An error occurred. See " + LoggerFactory.logfile + " file for more details.\n Send the log to gjcc@cin.ufpe.br for analysis if preferable.");
-			LOGGER.log(Level.SEVERE, "", e);
-			System.exit(-1);
+		//computing statistics, which git does not wait for, as they do not change the merged file
+		if (computeStatistics && isGit) {
+			try {
+				StatisticsSpool.spool(context);
+			} catch (IOException e) { //statistics are lost, but not the merge
+				LOGGER.log(Level.WARNING, "", e);
+			}
+		} else if (computeStatistics) {
+			try {
+				Statistics.compute(context);
+			} catch (Exception e) {
+				throw new MergeAbortedException(e);
+			}
 		}
 		System.out.println("Merge files finished.");
-		return context;
 	}
 
 	public static void main(String[] args) {
 		JFSTMerge merger = new JFSTMerge();
-		merger.run(args);
-		System.exit(conflictState);
+		int exitCode;
+		try {
+			exitCode = merger.run(args);
+		} catch (MergeAbortedException mae) {
+			exitCode = reportError(mae);
+		}
+		System.exit(exitCode);
 
 		/*		new JFSTMerge().mergeFiles(
 						new File("C:/Users/Guilherme/Desktop/test/projects/sisbol/revisions/rev_0533511_8d296b5/rev_left_0533511/sisbol-core/src/main/java/br/mil/eb/cds/sisbol/boletim/util/Messages.java"),
@@ -233,7 +353,14 @@ public class JFSTMerge {
 
 	}
 
-	private void run(String[] args) {
+	/**
+	 * Merges according to the given command line options.
+	 * @param args command line options
+	 * @return exit code, 1 in case of conflicts, or 0
+	 * @throws MergeAbortedException when an error aborts the merge, see {@link #reportError(Throwable)}
+	 */
+	int run(String[] args) {
+		conflictState = 0;
 		JCommander commandLineOptions = new JCommander(this);
 		try {
 			commandLineOptions.parse(args);
@@ -241,17 +368,44 @@ public class JFSTMerge {
 			if (!filespath.isEmpty()) {
 				mergeFiles(new File(filespath.get(0)), new File(filespath.get(1)), new File(filespath.get(2)), outputpath);
 			} else if (!directoriespath.isEmpty()) {
-				mergeDirectories(directoriespath.get(0), directoriespath.get(1), directoriespath.get(2), outputpath);
+				mergeDirectories(directoriespath.get(0), directoriespath.get(1), directoriespath.get(2), outputpath, numberOfThreads);
 			}
 		} catch (ParameterException pe) {
 			System.err.println(pe.getMessage());
 			commandLineOptions.setProgramName("JFSTMerge");
 			commandLineOptions.usage();
 		}
+		return conflictState;
+	}
+
+	/**
+	 * Reports an error that aborted a merge.
+	 * @param error
+	 * @return exit code of a merge aborted by an error
+	 */
+	static int reportError(Throwable error) {
+		System.err.println("An error occurred. See " + LoggerFactory.logfile + " file for more details.\n Send the log to gjcc@cin.ufpe.br for analysis if preferable.");
+		LOGGER.log(Level.SEVERE, "", error);
+		return ERROR_EXIT_CODE;
+	}
+
+	/**
+	 * Estimates the cost of merging a tuple by the size of its files.
+	 * @param tuple
+	 * @return sum of the files length in bytes
+	 */
+	private static long estimateMergeSize(FilesTuple tuple) {
+		long size = 0;
+		for (File f : new File[] { tuple.getLeftFile(), tuple.getBaseFile(), tuple.getRightFile() }) {
+			if (f != null) {
+				size += f.length();
+			}
+		}
+		return size;
 	}
 
 	private int checkConflictState(MergeContext context) {
-		List<MergeConflict> conflictList = FilesManager.extractMergeConflicts(context.semistructuredOutput);
+		List<MergeConflict> conflictList = context.getSemistructuredConflicts().getConflicts();
 		if (conflictList.size() > 0) {
 			return 1;
 		} else {
@@ -0,0 +1,156 @@
+package br.ufpe.cin.app;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Thin entry point to be used as git merge driver, with the same options and exit codes of {@link JFSTMerge}:
+ * <pre>driver = java -cp "\"$HOME/jFSTMerge.jar\"" br.ufpe.cin.app.MergeClient -f %A %O %B -o %A -g</pre>
+ * It forwards the merge to the running {@link MergeServer}, starting one in background when there is none.
+ * Whenever there is no server to accept the request, such as one stopping for being idle, the files are merged by the client itself.
+ * Once the request is accepted, the files are never merged by the client, as the server may have written the merged file already.
+ */
+public class MergeClient {
+
+	private static final int CONNECTION_TIMEOUT = 1000;
+
+	//the server merges one request at a time, so the merges queued before this one are waited for too
+	private static final int RESPONSE_TIMEOUT = 10 * 60 * 1000;
+
+	public static void main(String[] args) {
+		args = toAbsolutePaths(args);
+		Socket socket;
+		try {
+			socket = connect();
+		} catch (IOException e) {
+			startServer();
+			JFSTMerge.main(args);
+			return;
+		}
+		Integer exitCode;
+		try (Socket connected = socket) {
+			exitCode = forward(connected, args);
+		} catch (IOException e) {
+			System.err.println("The merge server did not answer: " + e.getMessage());
+			exitCode = JFSTMerge.ERROR_EXIT_CODE;
+		}
+		if (exitCode == null) {
+			startServer();
+			JFSTMerge.main(args);
+			return;
+		}
+		System.exit(exitCode);
+	}
+
+	/**
+	 * Connects to the running server, sending it the access token.
+	 * @return socket connected to the server
+	 * @throws IOException when there is no server available
+	 */
+	private static Socket connect() throws IOException {
+		Socket socket = new Socket();
+		try {
+			List<String> server = Files.readAllLines(MergeServer.PORT_FILE.toPath(), StandardCharsets.UTF_8);
+			socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(server.get(0))), CONNECTION_TIMEOUT);
+			socket.setSoTimeout(RESPONSE_TIMEOUT);
+			new DataOutputStream(socket.getOutputStream()).writeUTF(server.get(1));
+			return socket;
+		} catch (IOException | RuntimeException e) { //no port file, malformed port file or server stopped
+			socket.close();
+			throw (e instanceof IOException) ? (IOException) e : new IOException(e);
+		}
+	}
+
+	/**
+	 * Sends the merge to the connected server and prints its outputs.
+	 * @param socket connected to the server
+	 * @param args command line options
+	 * @return exit code of the merge, or <b>null</b> when the server closed the connection before accepting the request
+	 * @throws IOException when the server accepted the request but did not answer
+	 */
+	private static Integer forward(Socket socket, String[] args) throws IOException {
+		DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+		DataInputStream in = new DataInputStream(socket.getInputStream());
+		try {
+			out.writeInt(args.length);
+			for (String arg : args) {
+				out.writeUTF(arg);
+			}
+			out.flush();
+			in.readBoolean();
+		} catch (IOException e) { //the connection was queued while the server was stopping, or the token is outdated
+			return null;
+		}
+
+		byte[] console = readBytes(in);
+		byte[] errors = readBytes(in);
+		int exitCode = in.readInt();
+		print(System.out, console);
+		print(System.err, errors);
+		return exitCode;
+	}
+
+	/**
+	 * Starts a detached server, which will handle the next merges.
+	 */
+	private static void startServer() {
+		try {
+			new File(MergeServer.SERVER_DIR).mkdirs();
+			File log = new File(MergeServer.SERVER_DIR + "server.log");
+			String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+			new ProcessBuilder(java, "-Duser.home=" + System.getProperty("user.home"), "-cp", System.getProperty("java.class.path"), MergeServer.class.getName())
+			.redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+			.redirectError(ProcessBuilder.Redirect.appendTo(log))
+			.start()
+			.getOutputStream().close();
+		} catch (IOException e) {
+			// merging without server
+		}
+	}
+
+	/**
+	 * Resolves the paths given to the -f, -d and -o options against the current directory,
+	 * as the server runs on another working directory.
+	 * @param args command line options
+	 * @return command line options with absolute paths
+	 */
+	static String[] toAbsolutePaths(String[] args) {
+		String[] resolved = args.clone();
+		int paths = 0;
+		for (int i = 0; i < resolved.length; i++) {
+			if (paths > 0 && !resolved[i].startsWith("-")) {
+				if (!resolved[i].isEmpty()) {
+					resolved[i] = new File(resolved[i]).getAbsolutePath();
+				}
+				paths--;
+			} else if (resolved[i].equals("-f") || resolved[i].equals("-d")) {
+				paths = 3;
+			} else if (resolved[i].equals("-o")) {
+				paths = 1;
+			} else {
+				paths = 0;
+			}
+		}
+		return resolved;
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	private static void print(PrintStream stream, byte[] bytes) {
+		stream.print(new String(bytes, StandardCharsets.UTF_8));
+		stream.flush();
+	}
+}
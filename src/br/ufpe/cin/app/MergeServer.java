@@ -0,0 +1,200 @@
+package br.ufpe.cin.app;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import br.ufpe.cin.logging.LoggerFactory;
+import br.ufpe.cin.statistics.StatisticsSpool;
+
+/**
+ * Long-lived merge server, listening on a loopback port.
+ * It keeps the merge engine (parser, JDT and JGit) loaded and warmed by the JIT,
+ * so git does not pay a JVM boot for each merged file. Requests are sent by {@link MergeClient}
+ * with the same command line options of {@link JFSTMerge}, and are merged one at a time.
+ * Every authenticated request is answered, with the exit code of {@link JFSTMerge} even when the merge fails.
+ * The port and an access token are published in the <i>$HOME/.jfstmerge/server.port</i> file,
+ * and the server stops after being idle for a while (30 minutes by default, or the number of minutes given as argument).
+ * While idle, the server computes the statistics spooled by the merges, see {@link StatisticsSpool}.
+ */
+public class MergeServer {
+
+	//log of activities
+	private static final Logger LOGGER = LoggerFactory.make();
+
+	static final String SERVER_DIR  = System.getProperty("user.home") + File.separator + ".jfstmerge" + File.separator;
+	static final File PORT_FILE = new File(SERVER_DIR + "server.port");
+	static final File LOCK_FILE = new File(SERVER_DIR + "server.lock");
+
+	private static final int DEFAULT_IDLE_MINUTES = 30;
+
+	//interval between spooled statistics processed while idle, so requests wait at most one of them
+	private static final int SPOOL_POLL_MILLIS = 200;
+
+	//clients send their requests as soon as they connect, so stalled ones are dropped
+	private static final int REQUEST_TIMEOUT_MILLIS = 10 * 1000;
+
+	private final String token;
+	private final int idleMillis;
+
+	MergeServer(int idleMinutes) {
+		byte[] random = new byte[16];
+		new SecureRandom().nextBytes(random);
+		StringBuilder builder = new StringBuilder();
+		for (byte b : random) {
+			builder.append(String.format("%02x", b));
+		}
+		this.token = builder.toString();
+		this.idleMillis = idleMinutes * 60 * 1000;
+	}
+
+	public static void main(String[] args) {
+		int idleMinutes = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_IDLE_MINUTES;
+		new File(SERVER_DIR).mkdirs();
+		try (RandomAccessFile lockFile = new RandomAccessFile(LOCK_FILE, "rw");
+				FileLock lock = lockFile.getChannel().tryLock()) {
+			if (lock == null) { //another server is already running
+				return;
+			}
+			new MergeServer(idleMinutes).serve();
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "", e);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Accepts and handles merge requests until the server becomes idle.
+	 * @throws IOException
+	 */
+	void serve() throws IOException {
+		StatisticsSpool.startsBatchJob = false;
+		try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+			publish(serverSocket.getLocalPort());
+			Thread unpublish = new Thread(() -> PORT_FILE.delete());
+			Runtime.getRuntime().addShutdownHook(unpublish); //in case the server is killed
+			try {
+				long lastRequest = System.currentTimeMillis();
+				while (true) {
+					boolean hasPendingStatistics = StatisticsSpool.hasPendingEntries();
+					long idle = System.currentTimeMillis() - lastRequest;
+					if (idle >= idleMillis && !hasPendingStatistics) {
+						break;
+					}
+					serverSocket.setSoTimeout(hasPendingStatistics ? SPOOL_POLL_MILLIS : (int) (idleMillis - idle));
+					Socket socket;
+					try {
+						socket = serverSocket.accept();
+					} catch (SocketTimeoutException ste) {
+						if (hasPendingStatistics) {
+							StatisticsSpool.processNext();
+						}
+						continue;
+					} catch (IOException ioe) {
+						LOGGER.log(Level.WARNING, "", ioe);
+						continue;
+					}
+					try (Socket accepted = socket) {
+						accepted.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+						handle(accepted);
+						lastRequest = System.currentTimeMillis();
+					} catch (IOException ioe) { //a broken or stalled client must not stop the server
+						LOGGER.log(Level.WARNING, "", ioe);
+					}
+				}
+			} finally {
+				PORT_FILE.delete();
+				Runtime.getRuntime().removeShutdownHook(unpublish);
+			}
+		}
+	}
+
+	/**
+	 * Writes the port and the token of this server, readable only by the current user when possible.
+	 * @param port
+	 * @throws IOException
+	 */
+	private void publish(int port) throws IOException {
+		File temp = new File(SERVER_DIR + "server.port.tmp");
+		Files.write(temp.toPath(), (port + "\n" + token + "\n").getBytes(StandardCharsets.UTF_8));
+		try {
+			Files.setPosixFilePermissions(temp.toPath(), PosixFilePermissions.fromString("rw-------"));
+		} catch (UnsupportedOperationException e) {
+			// non posix file systems, such as in windows
+		}
+		Files.move(temp.toPath(), PORT_FILE.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Merges a single request. The request is the access token followed by the command line options.
+	 * The request is acknowledged once read, and the response is the console output, the error output and the exit code of the merge.
+	 * Requests without the access token are not answered, so their clients merge the files themselves.
+	 * @param socket
+	 * @throws IOException
+	 */
+	private void handle(Socket socket) throws IOException {
+		DataInputStream in = new DataInputStream(socket.getInputStream());
+		DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+		if (!token.equals(in.readUTF())) {
+			return;
+		}
+		String[] args = new String[in.readInt()];
+		for (int i = 0; i < args.length; i++) {
+			args[i] = in.readUTF();
+		}
+		out.writeBoolean(true);
+		out.flush();
+
+		ByteArrayOutputStream console = new ByteArrayOutputStream();
+		ByteArrayOutputStream errors = new ByteArrayOutputStream();
+		PrintStream systemOut = System.out;
+		PrintStream systemErr = System.err;
+		int exitCode;
+		try {
+			System.setOut(new PrintStream(console, true, "UTF-8"));
+			System.setErr(new PrintStream(errors, true, "UTF-8"));
+
+			//static options are set only when given, so the defaults of each request are restored
+			JFSTMerge.isGit = false;
+			JFSTMerge.isCryptographed = true;
+			JFSTMerge.logFiles = true;
+			JFSTMerge.computeStatistics = true;
+			JFSTMerge.useParsedTreeCache = false;
+			JFSTMerge.compileInBackground = false;
+			JFSTMerge.storeBinaryStatistics = false;
+			JFSTMerge.shareSubtrees = false;
+			exitCode = new JFSTMerge().run(args);
+		} catch (Throwable t) { //reported to the client, which must not merge again the files that may have been written
+			exitCode = JFSTMerge.reportError(t);
+		} finally {
+			System.setOut(systemOut);
+			System.setErr(systemErr);
+		}
+
+		writeBytes(out, console.toByteArray());
+		writeBytes(out, errors.toByteArray());
+		out.writeInt(exitCode);
+		out.flush();
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
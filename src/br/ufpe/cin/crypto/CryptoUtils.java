@@ -4,15 +4,18 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 
 import br.ufpe.cin.exceptions.CryptoException;
@@ -23,6 +26,12 @@ public class CryptoUtils {
 	private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
 	private static final SecretKey SECRETKEY = CryptoKey.getKey(); 
 
+	//records are encrypted and authenticated on their own, each with a random nonce
+	private static final String RECORD_TRANSFORMATION = "AES/GCM/NoPadding";
+	private static final int RECORD_NONCE_LENGTH = 12;
+	private static final int RECORD_TAG_LENGTH = 128;
+	private static final SecureRandom RANDOM = new SecureRandom();
+
 	public static void encrypt(File inputFile, File outputFile) throws CryptoException
 	{
 		doCrypto(Cipher.ENCRYPT_MODE, inputFile, outputFile);
@@ -57,6 +66,53 @@ public class CryptoUtils {
 		}
 	}
 	
+	/**
+	 * Encrypts and authenticates a single record, so it can be appended to a log without touching the previous ones.
+	 * @param record
+	 * @return a random nonce followed by the encrypted record and its authentication tag
+	 * @throws CryptoException
+	 */
+	public static byte[] encryptRecord(byte[] record) throws CryptoException
+	{
+		try
+		{
+			byte[] nonce = new byte[RECORD_NONCE_LENGTH];
+			RANDOM.nextBytes(nonce);
+
+			Cipher cipher = Cipher.getInstance(RECORD_TRANSFORMATION);
+			cipher.init(Cipher.ENCRYPT_MODE, SECRETKEY, new GCMParameterSpec(RECORD_TAG_LENGTH, nonce));
+
+			byte[] encrypted = new byte[RECORD_NONCE_LENGTH + cipher.getOutputSize(record.length)];
+			System.arraycopy(nonce, 0, encrypted, 0, RECORD_NONCE_LENGTH);
+			cipher.doFinal(record, 0, record.length, encrypted, RECORD_NONCE_LENGTH);
+			return encrypted;
+		}
+		catch(GeneralSecurityException ex)
+		{
+			throw new CryptoException("Error encrypting/decrypting record", ex);
+		}
+	}
+
+	/**
+	 * Decrypts a record encrypted by {@link #encryptRecord(byte[])}.
+	 * @param encrypted
+	 * @return the record
+	 * @throws CryptoException if the record was changed or corrupted
+	 */
+	public static byte[] decryptRecord(byte[] encrypted) throws CryptoException
+	{
+		try
+		{
+			Cipher cipher = Cipher.getInstance(RECORD_TRANSFORMATION);
+			cipher.init(Cipher.DECRYPT_MODE, SECRETKEY, new GCMParameterSpec(RECORD_TAG_LENGTH, encrypted, 0, RECORD_NONCE_LENGTH));
+			return cipher.doFinal(encrypted, RECORD_NONCE_LENGTH, encrypted.length - RECORD_NONCE_LENGTH);
+		}
+		catch(GeneralSecurityException | IllegalArgumentException ex)
+		{
+			throw new CryptoException("Error encrypting/decrypting record", ex);
+		}
+	}
+
 	private static void doCrypto(int cipherMode, File input, File output) throws CryptoException
 	{
 		FileInputStream inputStream = null;
@@ -0,0 +1,23 @@
+package br.ufpe.cin.exceptions;
+
+/**
+ * In case of errors that abort the merge, such as when textual merge fails.
+ * It is unchecked, as it is raised deep inside handlers and printers, and it is mapped
+ * to the exit code of the merge by {@link br.ufpe.cin.app.JFSTMerge#main(String[])}.
+ */
+public class MergeAbortedException extends RuntimeException {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 3150427861735398413L;
+
+	public MergeAbortedException(String message){
+		super("Unexpected error, the merge was aborted:\n"
+				+ message);
+	}
+
+	public MergeAbortedException(Throwable cause){
+		super("Unexpected error, the merge was aborted.", cause);
+	}
+}
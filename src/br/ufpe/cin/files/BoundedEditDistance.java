@@ -0,0 +1,134 @@
+package br.ufpe.cin.files;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <i>Levenshtein Distance</i> bounded by a maximum distance, for comparisons against a similarity threshold.
+ * The distance is computed with the bit-parallel algorithm of Myers, in Hyyrö's version for global distances,
+ * which processes 64 characters of the shorter string per operation, and stops as soon as the maximum distance
+ * can no longer be met. Common prefixes and suffixes, which do not change the distance, are skipped beforehand.
+ */
+public final class BoundedEditDistance {
+
+	private static final int WORD_SIZE = 64;
+	private static final int ASCII_SIZE = 128;
+
+	/**
+	 * Computes the <i>Levenshtein Distance</i> between two given strings, if it is not greater than the given maximum.
+	 * @param first
+	 * @param second
+	 * @param maxDistance maximum distance of interest
+	 * @return the distance, or -1 if it is greater than the maximum distance
+	 */
+	public static int compute(String first, String second, int maxDistance) {
+		if (maxDistance < 0) {
+			return -1;
+		}
+		String pattern = first, text = second; //the pattern is the shorter string
+		if (first.length() > second.length()) {
+			pattern = second;
+			text = first;
+		}
+		if (text.length() - pattern.length() > maxDistance) {
+			return -1;
+		}
+
+		//common prefix and suffix
+		int start = 0;
+		int patternEnd = pattern.length();
+		int textEnd = text.length();
+		while (start < patternEnd && pattern.charAt(start) == text.charAt(start)) {
+			start++;
+		}
+		while (patternEnd > start && pattern.charAt(patternEnd - 1) == text.charAt(textEnd - 1)) {
+			patternEnd--;
+			textEnd--;
+		}
+		int m = patternEnd - start;
+		int n = textEnd - start;
+		if (m == 0) {
+			return n; //n is within the maximum distance, checked above
+		}
+		return myers(pattern, text, start, m, n, maxDistance);
+	}
+
+	private static int myers(String pattern, String text, int start, int m, int n, int maxDistance) {
+		int blocks = (m + WORD_SIZE - 1) / WORD_SIZE;
+		long lastRowBit = 1L << ((m - 1) % WORD_SIZE);
+
+		//bit masks of the positions of each character in the pattern, per block
+		long[][] asciiPeq = new long[ASCII_SIZE][];
+		Map<Character, long[]> otherPeq = null;
+		for (int i = 0; i < m; i++) {
+			char c = pattern.charAt(start + i);
+			long[] peq;
+			if (c < ASCII_SIZE) {
+				peq = asciiPeq[c];
+				if (peq == null) {
+					peq = asciiPeq[c] = new long[blocks];
+				}
+			} else {
+				if (otherPeq == null) {
+					otherPeq = new HashMap<Character, long[]>();
+				}
+				peq = otherPeq.computeIfAbsent(c, key -> new long[blocks]);
+			}
+			peq[i / WORD_SIZE] |= 1L << (i % WORD_SIZE);
+		}
+
+		//vertical deltas of each block, all +1 in the first column, and distance at the last row of each block
+		long[] pv = new long[blocks];
+		long[] mv = new long[blocks];
+		int[] score = new int[blocks];
+		for (int b = 0; b < blocks; b++) {
+			pv[b] = -1L;
+			score[b] = Math.min((b + 1) * WORD_SIZE, m);
+		}
+
+		for (int j = 0; j < n; j++) {
+			char c = text.charAt(start + j);
+			long[] peq = (c < ASCII_SIZE) ? asciiPeq[c] : (otherPeq != null) ? otherPeq.get(c) : null;
+			int hin = 1; //distances in the first row grow by one per column
+			for (int b = 0; b < blocks; b++) {
+				long eq = (peq != null) ? peq[b] : 0L;
+				long pvBlock = pv[b];
+				long mvBlock = mv[b];
+				long hinIsNegative = (hin < 0) ? 1L : 0L;
+
+				long xv = eq | mvBlock;
+				eq |= hinIsNegative;
+				long xh = (((eq & pvBlock) + pvBlock) ^ pvBlock) | eq;
+				long ph = mvBlock | ~(xh | pvBlock);
+				long mh = pvBlock & xh;
+
+				long highBit = (b == blocks - 1) ? lastRowBit : Long.MIN_VALUE;
+				int hout = 0;
+				if ((ph & highBit) != 0) {
+					hout = 1;
+				} else if ((mh & highBit) != 0) {
+					hout = -1;
+				}
+
+				ph <<= 1;
+				mh <<= 1;
+				mh |= hinIsNegative;
+				if (hin > 0) {
+					ph |= 1L;
+				}
+				pv[b] = mh | ~(xv | ph);
+				mv[b] = ph & xv;
+
+				score[b] += hout;
+				hin = hout;
+			}
+
+			//each remaining column decreases the distance by one at most
+			if (score[blocks - 1] - (n - j - 1) > maxDistance) {
+				return -1;
+			}
+		}
+		int distance = score[blocks - 1];
+		return (distance <= maxDistance) ? distance : -1;
+	}
+}
@@ -0,0 +1,126 @@
+package br.ufpe.cin.files;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes code into channels and streams, encoding it in chunks through a buffer reused by each thread,
+ * instead of encoding the whole code into a new array, as {@link String#getBytes(Charset)} does.
+ * Invalid characters are replaced, as done by {@link String#getBytes(Charset)}.
+ */
+public final class ContentWriter {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+	private ContentWriter() {}
+
+	/**
+	 * Target of the encoded chunks.
+	 */
+	private interface Sink {
+		void write(ByteBuffer chunk) throws IOException;
+	}
+
+	/**
+	 * Buffer and encoders of a thread, kept between writes.
+	 */
+	private static final class Buffers {
+		private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+		private final Map<Charset, CharsetEncoder> encoders = new HashMap<Charset, CharsetEncoder>();
+
+		private CharsetEncoder getEncoder(Charset charset) {
+			CharsetEncoder encoder = encoders.get(charset);
+			if (encoder == null) {
+				encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+				encoders.put(charset, encoder);
+			}
+			return encoder.reset();
+		}
+	}
+
+	/**
+	 * Writes the given content into the given channel.
+	 * @param content
+	 * @param charset of the written bytes
+	 * @param channel which is not closed
+	 * @throws IOException
+	 */
+	public static void write(CharSequence content, Charset charset, WritableByteChannel channel) throws IOException {
+		encode(content, charset, chunk -> {
+			while (chunk.hasRemaining()) {
+				channel.write(chunk);
+			}
+		});
+	}
+
+	/**
+	 * Writes the given content into the given stream.
+	 * @param content
+	 * @param charset of the written bytes
+	 * @param out which is neither flushed nor closed
+	 * @throws IOException
+	 */
+	public static void write(CharSequence content, Charset charset, OutputStream out) throws IOException {
+		encode(content, charset, chunk -> out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining()));
+	}
+
+	/**
+	 * @param content
+	 * @return the number of bytes of the given content encoded in UTF-8, without encoding it
+	 */
+	public static long utf8Length(CharSequence content) {
+		long length = 0;
+		for (int i = 0; i < content.length(); i++) {
+			char c = content.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < content.length() && Character.isLowSurrogate(content.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				length++; //replaced by '?'
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+	private static void encode(CharSequence content, Charset charset, Sink sink) throws IOException {
+		Buffers buffers = BUFFERS.get();
+		CharsetEncoder encoder = buffers.getEncoder(charset);
+		ByteBuffer bytes = buffers.bytes;
+		CharBuffer chars = CharBuffer.wrap(content);
+		bytes.clear();
+		CoderResult result;
+		do {
+			result = encoder.encode(chars, bytes, true);
+			drain(bytes, sink);
+		} while (result.isOverflow());
+		do {
+			result = encoder.flush(bytes);
+			drain(bytes, sink);
+		} while (result.isOverflow());
+	}
+
+	private static void drain(ByteBuffer bytes, Sink sink) throws IOException {
+		bytes.flip();
+		if (bytes.hasRemaining()) {
+			sink.write(bytes);
+		}
+		bytes.clear();
+	}
+}
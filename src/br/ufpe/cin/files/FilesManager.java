@@ -1,15 +1,13 @@
 package br.ufpe.cin.files;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.StringReader;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -17,12 +15,11 @@ import java.util.stream.Collectors;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 
-import br.ufpe.cin.generated.SimplePrintVisitor;
+import br.ufpe.cin.exceptions.MergeAbortedException;
+import br.ufpe.cin.mergers.util.ConflictIndex;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
-
-import com.github.javaparser.JavaParser;
-import com.github.javaparser.ast.CompilationUnit;
+import br.ufpe.cin.printers.IndentingPrintVisitor;
 
 import de.ovgu.cide.fstgen.ast.FSTNode;
 import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
@@ -299,21 +296,22 @@ public final class FilesManager {
 
 	/**
 	 * Writes the given content in the file of the given file path.
+	 * The content is encoded and written in chunks, see {@link ContentWriter}.
 	 * @param filePath
 	 * @param content
 	 * @return boolean indicating the success of the write operation.
 	 */
-	public static boolean writeContent(String filePath, String content){
-		if(!content.isEmpty()){
+	public static boolean writeContent(String filePath, CharSequence content){
+		if(content.length() > 0){
 			try{
 				File file = new File(filePath);
 				if(!file.exists()){
 					file.getParentFile().mkdirs();
 					file.createNewFile();
 				}
-				BufferedWriter writer = Files.newBufferedWriter(Paths.get(filePath));
-				writer.write(content);
-				writer.flush();	writer.close();
+				try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+					ContentWriter.write(content, StandardCharsets.UTF_8, channel);
+				}
 			} catch(NullPointerException ne){
 				//empty, necessary for integration with git version control system
 			} catch(Exception e){
@@ -326,14 +324,15 @@ public final class FilesManager {
 
 	/**
 	 * Validate the given files by verifying if they exist.
-	 * In case of non-existing file, the execution terminates.
+	 * In case of non-existing file, the merge is aborted.
 	 * @param files to be validated
+	 * @throws MergeAbortedException in case of non-existing file
 	 */
 	public static void validateFiles(File... files) {
 		for(File f : files){
 			if(f!=null && !f.exists()){
 				System.err.println(f.getAbsolutePath()+" does not exists! Try again with a valid file.");
-				System.exit(-1);
+				throw new MergeAbortedException(f.getAbsolutePath()+" does not exists!");
 			}
 		}
 	}
@@ -344,7 +343,7 @@ public final class FilesManager {
 	 * @return
 	 */
 	public static String getStringContentIntoSingleLineNoSpacing(String content) {
-		return (content.replaceAll("\\r\\n|\\r|\\n","")).replaceAll("\\s+","");
+		return NormalizedText.removeWhitespaces(content);
 	}
 
 	/**
@@ -353,51 +352,7 @@ public final class FilesManager {
 	 * @return list o merge conflicts
 	 */
 	public static List<MergeConflict> extractMergeConflicts(String mergedCode){
-		String CONFLICT_HEADER_BEGIN= "<<<<<<< MINE";
-		String CONFLICT_MID			= "=======";
-		String CONFLICT_HEADER_END 	= ">>>>>>> YOURS";
-		String leftConflictingContent = "";
-		String rightConflictingContent= "";
-		boolean isConflictOpen		  = false;
-		boolean isLeftContent		  = false;
-		int lineCounter				  = 0;
-		int startLOC				  = 0;
-		int endLOC				  	  = 0;
-
-		List<MergeConflict> mergeConflicts = new ArrayList<MergeConflict>();
-		List<String> lines = new ArrayList<>();
-		BufferedReader reader = new BufferedReader(new StringReader(mergedCode));
-		lines = reader.lines().collect(Collectors.toList());
-		Iterator<String> itlines = lines.iterator();
-		while(itlines.hasNext()){
-			String line = itlines.next();
-			lineCounter++;
-			if(line.contains(CONFLICT_HEADER_BEGIN)){
-				isConflictOpen = true;
-				isLeftContent  = true;
-				startLOC = lineCounter;
-			}
-			else if(line.contains(CONFLICT_MID)){
-				isLeftContent = false;
-			}
-			else if(line.contains(CONFLICT_HEADER_END)) {
-				endLOC = lineCounter;
-				MergeConflict mergeConflict = new MergeConflict(leftConflictingContent,rightConflictingContent,startLOC,endLOC);
-				mergeConflicts.add(mergeConflict);
-
-				//reseting the flags
-				isConflictOpen	= false;
-				isLeftContent   = false;
-				leftConflictingContent = "";
-				rightConflictingContent= "";
-			} else {
-				if(isConflictOpen){
-					if(isLeftContent){leftConflictingContent+=line + "\n";
-					}else{rightConflictingContent+=line + "\n";}
-				}
-			}
-		}
-		return mergeConflicts;
+		return ConflictIndex.extract(mergedCode);
 	}
 
 	/**
@@ -416,8 +371,7 @@ public final class FilesManager {
 		} else {
 			if(node instanceof FSTTerminal){
 				FSTTerminal terminal = (FSTTerminal) node;
-				if(getStringContentIntoSingleLineNoSpacing(terminal.getBody())
-						.equals(getStringContentIntoSingleLineNoSpacing(oldContent))){
+				if(NormalizedText.equals(terminal.getBody(), oldContent)){
 					terminal.setBody(newContent);
 					return true;
 				}
@@ -442,8 +396,7 @@ public final class FilesManager {
 			}
 		} else {
 			if(node instanceof FSTTerminal){
-				if(getStringContentIntoSingleLineNoSpacing(((FSTTerminal) node).getBody())
-						.equals(getStringContentIntoSingleLineNoSpacing(content))){
+				if(NormalizedText.equals(((FSTTerminal) node).getBody(), content)){
 					FSTNonTerminal parent = ((FSTTerminal) node).getParent();
 					parent.removeChild(node);
 					return true;
@@ -529,20 +482,6 @@ public final class FilesManager {
 		return new String[] {rootFolderPathLeft, rootFolderPathBase, rootFolderPathRight};
 	}
 
-	/**
-	 * Indents a given string representing Java source code.
-	 * @param sourceCode
-	 * @return indented sourceCode
-	 */
-	public static String indentCode(String sourceCode){
-		String indentedCode = sourceCode;
-		try{
-			CompilationUnit indenter = JavaParser.parse(new ByteArrayInputStream(sourceCode.getBytes()), StandardCharsets.UTF_8.displayName());
-			indentedCode = indenter.toString();
-		} catch (Exception e){} //in case of any errors, returns the non-indented sourceCode
-		return indentedCode;
-	}
-
 	/**
 	 * Optimization that merges files equals or consistently changed. e.g left equals to right.
 	 * @param left file
@@ -553,35 +492,37 @@ public final class FilesManager {
 	 * @return <b>true</b> if the files are equal or consistently changed, <b>false</b> otherwise
 	 */
 	public static boolean areFilesDifferent(File left, File base, File right,String outputFilePath, MergeContext context) {
-		boolean result = true;
-
-		//reading files content
-		String auxleft = FilesManager.readFileContent(left);
-		String leftcontent = (auxleft == null)?"":auxleft;
-		String leftcontenttrim = (auxleft == null)?"":FilesManager.getStringContentIntoSingleLineNoSpacing(auxleft);
-
-		String auxright = FilesManager.readFileContent(right);
-		String rightcontent= (auxright == null)?"":auxright;
-		String rightcontenttrim= (auxright== null)?"":FilesManager.getStringContentIntoSingleLineNoSpacing(auxright);
+		return areFilesDifferent(SourceSnapshot.of(left), SourceSnapshot.of(base), SourceSnapshot.of(right), context);
+	}
 
-		String auxbase = FilesManager.readFileContent(base);
-		String basecontentrim = (auxbase == null)?"":FilesManager.getStringContentIntoSingleLineNoSpacing(auxbase);
+	/**
+	 * Optimization that merges files equals or consistently changed. e.g left equals to right.
+	 * @param left file snapshot
+	 * @param base file snapshot
+	 * @param right file snapshot
+	 * @param context
+	 * @return <b>true</b> if the files are equal or consistently changed, <b>false</b> otherwise
+	 */
+	public static boolean areFilesDifferent(SourceSnapshot left, SourceSnapshot base, SourceSnapshot right, MergeContext context) {
+		boolean result = true;
+		String leftcontent = left.getContent();
+		String rightcontent= right.getContent();
 
 		//comparing files content
-		if(basecontentrim.equals(leftcontenttrim)){
+		if(base.isEquivalentTo(left)){
 			//result is right
 			context.semistructuredOutput = rightcontent;
-			context.unstructuredOutput = rightcontent;
+			context.setUnstructuredOutput(rightcontent);
 			result = false;
-		} else if(basecontentrim.equals(rightcontenttrim)){
+		} else if(base.isEquivalentTo(right)){
 			//result is left
 			context.semistructuredOutput = leftcontent;
-			context.unstructuredOutput = leftcontent;
+			context.setUnstructuredOutput(leftcontent);
 			result = false;
-		} else if(leftcontenttrim.equals(rightcontenttrim)){
+		} else if(left.isEquivalentTo(right)){
 			//result is both left or right
 			context.semistructuredOutput = leftcontent;
-			context.unstructuredOutput = leftcontent;
+			context.setUnstructuredOutput(leftcontent);
 			result = false;
 		}
 		return result;
@@ -609,6 +550,39 @@ public final class FilesManager {
 		return ((longerLength - levenshteinDistance)/(double) longerLength);
 	}
 
+	/**
+	 * Compute the similarity between two given strings based on the <i>Levenshtein Distance</i>, 
+	 * as {@link #computeStringSimilarity(String, String)}, when it is at least the given threshold.
+	 * The distance is bounded by the threshold, so dissimilar strings are discarded early, 
+	 * beginning with strings whose lengths are too different.
+	 * @param first
+	 * @param second
+	 * @param threshold minimum similarity of interest
+	 * @return <b>double</b> similarity between 0.0 and 1.0 if it is at least the threshold, 
+	 * or a value lower than the threshold otherwise
+	 */
+	public static double computeStringSimilarity(String first,String second, double threshold) {
+		int longerLength = Math.max(first.length(), second.length());
+		if (longerLength == 0) {
+			return 1.0; /* both strings are zero length */ 
+		}
+
+		//largest distance whose similarity meets the threshold, computed as the similarity itself to avoid rounding differences
+		int maxDistance = (int) Math.floor(longerLength * (1 - threshold));
+		while (maxDistance < longerLength && ((longerLength - (maxDistance + 1))/(double) longerLength) >= threshold) {
+			maxDistance++;
+		}
+		while (maxDistance >= 0 && ((longerLength - maxDistance)/(double) longerLength) < threshold) {
+			maxDistance--;
+		}
+
+		int levenshteinDistance = BoundedEditDistance.compute(first, second, maxDistance);
+		if (levenshteinDistance < 0) {
+			return -1.0; /* the similarity is lower than the threshold, which is then positive */
+		}
+		return ((longerLength - levenshteinDistance)/(double) longerLength);
+	}
+
 	@SuppressWarnings("unused")
 	private static String undoReplaceConflictMarkers(String indentedCode) {
 		// dummy code for identation purposes
@@ -631,8 +605,8 @@ public final class FilesManager {
 	 * @param node
 	 */
 	public static String prettyPrint(FSTNonTerminal node) {
-		SimplePrintVisitor visitor = new SimplePrintVisitor();
+		IndentingPrintVisitor visitor = new IndentingPrintVisitor();
 		visitor.visit(node);
-		return visitor.getResult().replaceAll(("  "), " ");
+		return visitor.getResult();
 	}
 }
@@ -0,0 +1,130 @@
+package br.ufpe.cin.files;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Comparison and search of code ignoring whitespaces and line breaks, as done by
+ * {@link FilesManager#getStringContentIntoSingleLineNoSpacing(String)}, but in a single pass
+ * and without regular expressions. Comparisons and hashes skip the whitespaces instead of building
+ * the normalized strings, and normalized strings are only built when they are kept.
+ */
+public final class NormalizedText {
+
+	/**
+	 * Compares code ignoring whitespaces and line breaks.
+	 */
+	public static final Comparator<CharSequence> COMPARATOR = NormalizedText::compare;
+
+	/**
+	 * Same characters matched by the regular expression <i>\s</i>, line breaks included.
+	 */
+	public static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * @param text
+	 * @return the text without whitespaces and line breaks, which is the given text itself if it has none
+	 */
+	public static String removeWhitespaces(CharSequence text) {
+		int length = text.length();
+		int i = 0;
+		while (i < length && !isWhitespace(text.charAt(i))) {
+			i++;
+		}
+		if (i == length) {
+			return text.toString();
+		}
+		StringBuilder normalized = new StringBuilder(length - 1);
+		normalized.append(text, 0, i);
+		for (i++; i < length; i++) {
+			char c = text.charAt(i);
+			if (!isWhitespace(c)) {
+				normalized.append(c);
+			}
+		}
+		return normalized.toString();
+	}
+
+	/**
+	 * @return true if the text has only whitespaces and line breaks, or nothing
+	 */
+	public static boolean isBlank(CharSequence text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (!isWhitespace(text.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return hash of the text ignoring whitespaces and line breaks, the same as
+	 * the {@link String#hashCode()} of the text without them
+	 */
+	public static int hash(CharSequence text) {
+		int hash = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (!isWhitespace(c)) {
+				hash = 31 * hash + c;
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * @return true if the texts are equal ignoring whitespaces and line breaks
+	 */
+	public static boolean equals(CharSequence first, CharSequence second) {
+		return compare(first, second) == 0;
+	}
+
+	/**
+	 * Compares the texts lexicographically ignoring whitespaces and line breaks.
+	 * @return a value with the same sign of the {@link String#compareTo(String)} of the texts without them
+	 */
+	public static int compare(CharSequence first, CharSequence second) {
+		int i = 0, j = 0;
+		int firstLength = first.length(), secondLength = second.length();
+		while (true) {
+			while (i < firstLength && isWhitespace(first.charAt(i))) i++;
+			while (j < secondLength && isWhitespace(second.charAt(j))) j++;
+			if (i == firstLength || j == secondLength) {
+				return (i == firstLength ? 0 : 1) - (j == secondLength ? 0 : 1);
+			}
+			char a = first.charAt(i++);
+			char b = second.charAt(j++);
+			if (a != b) {
+				return a - b;
+			}
+		}
+	}
+
+	/**
+	 * Cache of the normalized bodies of terminals, which are normalized again only when their bodies change.
+	 * Not thread-safe, it is meant to be kept by a single merge.
+	 */
+	public static final class TerminalCache {
+
+		private final Map<FSTTerminal, String[]> bodies = new IdentityHashMap<FSTTerminal, String[]>();
+
+		/**
+		 * @param terminal
+		 * @return the body of the terminal without whitespaces and line breaks
+		 */
+		public String getNormalizedBody(FSTTerminal terminal) {
+			String body = terminal.getBody();
+			String[] cached = bodies.get(terminal); //body and its normalized form
+			if (cached == null || cached[0] != body) {
+				cached = new String[] {body, removeWhitespaces(body)};
+				bodies.put(terminal, cached);
+			}
+			return cached[1];
+		}
+	}
+}
@@ -0,0 +1,282 @@
+package br.ufpe.cin.files;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import br.ufpe.cin.logging.LoggerFactory;
+
+/**
+ * Index of the folders of a project holding files of each extension, such as the
+ * source folders (<i>java</i>) and the folders of libraries (<i>jar</i>) given to the compiler.
+ * Listing every file of the project on each compilation is expensive on big projects,
+ * so the folders are indexed once per project root, kept in memory for the following merges,
+ * and stored in the <i>$HOME/.jfstmerge/projects</i> folder for the next runs.
+ * The index is updated by listing again only the folders whose modification time changed.
+ */
+public final class ProjectResourceIndex {
+
+	//log of activities
+	private static final Logger LOGGER = LoggerFactory.make();
+
+	//must change whenever the format of the stored indexes change
+	private static final int FORMAT_VERSION = 1;
+
+	//folders are not checked for changes again before this interval
+	private static final long VALIDATION_INTERVAL = 2000;
+
+	//modification times too close to the listing are not trusted, due to the precision of some file systems
+	private static final long UNTRUSTED = -1;
+	private static final long MODIFICATION_TIME_PRECISION = 2000;
+
+	private static final String EXTENSION = ".idx";
+
+	private static File directory = new File(System.getProperty("user.home") + File.separator + ".jfstmerge" + File.separator + "projects");
+
+	private static final Map<String, ProjectResourceIndex> indexes = new ConcurrentHashMap<String, ProjectResourceIndex>();
+
+	private final File root;
+	private Folder rootFolder;
+	private long lastValidation;
+	private boolean changed;
+
+	/**
+	 * Folder of the project, with its subfolders and the position of the first file
+	 * of each extension among the subfolders, in listing order.
+	 */
+	private static class Folder {
+		final File file;
+		long lastModified;
+		List<Folder> subfolders = new ArrayList<Folder>();
+		Map<String, Integer> firstFiles = new LinkedHashMap<String, Integer>();
+
+		Folder(File file) {
+			this.file = file;
+		}
+	}
+
+	private ProjectResourceIndex(File root) {
+		this.root = root;
+	}
+
+	/**
+	 * Returns the index of the project with the given root folder.
+	 * @param rootPath root folder of the project
+	 * @return index of the project
+	 */
+	public static ProjectResourceIndex of(String rootPath) {
+		File root = new File(rootPath);
+		return indexes.computeIfAbsent(root.getAbsolutePath(), path -> new ProjectResourceIndex(root));
+	}
+
+	/**
+	 * Changes the folder where indexes are stored.
+	 * @param indexesDirectory
+	 */
+	public static synchronized void configure(File indexesDirectory) {
+		directory = indexesDirectory;
+		indexes.clear();
+	}
+
+	/**
+	 * Gets the folders holding files with the given extension, in the order a recursive
+	 * listing of the project finds them (as in {@link org.apache.commons.io.FileUtils#listFiles(File, String[], boolean)}).
+	 * @param fileExtension without the dot
+	 * @return list of folders path
+	 * @throws IllegalArgumentException if the root of the project is not a folder
+	 */
+	public synchronized List<String> getFolders(String fileExtension) {
+		if (!root.isDirectory()) {
+			throw new IllegalArgumentException("Parameter 'directory' is not a directory: " + root);
+		}
+		update();
+		Set<String> folders = new LinkedHashSet<String>();
+		collectFolders(rootFolder, fileExtension, folders);
+		return new ArrayList<String>(folders);
+	}
+
+	private void update() {
+		long now = System.currentTimeMillis();
+		if (rootFolder != null && now - lastValidation < VALIDATION_INTERVAL) {
+			return;
+		}
+		if (rootFolder == null) {
+			rootFolder = load();
+		}
+		if (rootFolder == null) {
+			rootFolder = new Folder(root);
+			rootFolder.lastModified = UNTRUSTED;
+		}
+		refresh(rootFolder);
+		lastValidation = now;
+		if (changed) {
+			store();
+			changed = false;
+		}
+	}
+
+	/**
+	 * Lists again the folders modified since they were indexed.
+	 */
+	private void refresh(Folder folder) {
+		if (folder.lastModified == UNTRUSTED || folder.file.lastModified() != folder.lastModified) {
+			list(folder);
+		} else {
+			for (Folder subfolder : folder.subfolders) {
+				refresh(subfolder);
+			}
+		}
+	}
+
+	private void list(Folder folder) {
+		changed = true;
+		long lastModified = folder.file.lastModified();
+		folder.lastModified = (System.currentTimeMillis() - lastModified < MODIFICATION_TIME_PRECISION) ? UNTRUSTED : lastModified;
+
+		Map<String, Folder> previousSubfolders = new HashMap<String, Folder>();
+		for (Folder subfolder : folder.subfolders) {
+			previousSubfolders.put(subfolder.file.getName(), subfolder);
+		}
+		folder.subfolders = new ArrayList<Folder>();
+		folder.firstFiles = new LinkedHashMap<String, Integer>();
+
+		File[] entries = folder.file.listFiles();
+		if (entries == null) {
+			return;
+		}
+		for (File entry : entries) {
+			if (entry.isDirectory()) {
+				Folder subfolder = previousSubfolders.get(entry.getName());
+				if (subfolder == null) {
+					subfolder = new Folder(entry);
+					subfolder.lastModified = UNTRUSTED;
+				}
+				refresh(subfolder);
+				folder.subfolders.add(subfolder);
+			} else {
+				String name = entry.getName();
+				int dot = name.lastIndexOf('.');
+				if (dot >= 0) {
+					folder.firstFiles.putIfAbsent(name.substring(dot + 1), folder.subfolders.size());
+				}
+			}
+		}
+	}
+
+	private static void collectFolders(Folder folder, String fileExtension, Set<String> folders) {
+		Integer first = folder.firstFiles.get(fileExtension);
+		for (int i = 0; i < folder.subfolders.size(); i++) {
+			if (first != null && first == i) {
+				folders.add(folder.file.getPath());
+			}
+			collectFolders(folder.subfolders.get(i), fileExtension, folders);
+		}
+		if (first != null && first == folder.subfolders.size()) {
+			folders.add(folder.file.getPath());
+		}
+	}
+
+	private File storedIndex() {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(root.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+			StringBuilder name = new StringBuilder();
+			for (byte b : digest.digest()) {
+				name.append(String.format("%02x", b));
+			}
+			return new File(directory, name.append(EXTENSION).toString());
+		} catch (NoSuchAlgorithmException e) { //every java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private Folder load() {
+		File stored = storedIndex();
+		if (!stored.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stored.toPath())))) {
+			if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(root.getAbsolutePath())) {
+				throw new IOException("Outdated project index.");
+			}
+			return readFolder(in, root);
+		} catch (IOException | RuntimeException e) { //corrupted or outdated indexes are built again
+			stored.delete();
+			return null;
+		}
+	}
+
+	private void store() {
+		File temp = null;
+		try {
+			if (!directory.isDirectory()) {
+				directory.mkdirs();
+				try { //the index holds the structure of the user's projects
+					Files.setPosixFilePermissions(directory.toPath(), PosixFilePermissions.fromString("rwx------"));
+				} catch (UnsupportedOperationException e) {
+					// non posix file systems, such as in windows
+				}
+			}
+			temp = File.createTempFile("index", ".tmp", directory);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(root.getAbsolutePath());
+				writeFolder(out, rootFolder);
+			}
+			Files.move(temp.toPath(), storedIndex().toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "", e);
+		} finally {
+			if (temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
+	private static void writeFolder(DataOutputStream out, Folder folder) throws IOException {
+		out.writeLong(folder.lastModified);
+		out.writeInt(folder.firstFiles.size());
+		for (Map.Entry<String, Integer> first : folder.firstFiles.entrySet()) {
+			out.writeUTF(first.getKey());
+			out.writeInt(first.getValue());
+		}
+		out.writeInt(folder.subfolders.size());
+		for (Folder subfolder : folder.subfolders) {
+			out.writeUTF(subfolder.file.getName());
+			writeFolder(out, subfolder);
+		}
+	}
+
+	private static Folder readFolder(DataInputStream in, File file) throws IOException {
+		Folder folder = new Folder(file);
+		folder.lastModified = in.readLong();
+		int numberOfExtensions = in.readInt();
+		for (int i = 0; i < numberOfExtensions; i++) {
+			folder.firstFiles.put(in.readUTF(), in.readInt());
+		}
+		int numberOfSubfolders = in.readInt();
+		for (int i = 0; i < numberOfSubfolders; i++) {
+			folder.subfolders.add(readFolder(in, new File(file, in.readUTF())));
+		}
+		return folder;
+	}
+}
@@ -0,0 +1,133 @@
+package br.ufpe.cin.files;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Immutable content of one revision of a file, read from disk only once
+ * and shared by every step of the merge (textual merge, parsing, handlers and logging).
+ * It keeps the raw bytes, the decoded characters
+ * and a hash of the content ignoring whitespaces.
+ */
+public final class SourceSnapshot {
+
+	/** Snapshot of an intentional empty, deleted or inexistent file. */
+	public static final SourceSnapshot EMPTY = new SourceSnapshot(null, new byte[0], "", "");
+
+	private final File file;
+	private final byte[] bytes;
+	private final String chars;
+	private final String content;
+	private final int normalizedHash;
+
+	private SourceSnapshot(File file, byte[] bytes, String chars, String content) {
+		this.file = file;
+		this.bytes = bytes;
+		this.chars = chars;
+		this.content = content;
+		this.normalizedHash = NormalizedText.hash(content);
+	}
+
+	/**
+	 * Reads the given file once.
+	 * @param file to be read, can be <b>null</b> in case of intentional empty file.
+	 * @return snapshot of the file, which is empty in case of errors.
+	 */
+	public static SourceSnapshot of(File file) {
+		if (file == null) {
+			return EMPTY;
+		}
+		byte[] bytes;
+		try {
+			bytes = Files.readAllBytes(file.toPath());
+		} catch (Exception e) {
+			return new SourceSnapshot(file, new byte[0], "", "");
+		}
+
+		//strict decoding, like FilesManager.readFileContent, which reads nothing from invalid UTF-8 files
+		try {
+			String chars = StandardCharsets.UTF_8.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT)
+					.decode(ByteBuffer.wrap(bytes)).toString();
+			return new SourceSnapshot(file, bytes, chars, joinLines(chars));
+		} catch (CharacterCodingException e) {
+			//the parser still reads such files, replacing invalid sequences
+			return new SourceSnapshot(file, bytes, new String(bytes, StandardCharsets.UTF_8), "");
+		}
+	}
+
+	/**
+	 * @return the file this snapshot was read from, or null.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return read-only view of the raw bytes of the file.
+	 */
+	public ByteBuffer getBytes() {
+		return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+	}
+
+	/**
+	 * @return the decoded characters of the file, as they are on disk.
+	 */
+	public String getChars() {
+		return chars;
+	}
+
+	/**
+	 * @return the lines of the file joined by '\n', the same as {@link FilesManager#readFileContent(File)}.
+	 */
+	public String getContent() {
+		return content;
+	}
+
+	public boolean isEmpty() {
+		return content.isEmpty();
+	}
+
+	/**
+	 * Checks if this snapshot has the same content of another one, ignoring whitespaces and line breaks.
+	 * It is equivalent to compare the contents with {@link FilesManager#getStringContentIntoSingleLineNoSpacing(String)},
+	 * but without building new strings.
+	 * @param other
+	 */
+	public boolean isEquivalentTo(SourceSnapshot other) {
+		return this.normalizedHash == other.normalizedHash && NormalizedText.equals(this.content, other.content);
+	}
+
+	/**
+	 * Joins the lines of the given text with '\n', as done by reading the lines of a BufferedReader.
+	 */
+	private static String joinLines(String text) {
+		int end = text.length();
+		if (end > 0 && text.charAt(end - 1) == '\n') {
+			end--;
+			if (end > 0 && text.charAt(end - 1) == '\r') end--;
+		} else if (end > 0 && text.charAt(end - 1) == '\r') {
+			end--;
+		}
+		if (text.indexOf('\r') < 0) {
+			return text.substring(0, end);
+		}
+		CharBuffer joined = CharBuffer.allocate(end);
+		for (int i = 0; i < end; i++) {
+			char c = text.charAt(i);
+			if (c == '\r') {
+				if (i + 1 < end && text.charAt(i + 1) == '\n') i++;
+				c = '\n';
+			}
+			joined.put(c);
+		}
+		joined.flip();
+		return joined.toString();
+	}
+}
@@ -0,0 +1,245 @@
+package br.ufpe.cin.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.exceptions.CryptoException;
+import br.ufpe.cin.statistics.StatisticsSpool;
+
+/**
+ * Background writer of the logs of conflicts, scenarios and merged files.
+ * Merges only queue their records, and a single thread appends them in batches,
+ * opening each log once per batch instead of once per record (group commit).
+ * The queue is bounded: when it is full, merges wait for room for a while, and the record
+ * is dropped if the writer does not catch up. Records still queued are written when the JVM shuts down.
+ * Merging as a git driver, which git waits for, records are not queued but handed to the {@link StatisticsSpool},
+ * whose batch job writes them, so the driver exits without waiting for the logs.
+ */
+public final class AsyncLogWriter {
+
+	//log of activities
+	private static final Logger LOGGER = LoggerFactory.make();
+
+	private static final int QUEUE_CAPACITY = 4096;
+	private static final int MAX_BATCH_SIZE = 512;
+	private static final long ENQUEUE_TIMEOUT_MILLIS = 1000;
+	private static final long SHUTDOWN_FLUSH_TIMEOUT_MILLIS = 10000;
+
+	private static final AsyncLogWriter INSTANCE = new AsyncLogWriter();
+
+	private final BlockingQueue<Record> queue = new ArrayBlockingQueue<Record>(QUEUE_CAPACITY);
+	private Thread writer; //started with the first record
+
+	//records that waited for room in the queue, and records dropped because the queue stayed full
+	private final AtomicLong lateRecords = new AtomicLong();
+	private final AtomicLong droppedRecords = new AtomicLong();
+
+	//guarded by this, to wait for the records queued before a flush
+	private long queuedRecords;
+	private long finishedRecords; //written or dropped
+
+	/**
+	 * Record to be appended to a log.
+	 */
+	private static class Record {
+		final File file;
+		final String header;
+		final String content;
+		final boolean encrypted;
+		final long maxSize;
+
+		Record(File file, String header, String content, boolean encrypted, long maxSize) {
+			this.file = file;
+			this.header = header;
+			this.content = content;
+			this.encrypted = encrypted;
+			this.maxSize = maxSize;
+		}
+	}
+
+	private AsyncLogWriter() {
+	}
+
+	public static AsyncLogWriter getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Queues content to be appended to a log.
+	 * @param file log
+	 * @param header written before the content if the log does not exist, can be <b>null</b>
+	 * @param content
+	 */
+	public void append(File file, String header, String content) {
+		enqueue(new Record(file, header, content, false, 0));
+	}
+
+	/**
+	 * Queues content to be appended to a log backed up and started again when it reaches the given size,
+	 * or, if encrypted, to a {@link SegmentedLog} in segments of the given size.
+	 * @param file log, or folder of the segments if encrypted
+	 * @param content
+	 * @param encrypted if the log is encrypted
+	 * @param maxSize in bytes
+	 */
+	public void appendToBuffer(File file, String content, boolean encrypted, long maxSize) {
+		enqueue(new Record(file, null, content, encrypted, maxSize));
+	}
+
+	/**
+	 * Waits until the records queued so far are written.
+	 * @param timeoutMillis maximum time to wait
+	 * @return true if they were written
+	 */
+	public synchronized boolean flush(long timeoutMillis) {
+		long target = queuedRecords;
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		while (finishedRecords < target) {
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				return false;
+			}
+			try {
+				wait(remaining);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return number of records that waited for room in the queue.
+	 */
+	public long getLateRecords() {
+		return lateRecords.get();
+	}
+
+	/**
+	 * @return number of records dropped because the queue was full.
+	 */
+	public long getDroppedRecords() {
+		return droppedRecords.get();
+	}
+
+	private void enqueue(Record record) {
+		if (JFSTMerge.isGit) {
+			try {
+				StatisticsSpool.spool(record.file, record.header, record.content, record.encrypted, record.maxSize);
+				return;
+			} catch (IOException e) { //queued instead
+				LOGGER.log(Level.WARNING, "", e);
+			}
+		}
+		start();
+		synchronized (this) { //counted before queued, so a flush never waits for a record written already
+			queuedRecords++;
+		}
+		boolean queued = queue.offer(record);
+		if (!queued) {
+			try {
+				queued = queue.offer(record, ENQUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				if (queued) {
+					lateRecords.incrementAndGet();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (!queued) {
+			droppedRecords.incrementAndGet();
+			synchronized (this) {
+				finishedRecords++;
+				notifyAll();
+			}
+		}
+	}
+
+	private synchronized void start() {
+		if (writer == null) {
+			writer = new Thread(this::run, "log-writer");
+			writer.setDaemon(true);
+			writer.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				//git does not wait for the records queued only because they could not be spooled
+				if (!flush((JFSTMerge.isGit) ? 0 : SHUTDOWN_FLUSH_TIMEOUT_MILLIS) || droppedRecords.get() > 0) {
+					LOGGER.log(Level.WARNING, "Log records not written: " + droppedRecords.get() + " dropped, " + queue.size() + " pending. Late records: " + lateRecords.get());
+				}
+			}));
+		}
+	}
+
+	private void run() {
+		List<Record> batch = new ArrayList<Record>(MAX_BATCH_SIZE);
+		while (true) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+			write(batch);
+			synchronized (this) {
+				finishedRecords += batch.size();
+				notifyAll();
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Appends the records of each log at once, in the order they were queued.
+	 */
+	private static void write(List<Record> batch) {
+		Map<File, List<Record>> recordsByLog = new LinkedHashMap<File, List<Record>>();
+		for (Record record : batch) {
+			recordsByLog.computeIfAbsent(record.file, file -> new ArrayList<Record>()).add(record);
+		}
+		for (List<Record> records : recordsByLog.values()) {
+			try {
+				writeLog(records);
+			} catch (Exception e) { //the next records are written anyway
+				LOGGER.log(Level.WARNING, "", e);
+			}
+		}
+	}
+
+	private static void writeLog(List<Record> records) throws IOException, CryptoException {
+		Record first = records.get(0);
+		File log = first.file;
+		log.getParentFile().mkdirs(); //ensuring that the directories exists
+		if (!first.encrypted && first.maxSize > 0 && log.length() >= first.maxSize) {
+			//when the log reaches its size limit, a new empty log is started, and the previous one is backup
+			log.renameTo(new File(log.getPath() + System.currentTimeMillis()));
+		}
+
+		StringBuilder content = new StringBuilder();
+		if (first.header != null && !log.exists()) {
+			content.append(first.header);
+		}
+		for (Record record : records) {
+			content.append(record.content);
+		}
+
+		if (first.encrypted) {
+			//a single encrypted record per batch, appended without decrypting and encrypting again the previous ones
+			new SegmentedLog(log, first.maxSize).append(content.toString());
+		} else {
+			FileUtils.write(log, content.toString(), true);
+		}
+	}
+}
@@ -2,11 +2,21 @@ package br.ufpe.cin.logging;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
 
 import org.apache.commons.io.FileUtils;
 
@@ -21,9 +31,21 @@ import br.ufpe.cin.mergers.util.Source;
 
 public class LoggerStatistics {
 
+	//log of activities
+	private static final Logger LOGGER = LoggerFactory.make();
+
 	//variable to avoid infinite recursion when trying to fix cryptographic issues 
 	public static int numberOfCriptographyFixAttempts = 0;
 
+	//encrypted entries of the statistics log, in segments of 1 megabyte
+	private static final SegmentedLog ENCRYPTED_STATISTICS = new SegmentedLog(new File(System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator + "statistics"), 1024 * 1024);
+
+	//running totals of the numeric columns of the statistics log, so the summary does not read the whole log
+	private static final int FIRST_SUMMED_COLUMN = 2;
+	private static final int SUMMED_COLUMNS = 16;
+	private static final int CHECKPOINT_VERSION = 1;
+	private static final int CHECKPOINT_LENGTH = 4 + 8 * (1 + SUMMED_COLUMNS) + 8;
+
 	//managing enable/disable of cryptography
 	static{ 
 		if(!JFSTMerge.isCryptographed){
@@ -32,13 +54,15 @@ public class LoggerStatistics {
 
 				logpath = logpath + "jfstmerge.statistics";
 				File file = new File(logpath);
-				CryptoUtils.decrypt(file, file);
+				if(file.exists() && !isPlainStatistics(file)){
+					CryptoUtils.decrypt(file, file);
+				}
 
 				logpath = logpath + "jfstmerge.files";
 				file = new File(logpath);
 				CryptoUtils.decrypt(file, file);
 
-			} catch (CryptoException e) {
+			} catch (CryptoException | IOException e) {
 				// the files are already decrypted, no need for further action
 			}
 		}
@@ -46,27 +70,15 @@ public class LoggerStatistics {
 
 	public static void logContext(String msg, MergeContext context) throws PrintException{
 		try{
-			initializeLogger();
-
 			//logging
-			String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(Calendar.getInstance().getTime());
-			String logpath   = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
-			String logentry	 = timeStamp+","+msg+"\n";
-			logpath = logpath + "jfstmerge.statistics";
-			File statisticsLog = new File(logpath);
-
-			if(JFSTMerge.isCryptographed){
-				CryptoUtils.decrypt(statisticsLog, statisticsLog);
-			}
-
-			FileUtils.write(statisticsLog, logentry, true);
+			String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date(context.mergeTimestamp));
+			String logentry	 = timeStamp+","+msg;
+			logStatistics(logentry);
 
 			if(JFSTMerge.logFiles){
 				//logging merged files for further analysis
 				logFiles(timeStamp,context);
 			}
-			
-			logSummary();
 		}
 		catch (CryptoException c)
 		{
@@ -92,206 +104,304 @@ public class LoggerStatistics {
 
 	public static void logScenario(String loggermsg) throws IOException {
 		String logpath = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
-		new File(logpath).mkdirs(); //ensuring that the directories exists	
 		logpath = logpath + "jfstmerge.statistics.scenarios";
 
-		//reading the log file to see if it is not empty neither contains the header
+		//the header is written if the log does not exist yet
 		String header = "revision,ssmergeconfs,ssmergeloc,ssmergerenamingconfs,ssmergedeletionconfs,ssmergeinnerdeletionconfs,ssmergetaeconfs,ssmergenereoconfs,"
 				+ "ssmergeinitlblocksconfs,ssmergeacidentalconfs,unmergeconfs,unmergeloc,unmergetime,ssmergetime,unmergeduplicateddeclarationerrors,"
 				+ "unmergeorderingconfs,equalconfs\n";
-		File statisticsLog = new File(logpath);
-		if(!statisticsLog.exists()){
-			FileUtils.write(statisticsLog, header, true);
-		}
-
-		FileUtils.write(statisticsLog, loggermsg, true);
+		AsyncLogWriter.getInstance().append(new File(logpath), header, loggermsg);
 	}
 
 	public static void logConflicts(List<MergeConflict> conflicts, Source source) throws IOException {
 		String logpath = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
-		new File(logpath).mkdirs(); //ensuring that the directories exists	
+		StringBuilder entries = new StringBuilder();
 		for(MergeConflict mc : conflicts){
 			String origin =  ((mc.leftOriginFile != null) ? mc.leftOriginFile.getAbsolutePath() : "<empty left>") 
 					+ ";" + ((mc.baseOriginFile  != null) ? mc.baseOriginFile.getAbsolutePath() : "<empty base>") 
 					+ ";" + ((mc.rightOriginFile != null) ? mc.rightOriginFile.getAbsolutePath(): "<empty right>");
+			entries.append(origin).append('\n').append(mc.body).append('\n');
 			if(source == null){
-				File f = new File(logpath + "conflicts.equals");
-				FileUtils.write(f,(origin+'\n'+mc.body+'\n'),true);
 				break;
-			}else {
-				switch (source) {
-				case UNSTRUCTURED:
-					File f = new File(logpath + "conflicts.unstructured");
-					FileUtils.write(f,(origin+'\n'+mc.body+'\n'),true);
-					break;
-				case SEMISTRUCTURED:
-					f = new File(logpath + "conflicts.semistructured");
-					FileUtils.write(f,(origin+'\n'+mc.body+'\n'),true);
-					break;
-				}
 			}
 		}
+		if(entries.length() > 0){
+			String logname = (source == null) ? "conflicts.equals" : (source == Source.UNSTRUCTURED) ? "conflicts.unstructured" : "conflicts.semistructured";
+			AsyncLogWriter.getInstance().append(new File(logpath + logname), null, entries.toString());
+		}
 	}
 
-	@SuppressWarnings("unused")
-	private static void logSummary() throws IOException{
-		try{
-			//retrieving statistics
-			String logpath   = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
-			new File(logpath).mkdirs(); //ensuring that the directories exists	
-			File statistics = new File(logpath+ "jfstmerge.statistics");
-			if(statistics.exists()){
-				int ssmergeconfs = 0;
-				int ssmergeloc = 0;
-				int ssmergerenamingconfs = 0;
-				int ssmergedeletionconfs = 0;
-				int ssmergetaeconfs = 0;
-				int ssmergenereoconfs = 0;
-				int ssmergeinitlblocksconfs = 0;
-				int ssmergeacidentalconfs = 0;
-				int unmergeconfs = 0;
-				int unmergeloc = 0;
-				long unmergetime = 0;
-				long ssmergetime = 0;
-				int duplicateddeclarationerrors = 0;
-				int unmergeorderingconfs = 0;
-				int equalconfs = 0;
-
-				List<String> lines = Files.readAllLines(statistics.toPath());
-				for(int i = 1; i <lines.size(); i++){
-					String[] columns = lines.get(i).split(",");
-
-					ssmergeconfs += Integer.valueOf(columns[2]);
-					ssmergeloc 	 += Integer.valueOf(columns[3]);
-					ssmergerenamingconfs += Integer.valueOf(columns[4]);
-					ssmergedeletionconfs += Integer.valueOf(columns[5]);
-					ssmergetaeconfs   += Integer.valueOf(columns[7]);
-					ssmergenereoconfs += Integer.valueOf(columns[8]);
-					ssmergeinitlblocksconfs += Integer.valueOf(columns[9]);
-					ssmergeacidentalconfs 	+= Integer.valueOf(columns[10]);
-					unmergeconfs += Integer.valueOf(columns[11]);
-					unmergeloc 	 += Integer.valueOf(columns[12]);
-					unmergetime  += Long.parseLong(columns[13]);
-					ssmergetime  += Long.parseLong((columns[14]));
-					duplicateddeclarationerrors += Integer.valueOf(columns[15]);
-					unmergeorderingconfs += Integer.valueOf(columns[16]);
-					equalconfs 	 += Integer.valueOf(columns[17]);
-				}
+	/**
+	 * Appends an entry to the statistics log, and updates the running totals of the log and the summary.
+	 * Merges running in other processes wait, so the totals always account the entries of the log.
+	 */
+	private static synchronized void logStatistics(String logentry) throws IOException, CryptoException{
+		String logpath = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
+		new File(logpath).mkdirs(); //ensuring that the directories exists
+		try(RandomAccessFile checkpoint = new RandomAccessFile(logpath + "jfstmerge.summary.checkpoint", "rw")){
+			checkpoint.getChannel().lock(); //released when the checkpoint is closed
+			if(JFSTMerge.isCryptographed){
+				//each entry is encrypted on its own, so the previous entries are not decrypted again
+				migrateEncryptedStatistics();
+				ENCRYPTED_STATISTICS.append(logentry);
+			} else {
+				initializeLogger();
+				FileUtils.write(new File(logpath + "jfstmerge.statistics"), logentry + "\n", true);
+			}
 
-				if(JFSTMerge.isCryptographed){
-					CryptoUtils.encrypt(statistics, statistics);
-				}
+			long[] totals = readCheckpoint(checkpoint);
+			if(totals == null){ //missing or corrupted, the log already has the new entry
+				totals = computeTotals(readStatistics());
+			} else {
+				addEntry(totals, logentry);
+			}
+			writeCheckpoint(checkpoint, totals);
+			logSummary(totals);
+		}
+	}
 
-				//summarizing retrieved statistics
-				int JAVA_FILES = lines.size() -1;
-				//int FP_UN = (unmergeconfs - ssmergeconfs) + duplicateddeclarationerrors - (ssmergetaeconfs + ssmergenereoconfs + ssmergeinitlblocksconfs);FP_UN=(FP_UN>0)?FP_UN:0;
-				int FP_UN = unmergeorderingconfs;
-				int FN_UN = duplicateddeclarationerrors;
-				int FP_SS = ssmergerenamingconfs; //actually they are common renaming conflicts, not additional false positives
-				int FN_SS = (ssmergetaeconfs + ssmergenereoconfs + ssmergeinitlblocksconfs) + ssmergeacidentalconfs;
-				double M = ((double)ssmergetime / 1000000000);
-				double N = ((double)unmergetime / 1000000000);
-
-				StringBuilder summary = fillSummaryMsg(ssmergeconfs, ssmergeloc,
-						unmergeconfs, unmergeloc, equalconfs, JAVA_FILES, FP_UN,
-						FN_UN, FP_SS, FN_SS, M, N);
-
-				//print summary
-				File fsummary = new File(logpath+ "jfstmerge.summary");
-				if(!fsummary.exists()){
-					fsummary.createNewFile();
-				}
+	/**
+	 * Rebuilds the summary, see {@link #rebuildSummary()}.<br>
+	 * Usage: <i>java -cp jFSTMerge.jar br.ufpe.cin.logging.LoggerStatistics</i>
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		try{
+			rebuildSummary();
+		} catch(Exception e){
+			System.err.println("An error occurred. See " + LoggerFactory.logfile + " file for more details.\n Send the log to gjcc@cin.ufpe.br for analysis if preferable.");
+			LOGGER.log(Level.SEVERE, "", e);
+			System.exit(-1);
+		}
+	}
 
-				FileUtils.write(fsummary, summary.toString(),false);
-			}
+	/**
+	 * Computes the running totals and the summary again from the statistics logs. 
+	 * It recovers them if the checkpoint of the totals is lost or out of date, such as after the logs are edited.
+	 * @throws IOException
+	 */
+	public static synchronized void rebuildSummary() throws IOException{
+		String logpath = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
+		new File(logpath).mkdirs(); //ensuring that the directories exists
+		try(RandomAccessFile checkpoint = new RandomAccessFile(logpath + "jfstmerge.summary.checkpoint", "rw")){
+			checkpoint.getChannel().lock(); //released when the checkpoint is closed
+			long[] totals = computeTotals(readStatistics());
+			writeCheckpoint(checkpoint, totals);
+			logSummary(totals);
 		}
-		catch(CryptoException c)
-		{
-			String logpath   = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
-			logpath = logpath + "jfstmerge.statistics";
-			File log = new File(logpath);
-			if (log.exists())
-			{
-				File log_defect = new File(logpath+"_defect"+System.currentTimeMillis());
-				log.renameTo(log_defect);
-			}
-			if(numberOfCriptographyFixAttempts < 1)
-			{
-				numberOfCriptographyFixAttempts++;
-				logSummary();
-			}
+	}
+
+	/**
+	 * Sums the numeric columns of the given entries. Malformed entries are ignored.
+	 * @return number of entries followed by the totals of each column
+	 */
+	private static long[] computeTotals(List<String> lines){
+		long[] totals = new long[1 + SUMMED_COLUMNS];
+		for(String line : lines){
+			addEntry(totals, line);
 		}
+		return totals;
 	}
 
-	private static void logFiles(String timeStamp, MergeContext context) throws IOException {
+	private static void addEntry(long[] totals, String line){
+		String[] columns = line.split(",");
+		if(columns.length < FIRST_SUMMED_COLUMN + SUMMED_COLUMNS){
+			return;
+		}
+		long[] values = new long[SUMMED_COLUMNS];
 		try{
-			//initialization
-			String logpath = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
-			new File(logpath).mkdirs(); //ensuring that the directories exists	
-			logpath = logpath + "jfstmerge.files";
-			manageLogBuffer(logpath);
-			File logfiles = new File(logpath);
-
-			if(!logfiles.exists()){
-				logfiles.createNewFile();
-
-				if(JFSTMerge.isCryptographed){
-					CryptoUtils.encrypt(logfiles, logfiles);
-				}
+			for(int i = 0; i < SUMMED_COLUMNS; i++){
+				values[i] = Long.parseLong(columns[FIRST_SUMMED_COLUMN + i]);
 			}
+		} catch(NumberFormatException e){
+			return;
+		}
+		totals[0]++;
+		for(int i = 0; i < SUMMED_COLUMNS; i++){
+			totals[1 + i] += values[i];
+		}
+	}
 
-			if(JFSTMerge.isCryptographed){
-				CryptoUtils.decrypt(logfiles, logfiles); 
-			}
+	/**
+	 * @return the totals stored in the checkpoint, or null if it is empty, outdated or corrupted.
+	 */
+	private static long[] readCheckpoint(RandomAccessFile checkpoint) throws IOException{
+		if(checkpoint.length() != CHECKPOINT_LENGTH){
+			return null;
+		}
+		checkpoint.seek(0);
+		byte[] content = new byte[CHECKPOINT_LENGTH];
+		checkpoint.readFully(content);
+		ByteBuffer buffer = ByteBuffer.wrap(content);
+		CRC32 crc = new CRC32();
+		crc.update(content, 0, CHECKPOINT_LENGTH - 8);
+		if(buffer.getInt() != CHECKPOINT_VERSION || buffer.getLong(CHECKPOINT_LENGTH - 8) != crc.getValue()){
+			return null;
+		}
+		long[] totals = new long[1 + SUMMED_COLUMNS];
+		for(int i = 0; i < totals.length; i++){
+			totals[i] = buffer.getLong();
+		}
+		return totals;
+	}
 
-			//writing source code content
-			//left
-			String leftcontent = context.getLeftContent();
-			if(!leftcontent.isEmpty()){
+	private static void writeCheckpoint(RandomAccessFile checkpoint, long[] totals) throws IOException{
+		ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_LENGTH);
+		buffer.putInt(CHECKPOINT_VERSION);
+		for(long total : totals){
+			buffer.putLong(total);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), 0, CHECKPOINT_LENGTH - 8);
+		buffer.putLong(crc.getValue());
+		checkpoint.seek(0);
+		checkpoint.write(buffer.array());
+		checkpoint.setLength(CHECKPOINT_LENGTH);
+	}
 
-				FileUtils.write(logfiles, timeStamp+","+context.getLeft().getAbsolutePath()+"\n", true);
-				FileUtils.write(logfiles, leftcontent + "\n", true);
-				FileUtils.write(logfiles, "!@#$%\n", true); //separator
+	/**
+	 * Writes the summary of the statistics from their running totals.
+	 * @param totals number of entries followed by the totals of each column
+	 */
+	private static void logSummary(long[] totals) throws IOException{
+		String logpath   = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
+		if(totals[0] > 0){
+			int ssmergeconfs = (int) total(totals, 2);
+			int ssmergeloc = (int) total(totals, 3);
+			int ssmergerenamingconfs = (int) total(totals, 4);
+			int ssmergetaeconfs = (int) total(totals, 7);
+			int ssmergenereoconfs = (int) total(totals, 8);
+			int ssmergeinitlblocksconfs = (int) total(totals, 9);
+			int ssmergeacidentalconfs = (int) total(totals, 10);
+			int unmergeconfs = (int) total(totals, 11);
+			int unmergeloc = (int) total(totals, 12);
+			long unmergetime = total(totals, 13);
+			long ssmergetime = total(totals, 14);
+			int duplicateddeclarationerrors = (int) total(totals, 15);
+			int unmergeorderingconfs = (int) total(totals, 16);
+			int equalconfs = (int) total(totals, 17);
+
+			//summarizing retrieved statistics
+			int JAVA_FILES = (int) totals[0];
+			//int FP_UN = (unmergeconfs - ssmergeconfs) + duplicateddeclarationerrors - (ssmergetaeconfs + ssmergenereoconfs + ssmergeinitlblocksconfs);FP_UN=(FP_UN>0)?FP_UN:0;
+			int FP_UN = unmergeorderingconfs;
+			int FN_UN = duplicateddeclarationerrors;
+			int FP_SS = ssmergerenamingconfs; //actually they are common renaming conflicts, not additional false positives
+			int FN_SS = (ssmergetaeconfs + ssmergenereoconfs + ssmergeinitlblocksconfs) + ssmergeacidentalconfs;
+			double M = ((double)ssmergetime / 1000000000);
+			double N = ((double)unmergetime / 1000000000);
+
+			StringBuilder summary = fillSummaryMsg(ssmergeconfs, ssmergeloc,
+					unmergeconfs, unmergeloc, equalconfs, JAVA_FILES, FP_UN,
+					FN_UN, FP_SS, FN_SS, M, N);
+
+			//print summary
+			File fsummary = new File(logpath+ "jfstmerge.summary");
+			if(!fsummary.exists()){
+				fsummary.createNewFile();
 			}
 
-			//base
-			String basecontent = context.getBaseContent();
-			if(!basecontent.isEmpty()){
+			FileUtils.write(fsummary, summary.toString(),false);
+		}
+	}
 
-				FileUtils.write(logfiles, timeStamp+","+context.getBase().getAbsolutePath()+"\n", true);
-				FileUtils.write(logfiles, basecontent + "\n", true);
-				FileUtils.write(logfiles, "!@#$%\n", true); 
-			}
+	/**
+	 * @return the total of the given column of the statistics log
+	 */
+	private static long total(long[] totals, int column){
+		return totals[1 + column - FIRST_SUMMED_COLUMN];
+	}
 
-			//right
-			String rightcontent = context.getRightContent();
-			if(!rightcontent.isEmpty()){
+	private static void logFiles(String timeStamp, MergeContext context) throws IOException {
+		//initialization
+		String logpath = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
+		//encrypted, the entries are appended to the segments of the log, instead of decrypting and encrypting again the whole log
+		logpath = logpath + ((JFSTMerge.isCryptographed) ? "files" : "jfstmerge.files");
+		StringBuilder logentry = new StringBuilder();
+
+		//writing source code content
+		//left
+		String leftcontent = context.getLeftContent();
+		if(!leftcontent.isEmpty()){
+			logentry.append(timeStamp+","+context.getLeft().getAbsolutePath()+"\n");
+			logentry.append(leftcontent + "\n");
+			logentry.append("!@#$%\n"); //separator
+		}
 
-				FileUtils.write(logfiles, timeStamp+","+context.getRight().getAbsolutePath()+"\n", true);
-				FileUtils.write(logfiles, rightcontent + "\n", true);
-				FileUtils.write(logfiles, "!@#$%\n", true); 
-			}
+		//base
+		String basecontent = context.getBaseContent();
+		if(!basecontent.isEmpty()){
+			logentry.append(timeStamp+","+context.getBase().getAbsolutePath()+"\n");
+			logentry.append(basecontent + "\n");
+			logentry.append("!@#$%\n");
+		}
 
-			if(JFSTMerge.isCryptographed){
-				CryptoUtils.encrypt(logfiles, logfiles); 
-			}
+		//right
+		String rightcontent = context.getRightContent();
+		if(!rightcontent.isEmpty()){
+			logentry.append(timeStamp+","+context.getRight().getAbsolutePath()+"\n");
+			logentry.append(rightcontent + "\n");
+			logentry.append("!@#$%\n");
 		}
-		catch (CryptoException c)
-		{
-			String logpath   = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
-			logpath = logpath + "jfstmerge.files";
-			File log = new File(logpath);
-			if (log.exists())
-			{
-				File log_defect = new File(logpath+"_defect"+System.currentTimeMillis());
-				log.renameTo(log_defect);
+
+		//when log's size reaches 4 megabytes, a new empty log (or segment) is started, and the previous one is backup
+		AsyncLogWriter.getInstance().appendToBuffer(new File(logpath), logentry.toString(), JFSTMerge.isCryptographed, 4 * 1024 * 1024);
+	}
+
+	/**
+	 * Reads the entries of the plain and of the encrypted statistics logs, without the header.
+	 */
+	private static List<String> readStatistics() throws IOException {
+		String logpath = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
+		File statistics = new File(logpath + "jfstmerge.statistics");
+		List<String> lines = new ArrayList<String>();
+		if(statistics.exists() && isPlainStatistics(statistics)){
+			List<String> plainLines = Files.readAllLines(statistics.toPath());
+			lines.addAll(plainLines.subList(Math.min(1, plainLines.size()), plainLines.size()));
+		}
+		lines.addAll(ENCRYPTED_STATISTICS.readAll());
+		return lines;
+	}
+
+	/**
+	 * Moves the entries of the statistics log encrypted as a whole, by previous versions, to the encrypted log.
+	 * It is done once, the log is then removed.
+	 */
+	private static void migrateEncryptedStatistics() throws IOException, CryptoException {
+		String logpath = System.getProperty("user.home")+ File.separator + ".jfstmerge" + File.separator;
+		File statistics = new File(logpath + "jfstmerge.statistics");
+		if(statistics.exists() && !isPlainStatistics(statistics)){
+			File decrypted = new File(logpath + "jfstmerge.statistics.migration");
+			CryptoUtils.decrypt(statistics, decrypted);
+			try{
+				List<String> lines = Files.readAllLines(decrypted.toPath());
+				for(int i = 1; i <lines.size(); i++){
+					ENCRYPTED_STATISTICS.append(lines.get(i));
+				}
+				statistics.delete();
+			} finally {
+				decrypted.delete();
 			}
-			if(numberOfCriptographyFixAttempts < 1)
-			{
-				numberOfCriptographyFixAttempts++;
-				logFiles(timeStamp,context);
+		}
+	}
+
+	/**
+	 * @return true if the given statistics log starts with the header, instead of being encrypted.
+	 */
+	private static boolean isPlainStatistics(File statistics) throws IOException {
+		byte[] header = "date,".getBytes(StandardCharsets.UTF_8);
+		byte[] start = new byte[header.length];
+		try(InputStream in = Files.newInputStream(statistics.toPath())){
+			int read = 0;
+			while(read < start.length){
+				int n = in.read(start, read, start.length - read);
+				if(n < 0){
+					return statistics.length() == 0;
+				}
+				read += n;
 			}
 		}
+		return Arrays.equals(header, start);
 	}
 
 	private static void initializeLogger() throws IOException, CryptoException {
@@ -299,8 +409,6 @@ public class LoggerStatistics {
 		new File(logpath).mkdirs(); //ensuring that the directories exists	
 		logpath = logpath + "jfstmerge.statistics";
 
-		//manageLogBuffer(logpath);
-
 		String header = "date,files,ssmergeconfs,ssmergeloc,ssmergerenamingconfs,ssmergedeletionconfs,ssmergeinnerdeletionconfs,ssmergetaeconfs,ssmergenereoconfs,"
 				+ "ssmergeinitlblocksconfs,ssmergeacidentalconfs,unmergeconfs,unmergeloc,unmergetime,ssmergetime,unmergeduplicateddeclarationerrors,"
 				+ "unmergeorderingconfs,equalconfs\n";
@@ -309,26 +417,6 @@ public class LoggerStatistics {
 		if(!new File(logpath).exists()){
 			File statisticsLog = new File(logpath);
 			FileUtils.write(statisticsLog, header, true);
-
-			if(JFSTMerge.isCryptographed){
-				CryptoUtils.encrypt(statisticsLog, statisticsLog);
-			}
-		}
-	}
-
-	/**
-	 * When log's size reaches 4 megabytes,a new empty log is started, and the previous one is backup.
-	 * @param logpath
-	 * @throws CryptoException 
-	 */
-	private static void manageLogBuffer(String logpath) throws CryptoException {
-		File log = new File(logpath);
-		if(log.exists()){
-			long logSizeMB = log.length() / (1024 * 1024);
-			if(logSizeMB >= 4){
-				File newLog = new File(logpath+System.currentTimeMillis());
-				log.renameTo(newLog);
-			}
 		}
 	}
 
@@ -366,7 +454,7 @@ public class LoggerStatistics {
 		summary.append("\n\nAltogether, ");
 		if(ssmergeconfs != unmergeconfs){
 			if(ssmergeconfs < unmergeconfs){
-				summary.append("these numbers represent a reduction of " + String.format("%.2f",((double)((unmergeconfs - ssmergeconfs)/(double)unmergeconfs))*100) +"% in the number of conflicts by S3M.\n");
+				summary.append("these numbers represent a reduction of " + String.format("%.2f",((unmergeconfs - ssmergeconfs)/(double)unmergeconfs)*100) +"% in the number of conflicts by S3M.\n");
 			} else if(ssmergeconfs > unmergeconfs){
 				summary.append("these numbers represent no reduction of conflicts by S3M.\n");
 			}
@@ -375,14 +463,14 @@ public class LoggerStatistics {
 		}
 
 		if(FP_UN > 0){
-			summary.append("A reduction of " + String.format("%.2f",((double)((FP_UN - 0)/(double)FP_UN))*100,2) +"% in the number of false positives.\n");
+			summary.append("A reduction of " + String.format("%.2f",((FP_UN - 0)/(double)FP_UN)*100,2) +"% in the number of false positives.\n");
 		} else {
 			summary.append("No difference in terms of false positives.\n");
 		}
 
 		if(FN_UN != FN_SS){
 			if(FN_UN > FN_SS) {
-				summary.append("And a reduction of " + String.format("%.2f",((double)((FN_UN - FN_SS)/(double)FN_UN))*100,2) +"% in the number of false negatives.");
+				summary.append("And a reduction of " + String.format("%.2f",((FN_UN - FN_SS)/(double)FN_UN)*100,2) +"% in the number of false negatives.");
 			} else if(FN_SS > FN_UN){
 				summary.append("And no reduction of false negatives.");
 			}
@@ -0,0 +1,137 @@
+package br.ufpe.cin.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import br.ufpe.cin.crypto.CryptoUtils;
+import br.ufpe.cin.exceptions.CryptoException;
+
+/**
+ * Append-only log of encrypted records, split in segments of limited size.
+ * Each record is encrypted and authenticated on its own ({@link CryptoUtils#encryptRecord(byte[])}),
+ * so appending a record never reads or rewrites the previous ones, and a corrupted record
+ * (such as one partially written by an interrupted merge) is skipped without losing the others.
+ * When the last segment reaches the size limit, records are appended to a new segment.
+ * Appends are serialized among processes by locking the segment.
+ */
+public class SegmentedLog {
+
+	//marks the beginning of each record, so the reading resumes after a corrupted record
+	private static final int RECORD_MARK = 0x4A46534D;
+	private static final int HEADER_LENGTH = 8;
+
+	private static final String PREFIX = "segment-";
+	private static final String EXTENSION = ".log";
+
+	private final File directory;
+	private final long segmentSize;
+
+	/**
+	 * @param directory folder of the segments
+	 * @param segmentSize in bytes, after which a new segment is started
+	 */
+	public SegmentedLog(File directory, long segmentSize) {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+	}
+
+	/**
+	 * Encrypts and appends a record to the last segment.
+	 * @param record
+	 * @throws IOException
+	 * @throws CryptoException
+	 */
+	public synchronized void append(String record) throws IOException, CryptoException {
+		byte[] encrypted = CryptoUtils.encryptRecord(record.getBytes(StandardCharsets.UTF_8));
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + encrypted.length);
+		buffer.putInt(RECORD_MARK).putInt(encrypted.length).put(encrypted).flip();
+
+		createDirectory();
+		try (FileChannel channel = FileChannel.open(lastSegment().toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			channel.lock(); //released when the channel is closed
+			while (buffer.hasRemaining()) { //a single write, so concurrent appends do not interleave
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Reads and decrypts every record, in the order they were appended.
+	 * Corrupted records are skipped.
+	 * @return records
+	 * @throws IOException
+	 */
+	public List<String> readAll() throws IOException {
+		List<String> records = new ArrayList<String>();
+		for (File segment : listSegments()) {
+			ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(segment.toPath()));
+			int position = 0;
+			while (position + HEADER_LENGTH <= content.limit()) {
+				int length = content.getInt(position + 4);
+				if (content.getInt(position) == RECORD_MARK && length > 0 && length <= content.limit() - position - HEADER_LENGTH) {
+					byte[] encrypted = new byte[length];
+					content.position(position + HEADER_LENGTH);
+					content.get(encrypted);
+					try {
+						records.add(new String(CryptoUtils.decryptRecord(encrypted), StandardCharsets.UTF_8));
+						position += HEADER_LENGTH + length;
+						continue;
+					} catch (CryptoException e) {
+						// corrupted record, looking for the next one
+					}
+				}
+				position++;
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * @return segments, from the oldest to the newest
+	 */
+	private File[] listSegments() {
+		File[] segments = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(EXTENSION));
+		if (segments == null) {
+			return new File[0];
+		}
+		Arrays.sort(segments); //names hold the zero padded number of the segment
+		return segments;
+	}
+
+	private File lastSegment() {
+		File[] segments = listSegments();
+		if (segments.length == 0) {
+			return segment(1);
+		}
+		File last = segments[segments.length - 1];
+		if (last.length() < segmentSize) {
+			return last;
+		}
+		String name = last.getName();
+		return segment(Integer.parseInt(name.substring(PREFIX.length(), name.length() - EXTENSION.length())) + 1);
+	}
+
+	private File segment(int number) {
+		return new File(directory, PREFIX + String.format("%08d", number) + EXTENSION);
+	}
+
+	private void createDirectory() throws IOException {
+		if (!directory.isDirectory()) {
+			directory.mkdirs();
+			try { //the log holds the paths of the merged files
+				Files.setPosixFilePermissions(directory.toPath(), PosixFilePermissions.fromString("rwx------"));
+			} catch (UnsupportedOperationException e) {
+				// non posix file systems, such as in windows
+			}
+		}
+	}
+}
@@ -2,16 +2,20 @@ package br.ufpe.cin.mergers;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import br.ufpe.cin.app.JFSTMerge;
 import br.ufpe.cin.exceptions.ExceptionUtils;
 import br.ufpe.cin.exceptions.SemistructuredMergeException;
 import br.ufpe.cin.exceptions.TextualMergeException;
-import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.files.NormalizedText;
+import br.ufpe.cin.files.SourceSnapshot;
 import br.ufpe.cin.mergers.handlers.ConflictsHandler;
+import br.ufpe.cin.mergers.util.ChildrenIndex;
+import br.ufpe.cin.mergers.util.MatchedTerminal;
 import br.ufpe.cin.mergers.util.MergeContext;
 import br.ufpe.cin.parser.JParser;
 import br.ufpe.cin.printers.Prettyprinter;
@@ -29,9 +33,6 @@ import de.ovgu.cide.fstgen.ast.FSTTerminal;
  */
 public final class SemistructuredMerge {
 
-	static final String MERGE_SEPARATOR = "##FSTMerge##";
-	static final String SEMANTIC_MERGE_MARKER = "~~FSTMerge~~";
-
 	/**
 	 * Three-way semistructured merge of three given files.
 	 * @param left
@@ -43,9 +44,23 @@ public final class SemistructuredMerge {
 	 * @throws TextualMergeException
 	 */
 	public static String merge(File left, File base, File right, MergeContext context)	throws SemistructuredMergeException, TextualMergeException {
+		return merge(SourceSnapshot.of(left), SourceSnapshot.of(base), SourceSnapshot.of(right), context);
+	}
+
+	/**
+	 * Three-way semistructured merge of three given files snapshots.
+	 * @param left
+	 * @param base
+	 * @param right
+	 * @param context an empty MergeContext to store relevant information of the merging process.
+	 * @return string representing the merge result.
+	 * @throws SemistructuredMergeException
+	 * @throws TextualMergeException
+	 */
+	public static String merge(SourceSnapshot left, SourceSnapshot base, SourceSnapshot right, MergeContext context)	throws SemistructuredMergeException, TextualMergeException {
 		try {
 			// parsing the files to be merged
-			JParser parser = new JParser();
+			JParser parser = new JParser(context.consoleMessages);
 			FSTNode leftTree = parser.parse(left);
 			FSTNode baseTree = parser.parse(base);
 			FSTNode rightTree = parser.parse(right);
@@ -56,15 +71,15 @@ public final class SemistructuredMerge {
 			// handling special kinds of conflicts
 			ConflictsHandler.handle(context);
 
-		} catch (ParseException | FileNotFoundException | UnsupportedEncodingException | TokenMgrError ex) {
+		} catch (ParseException | FileNotFoundException | TokenMgrError ex) {
 			String message = ExceptionUtils.getCauseMessage(ex);
 			if(ex instanceof FileNotFoundException) //FileNotFoundException does not support custom messages
 				message = "The merged file was deleted in one version.";
 			throw new SemistructuredMergeException(message, context);
 		}
 
-		// during the parsing process, code indentation is typically lost, so we reindent the code
-		return FilesManager.indentCode(Prettyprinter.print(context.superImposedTree));
+		// during the parsing process, code indentation is typically lost, so the printer reindents the code
+		return Prettyprinter.print(context.superImposedTree);
 	}
 
 	/**
@@ -74,7 +89,7 @@ public final class SemistructuredMerge {
 	 * @param right tree
 	 * @throws TextualMergeException
 	 */
-	private static MergeContext merge(FSTNode left, FSTNode base, FSTNode right) throws TextualMergeException {
+	static MergeContext merge(FSTNode left, FSTNode base, FSTNode right) throws TextualMergeException {
 		// indexes are necessary to a proper matching between nodes
 		left.index 	= 0;
 		base.index 	= 1;
@@ -98,15 +113,18 @@ public final class SemistructuredMerge {
 
 	/**
 	 * Superimposes two given ASTs.
+	 * Unmatched subtrees of both trees are copied into the superimposed tree, or shared with it,
+	 * see {@link #placeUnmatched(FSTNode, MergeContext)}.
 	 * 
-	 * @param nodeArepresenting the first tree
+	 * @param nodeArepresenting the first tree, which is the left tree in the first pass (processing the base tree),
+	 * and the tree superimposed by the first pass in the second one
 	 * @param nodeB representing the second tree
 	 * @param parent node to be superimposed in (can be null)
 	 * @param context
 	 * @param isProcessingBaseTree
 	 * @return superimposed tree
 	 */
-	private static FSTNode superimpose(FSTNode nodeA, FSTNode nodeB, FSTNonTerminal parent, MergeContext context, boolean isProcessingBaseTree) {
+	static FSTNode superimpose(FSTNode nodeA, FSTNode nodeB, FSTNonTerminal parent, MergeContext context, boolean isProcessingBaseTree) {
 		if (nodeA.compatibleWith(nodeB)) {
 			FSTNode composed = nodeA.getShallowClone();
 			composed.index = nodeB.index;
@@ -117,13 +135,17 @@ public final class SemistructuredMerge {
 				FSTNonTerminal nonterminalB = (FSTNonTerminal) nodeB;
 				FSTNonTerminal nonterminalComposed = (FSTNonTerminal) composed;
 
+				// matching children by hashing (type, name) instead of scanning the siblings for every child
+				ChildrenIndex indexA = new ChildrenIndex(nonterminalA);
+				ChildrenIndex indexB = new ChildrenIndex(nonterminalB);
+
 				/*
 				 * nodes from base or right
 				 */
 				for (FSTNode childB : nonterminalB.getChildren()) { 	
-					FSTNode childA = nonterminalA.getCompatibleChild(childB);
+					FSTNode childA = indexA.getCompatibleChild(childB);
 					if (childA == null) { 								// means that a base node was deleted by left, or that a right node was added
-						FSTNode cloneB = childB.getDeepClone();
+						FSTNode cloneB = placeUnmatched(childB, context);
 						if (childB.index == -1)
 							childB.index = nodeB.index;
 						cloneB.index = childB.index;
@@ -153,14 +175,14 @@ public final class SemistructuredMerge {
 				/*
 				 * nodes from left or leftBase
 				 */
-				List<FSTNode> nonterminalAChildren = nonterminalA.getChildren();
+				List<FSTNode> nonterminalAChildren = new ArrayList<FSTNode>(nonterminalA.getChildren()); // random access, children are linked lists
 				
 				for (int i = 0; i < nonterminalAChildren.size(); i++) {
 					FSTNode childA = nonterminalAChildren.get(i);
-					FSTNode childB = nonterminalB.getCompatibleChild(childA);
+					FSTNode childB = indexB.getCompatibleChild(childA);
 					
 					if (childB == null) { 								// is a new node from left, or a deleted base node in right
-						FSTNode cloneA = childA.getDeepClone();
+						FSTNode cloneA = placeUnmatched(childA, context);
 						if (childA.index == -1)
 							childA.index = nodeA.index;
 						cloneA.index = childA.index;
@@ -194,7 +216,9 @@ public final class SemistructuredMerge {
 				FSTTerminal terminalComposed = (FSTTerminal) composed;
 
 				if (!terminalA.getMergingMechanism().equals("Default")) {
-					terminalComposed.setBody(markContributions(terminalA.getBody(), terminalB.getBody(),isProcessingBaseTree, terminalA.index, terminalB.index));
+					terminalComposed = markContributions(terminalA, terminalB, isProcessingBaseTree);
+					terminalComposed.index = nodeB.index;
+					terminalComposed.setParent(parent);
 				}
 				return terminalComposed;
 			}
@@ -203,23 +227,40 @@ public final class SemistructuredMerge {
 			return null;
 	}
 
+	/**
+	 * Places an unmatched subtree in the superimposed tree. The subtree is copied, as the handlers still read
+	 * the merged trees and the nodes kept by the context, unless {@link JFSTMerge#shareSubtrees} is enabled.
+	 * Then it is shared, and copied by the tree index of the context only if a handler changes it.
+	 * @param node unmatched
+	 * @param context
+	 * @return the node to be added to the superimposed tree
+	 */
+	private static FSTNode placeUnmatched(FSTNode node, MergeContext context) {
+		if (JFSTMerge.shareSubtrees) {
+			context.sharedSubtrees.add(node);
+			return node;
+		}
+		return node.getDeepClone();
+	}
+
 	/**
 	 * After superimposition, the content of a matched node is the content of
-	 * those that originated him (left,base,right) So, this methods indicates
-	 * the origin (left,base or right) in node's body content.
-	 * @return node's body content marked
+	 * those that originated him (left,base,right) So, this methods keeps
+	 * the origin (left,base or right) of each content in the matched node.
+	 * @return matched node with the contributions of each revision
 	 */
-	private static String markContributions(String bodyA, String bodyB, boolean firstPass, int indexA, int indexB) { 
-		if (bodyA.contains(SEMANTIC_MERGE_MARKER)) {
-			return bodyA + " " + bodyB;
+	private static MatchedTerminal markContributions(FSTTerminal terminalA, FSTTerminal terminalB, boolean firstPass) {
+		if (terminalA instanceof MatchedTerminal && ((MatchedTerminal) terminalA).hasContributions()) {
+			MatchedTerminal leftBase = (MatchedTerminal) terminalA;
+			return new MatchedTerminal(terminalA, leftBase.getLeftContent(), leftBase.getBaseContent(), terminalB.getBody().trim());
 		} else {
 			if (firstPass) {
-				return SEMANTIC_MERGE_MARKER + " " + bodyA + " " + MERGE_SEPARATOR + " " + bodyB + " "	+ MERGE_SEPARATOR;
+				return new MatchedTerminal(terminalA, terminalA.getBody().trim(), terminalB.getBody().trim(), "");
 			} else {
-				if (indexA == 0) {
-					return SEMANTIC_MERGE_MARKER + " " + bodyA + " " + MERGE_SEPARATOR + " " + MERGE_SEPARATOR + " "+ bodyB;
+				if (terminalA.index == 0) {
+					return new MatchedTerminal(terminalA, terminalA.getBody().trim(), "", terminalB.getBody().trim());
 				} else {
-					return SEMANTIC_MERGE_MARKER + " " + MERGE_SEPARATOR + " " + bodyA + " " + MERGE_SEPARATOR + " "+ bodyB;
+					return new MatchedTerminal(terminalA, "", terminalA.getBody().trim(), terminalB.getBody().trim());
 				}
 			}
 		}
@@ -227,23 +268,24 @@ public final class SemistructuredMerge {
 
 	/**
 	 * After superimposition, base nodes supposed to be removed might remain.
-	 * This method removes these nodes from the merged tree.
+	 * This method removes these nodes from the merged tree. Shared subtrees are not searched, as
+	 * their copies would not hold the nodes kept by the context, see {@link #placeUnmatched(FSTNode, MergeContext)}.
 	 * @param mergedTree
 	 * @param context
 	 */
-	private static void removeRemainingBaseNodes(FSTNode mergedTree, MergeContext context) {
+	static void removeRemainingBaseNodes(FSTNode mergedTree, MergeContext context) {
 		boolean removed = false;
 		if (!context.deletedBaseNodes.isEmpty()) {
 			for (FSTNode loneBaseNode : context.deletedBaseNodes) {
 				if (mergedTree == loneBaseNode) {
-					FSTNonTerminal parent = (FSTNonTerminal) mergedTree.getParent();
+					FSTNonTerminal parent = mergedTree.getParent();
 					if (parent != null) {
 						parent.removeChild(mergedTree);
 						removed = true;
 					}
 				}
 			}
-			if (!removed && mergedTree instanceof FSTNonTerminal) {
+			if (!removed && mergedTree instanceof FSTNonTerminal && !context.sharedSubtrees.contains(mergedTree)) {
 				Object[] children = ((FSTNonTerminal) mergedTree).getChildren().toArray();
 				for (Object child : children) {
 					removeRemainingBaseNodes((FSTNode) child, context);
@@ -256,27 +298,25 @@ public final class SemistructuredMerge {
 	 * After superimposition, the content of a matched node is the content of
 	 * those that originated him (left,base,right). This method merges these
 	 * parents' content. For instance, calling unstructured merge to merge
-	 * methods' body. We use the tags from the method
-	 * {@link #markContributions(String, String, boolean, int, int)} to guide
+	 * methods' body. We use the contributions kept by the method
+	 * {@link #markContributions(FSTTerminal, FSTTerminal, boolean)} to guide
 	 * this process.
 	 * @param node to be merged
 	 * @throws TextualMergeException
 	 */
-	private static void mergeMatchedContent(FSTNode node, MergeContext context) throws TextualMergeException {
+	static void mergeMatchedContent(FSTNode node, MergeContext context) throws TextualMergeException {
 		if (node instanceof FSTNonTerminal) {
 			for (FSTNode child : ((FSTNonTerminal) node).getChildren())
 				mergeMatchedContent(child, context);
 		} else if (node instanceof FSTTerminal) {
-			if (((FSTTerminal) node).getBody().contains(SemistructuredMerge.MERGE_SEPARATOR)) {
-				String body = ((FSTTerminal) node).getBody() + " ";
-				String[] splittedBodyContent = body.split(SemistructuredMerge.MERGE_SEPARATOR);
-
-				String leftContent = splittedBodyContent[0].replace(SemistructuredMerge.SEMANTIC_MERGE_MARKER, "").trim();
-				String baseContent = splittedBodyContent[1].trim();
-				String rightContent = splittedBodyContent[2].trim();
+			if (node instanceof MatchedTerminal && ((MatchedTerminal) node).hasContributions()) {
+				MatchedTerminal terminal = (MatchedTerminal) node;
+				String leftContent = terminal.getLeftContent();
+				String baseContent = terminal.getBaseContent();
+				String rightContent = terminal.getRightContent();
 
 				String mergedBodyContent = TextualMerge.merge(leftContent, baseContent, rightContent, true);
-				((FSTTerminal) node).setBody(mergedBodyContent);
+				terminal.setMergedContent(mergedBodyContent);
 
 				identifyNodesEditedInOnlyOneVersion(node, context, leftContent, baseContent, rightContent);
 
@@ -296,14 +336,12 @@ public final class SemistructuredMerge {
 	 * @param rightContent
 	 */
 	private static void identifyPossibleNodesDeletionOrRenamings(FSTNode node, MergeContext context, String leftContent,String baseContent, String rightContent) {
-		String leftContenttrim = FilesManager.getStringContentIntoSingleLineNoSpacing(leftContent);
-		String baseContenttrim = FilesManager.getStringContentIntoSingleLineNoSpacing(baseContent);
-		String rightContenttrim = FilesManager.getStringContentIntoSingleLineNoSpacing(rightContent);
-		if (!baseContenttrim.isEmpty()) {
-			if (!baseContenttrim.equals(leftContenttrim) && rightContenttrim.isEmpty()) {
+		//contents compared ignoring whitespaces
+		if (!NormalizedText.isBlank(baseContent)) {
+			if (!NormalizedText.equals(baseContent, leftContent) && NormalizedText.isBlank(rightContent)) {
 				Pair<String, FSTNode> tuple = Pair.of(baseContent, node);
 				context.possibleRenamedRightNodes.add(tuple);
-			} else if (!baseContenttrim.equals(rightContenttrim) && leftContenttrim.isEmpty()) {
+			} else if (!NormalizedText.equals(baseContent, rightContent) && NormalizedText.isBlank(leftContent)) {
 				Pair<String, FSTNode> tuple = Pair.of(baseContent, node);
 				context.possibleRenamedLeftNodes.add(tuple);
 			}
@@ -320,13 +358,11 @@ public final class SemistructuredMerge {
 	 * @param rightContent
 	 */
 	private static void identifyNodesEditedInOnlyOneVersion(FSTNode node, MergeContext context, String leftContent,	String baseContent, String rightContent) {
-		String leftContenttrim = FilesManager.getStringContentIntoSingleLineNoSpacing(leftContent);
-		String baseContenttrim = FilesManager.getStringContentIntoSingleLineNoSpacing(baseContent);
-		String rightContenttrim = FilesManager.getStringContentIntoSingleLineNoSpacing(rightContent);
-		if (!baseContenttrim.isEmpty()) {
-			if (baseContenttrim.equals(leftContenttrim) && !rightContenttrim.equals(leftContenttrim)) {
+		//contents compared ignoring whitespaces
+		if (!NormalizedText.isBlank(baseContent)) {
+			if (NormalizedText.equals(baseContent, leftContent) && !NormalizedText.equals(rightContent, leftContent)) {
 				context.editedRightNodes.add(node);
-			} else if (baseContenttrim.equals(rightContenttrim) && !leftContenttrim.equals(rightContenttrim)) {
+			} else if (NormalizedText.equals(baseContent, rightContent) && !NormalizedText.equals(leftContent, rightContent)) {
 				context.editedLeftNodes.add(node);
 			}
 		}
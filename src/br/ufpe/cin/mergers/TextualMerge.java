@@ -12,7 +12,7 @@ import org.eclipse.jgit.merge.MergeResult;
 
 import br.ufpe.cin.exceptions.ExceptionUtils;
 import br.ufpe.cin.exceptions.TextualMergeException;
-import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.files.SourceSnapshot;
 
 /**
  * Represents unstructured, linebased, textual merge.
@@ -48,13 +48,21 @@ public final class TextualMerge {
 			BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
 			textualMergeResult = reader.lines().collect(Collectors.joining("\n"));*/
 
-		String textualMergeResult = null;
 		//we treat invalid files as empty files 
-		String leftContent = ((left == null || !left.exists()) ? "" : FilesManager.readFileContent(left));
-		String baseContent = ((base == null || !base.exists()) ? "" : FilesManager.readFileContent(base));
-		String rightContent= ((right== null || !right.exists())? "" : FilesManager.readFileContent(right));
-		textualMergeResult = merge(leftContent,baseContent,rightContent,ignoreWhiteSpaces);
-		return textualMergeResult;
+		return merge(SourceSnapshot.of(left), SourceSnapshot.of(base), SourceSnapshot.of(right), ignoreWhiteSpaces);
+	}
+
+	/**
+	 * Three-way unstructured merge of three given files snapshots.
+	 * @param left
+	 * @param base
+	 * @param right
+	 * @param ignoreWhiteSpaces to avoid false positives conflicts due to different spacings.
+	 * @return string representing merge result.
+	 * @throws TextualMergeException 
+	 */
+	public static String merge(SourceSnapshot left, SourceSnapshot base, SourceSnapshot right, boolean ignoreWhiteSpaces) throws TextualMergeException{
+		return merge(left.getContent(), base.getContent(), right.getContent(), ignoreWhiteSpaces);
 	}
 
 	/**
@@ -25,10 +25,24 @@ final public class ConflictsHandler {
 		findAndResolveRenamingOrDeletionConflicts(context);
 		findAndDetectInitializationBlocks(context);
 		findAndDetectDeletionsOfHighLevelElements(context);
-		findAndAccountDuplicatedDeclarationErrors(context);
+
+		//statistics-only handlers do not change the merged code, so they run later, with the statistics
+		context.hasPendingStatisticsHandlers = true;
+	}
+
+	/**
+	 * Runs the handlers that only account statistics, if the merge left them pending.
+	 * They are out of the merge, so the merged file does not wait for them.
+	 * @param context
+	 */
+	public static void handleStatisticsOnly(MergeContext context) {
+		if (context.hasPendingStatisticsHandlers) {
+			findAndAccountDuplicatedDeclarationErrors(context);
+			context.hasPendingStatisticsHandlers = false;
+		}
 	}
 
-	private static void findAndDetectTypeAmbiguityErrors(MergeContext context) {
+	static void findAndDetectTypeAmbiguityErrors(MergeContext context) {
 		LinkedList<FSTNode> leftImportStatements  = new LinkedList<FSTNode>();
 		LinkedList<FSTNode> rightImportStatements = new LinkedList<FSTNode>();
 
@@ -51,17 +65,17 @@ final public class ConflictsHandler {
 		TypeAmbiguityErrorHandler.handle(context, leftImportStatements, rightImportStatements);
 	}
 
-	private static void findAndDetectNewElementReferencingEditedOne(MergeContext context) {
+	static void findAndDetectNewElementReferencingEditedOne(MergeContext context) {
 		//invoking the specific handler for new element referencing edited one
 		NewElementReferencingEditedOneHandler.handle(context);
 	}
 	
-	private static void findAndResolveRenamingOrDeletionConflicts(MergeContext context) {
+	static void findAndResolveRenamingOrDeletionConflicts(MergeContext context) {
 		//invoking the specific handler for renaming and deletion conflicts
 		RenamingConflictsHandler.handle(context);
 	}
 	
-	private static void findAndDetectInitializationBlocks(MergeContext context) throws TextualMergeException {
+	static void findAndDetectInitializationBlocks(MergeContext context) throws TextualMergeException {
 		List<FSTNode> leftInitlBlocks = context.addedLeftNodes.stream()
 				.filter(p -> p.getType().equals("InitializerDecl"))
 				.collect(Collectors.toList());
@@ -76,12 +90,12 @@ final public class ConflictsHandler {
 		InitializationBlocksHandler.handle(context, leftInitlBlocks, baseInitlBlocks, rightInitlBlocks);		
 	}
 	
-	private static void findAndAccountDuplicatedDeclarationErrors(MergeContext context) {
+	static void findAndAccountDuplicatedDeclarationErrors(MergeContext context) {
 		//invoking the specific handler for duplicated declaration errors
 		DuplicatedDeclarationHandler.handle(context);
 	}
 	
-	private static void findAndDetectDeletionsOfHighLevelElements(MergeContext context) {
+	static void findAndDetectDeletionsOfHighLevelElements(MergeContext context) {
 		//invoking the specific handler for high level deletions (classes, inner classes, etc.)
 		DeletionsHandler.handle(context);
 	}
@@ -1,16 +1,8 @@
 package br.ufpe.cin.mergers.handlers;
 
-import java.io.File;
-import java.util.ArrayList;
 import java.util.List;
 
-import org.eclipse.jdt.core.dom.ASTNode;
-import org.eclipse.jdt.core.dom.ASTVisitor;
-import org.eclipse.jdt.core.dom.ClassInstanceCreation;
-import org.eclipse.jdt.core.dom.CompilationUnit;
-
 import br.ufpe.cin.files.FilesManager;
-import br.ufpe.cin.mergers.util.JavaCompiler;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
 import de.ovgu.cide.fstgen.ast.FSTNode;
@@ -94,7 +86,7 @@ public class DeletionsHandler {
 	}
 
 	private static void keepDeclarations(MergeContext context, FSTNode source, String identifier) {
-		FSTNode correspondingInMerged = FilesManager.findNodeByID(context.superImposedTree, identifier); //TODO add type checking?
+		FSTNode correspondingInMerged = context.getSuperImposedTreeIndex().findNodeByID(identifier); //TODO add type checking?
 		FSTNode correspondingInSource = FilesManager.findNodeByID(source, identifier);
 		if(correspondingInMerged != null && correspondingInSource !=null){
 			FSTNonTerminal declarationInMerged = correspondingInMerged.getParent();
@@ -102,8 +94,8 @@ public class DeletionsHandler {
 
 			FSTNonTerminal parent = declarationInMerged.getParent();
 			int index = declarationInMerged.index;
-			parent.removeChild(declarationInMerged);
-			parent.addChild(declarationInSource, index);
+			context.getSuperImposedTreeIndex().removeChild(parent, declarationInMerged);
+			context.getSuperImposedTreeIndex().addChild(parent, declarationInSource, index);
 		}
 	}
 
@@ -121,7 +113,7 @@ public class DeletionsHandler {
 				if(renamingCandidate instanceof FSTNonTerminal){
 					if(hasSameShape(renamingCandidate,deletedNode) && hasSimilarContent(renamingCandidate,deletedNode) 
 							&& !hasNewInstance(context,((FSTTerminal) getId(renamingCandidate)).getBody(),!isLeftDeletion)){
-						joinContent(source, identifier, parent, index,renamingCandidate);
+						joinContent(context, source, identifier, parent, index,renamingCandidate);
 						conflict = false;
 						break;
 					}
@@ -151,7 +143,7 @@ public class DeletionsHandler {
 	private static boolean hasSimilarContent(FSTNode candidate, FSTNode deletedNode, double similarityThreshold) {
 		String printRenamedCandidate = FilesManager.getStringContentIntoSingleLineNoSpacing(FilesManager.prettyPrint((FSTNonTerminal) candidate));
 		String printDeletedNode = FilesManager.getStringContentIntoSingleLineNoSpacing(FilesManager.prettyPrint((FSTNonTerminal) deletedNode));
-		double similarity = FilesManager.computeStringSimilarity(printRenamedCandidate, printDeletedNode);
+		double similarity = FilesManager.computeStringSimilarity(printRenamedCandidate, printDeletedNode, similarityThreshold);
 		return similarity >= similarityThreshold;
 	}
 
@@ -162,11 +154,11 @@ public class DeletionsHandler {
 	}
 
 	private static FSTNonTerminal delete(MergeContext context, String identifier){
-		FSTNode correspondingInMerged = FilesManager.findNodeByID(context.superImposedTree, identifier);
+		FSTNode correspondingInMerged = context.getSuperImposedTreeIndex().findNodeByID(identifier);
 		if(correspondingInMerged!=null){
 			FSTNonTerminal declarationInMerged = correspondingInMerged.getParent();
 			FSTNonTerminal parent = declarationInMerged.getParent();
-			parent.removeChild(declarationInMerged);
+			context.getSuperImposedTreeIndex().removeChild(parent, declarationInMerged);
 			return declarationInMerged;
 		}
 		return null;
@@ -191,7 +183,7 @@ public class DeletionsHandler {
 		FSTNode correspondingInSource = FilesManager.findNodeByID(source, identifier);
 		if(correspondingInSource!=null){
 			FSTNonTerminal declarationInSource = correspondingInSource.getParent();
-			String body = FilesManager.prettyPrint((FSTNonTerminal) declarationInSource);
+			String body = FilesManager.prettyPrint(declarationInSource);
 			MergeConflict newConflict;
 			if(isLeftDeletion){
 				newConflict = new MergeConflict("", body+'\n');
@@ -199,14 +191,14 @@ public class DeletionsHandler {
 				newConflict = new MergeConflict(body+'\n',"");
 			}
 			FSTTerminal terminal = new FSTTerminal(declarationInSource.getType(), identifier, newConflict.body, "");
-			parent.addChild(terminal, index);
+			context.getSuperImposedTreeIndex().addChild(parent, terminal, index);
 			context.innerDeletionConflicts++;
 		}
 	}
 
-	private static void joinContent(FSTNode source, String identifier, FSTNonTerminal parent, int index, FSTNode renamingCandidate) {
+	private static void joinContent(MergeContext context, FSTNode source, String identifier, FSTNonTerminal parent, int index, FSTNode renamingCandidate) {
 		//composition corresponds to put the new id on the the original declaration 
-		parent.removeChild(renamingCandidate);
+		context.getSuperImposedTreeIndex().removeChild(parent, renamingCandidate);
 		FSTNode correspondingInSource = FilesManager.findNodeByID(source, identifier);
 		FSTNode declarationInSource = correspondingInSource.getParent();
 		declarationInSource.setName(renamingCandidate.getName());
@@ -214,28 +206,13 @@ public class DeletionsHandler {
 		FSTNode newId = getId(renamingCandidate);
 		((FSTTerminal) correspondingInSource).setBody(((FSTTerminal) newId).getBody());
 		((FSTTerminal) correspondingInSource).setName(newId.getName());
-		parent.addChild(declarationInSource, index);
+		context.getSuperImposedTreeIndex().addChild(parent, declarationInSource, index);
 	}
 
 	private static boolean hasNewInstance(MergeContext context,	String identifier, boolean isLeftDeletion) {
-		int baseInstances  = countInstances(context.getBase(),identifier);
-		int otherInstances = countInstances(((isLeftDeletion)?context.getRight():context.getLeft()), identifier);
+		//each version is compiled once per merge, however many declarations are checked
+		int baseInstances  = context.getBaseInstanceCreations().count(identifier);
+		int otherInstances = ((isLeftDeletion)?context.getRightInstanceCreations():context.getLeftInstanceCreations()).count(identifier);
 		return otherInstances > baseInstances;
 	}
-
-	private static int countInstances(File file, String id){
-		JavaCompiler compiler = new JavaCompiler();
-		String source = FilesManager.readFileContent(file);
-		CompilationUnit cu = compiler.compile(source);
-		List<org.eclipse.jdt.core.dom.ASTNode> instances = new ArrayList<ASTNode>();
-		cu.accept(new ASTVisitor() {
-			@Override
-			public boolean visit(ClassInstanceCreation node) {
-				org.eclipse.jdt.core.dom.Type t = node.getType();
-				if(t.toString().equals(id)) instances.add(node);
-				return super.visit(node);
-			}
-		});
-		return instances.size();
-	}
 }
@@ -5,11 +5,9 @@ import java.util.List;
 
 import org.eclipse.jdt.core.compiler.IProblem;
 
-import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.mergers.util.ConflictIndex;
 import br.ufpe.cin.mergers.util.JavaCompiler;
-import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
-import br.ufpe.cin.mergers.util.Source;
 
 /**
  * Unstructured merge added false negatives are mostly caused by failing to detect that the contributions to be merged add duplicated declarations. 
@@ -21,12 +19,9 @@ public final class DuplicatedDeclarationHandler {
 
 	public static void handle(MergeContext context){
 		int duplicatedDeclarationErrors = 0;
-		
-		long t0 = System.nanoTime();
 
-		//1. compile unstructured merge output
-		JavaCompiler compiler = new JavaCompiler();
-		compiler.compile(context, Source.UNSTRUCTURED);	
+		//1. compile unstructured merge output, unless already compiled in background
+		JavaCompiler compiler = context.getUnstructuredCompilation();
 		
 		//2. list its compilation problems
 		List<IProblem> iproblems = compiler.compilationProblems;
@@ -42,11 +37,6 @@ public final class DuplicatedDeclarationHandler {
 				}
 			}
 		}
-		
-		//excluding handler execution time to not bias peformance evaluation as it is not required to original semistructured merge time
-		long tf = System.nanoTime();
-		long tt = tf-t0;
-		context.semistructuredMergeTime = context.semistructuredMergeTime - tt;
 
 		context.duplicatedDeclarationErrors = duplicatedDeclarationErrors;
 	}
@@ -80,12 +70,10 @@ public final class DuplicatedDeclarationHandler {
 	 * @param sourceLOCs
 	 */
 	private static boolean isConflictingLOC(MergeContext context, List<Integer> sourceLOCs) {
-		List<MergeConflict> conflicts = FilesManager.extractMergeConflicts(context.unstructuredOutput);
+		ConflictIndex conflicts = context.getUnstructuredConflicts();
 		for(int sourceLOC : sourceLOCs){
-			for(MergeConflict mc : conflicts){
-				if((mc.startLOC <= sourceLOC) && (mc.endLOC >= sourceLOC)){
-					return true;
-				}
+			if(conflicts.isConflictingLine(sourceLOC)){
+				return true;
 			}
 		}
 		return false;
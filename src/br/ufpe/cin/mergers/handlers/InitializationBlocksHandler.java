@@ -89,12 +89,12 @@ public class InitializationBlocksHandler {
 
 			//5. updating merged AST
 			if(tp.left != null && tp.right != null){
-				FilesManager.findAndReplaceASTNodeContent(context.superImposedTree, leftcontent , mergedContent);
-				FilesManager.findAndDeleteASTNode(context.superImposedTree, rightcontent);
+				context.getSuperImposedTreeIndex().findAndReplaceASTNodeContent(leftcontent , mergedContent);
+				context.getSuperImposedTreeIndex().findAndDeleteASTNode(rightcontent);
 			} else if(tp.left == null){
-				FilesManager.findAndReplaceASTNodeContent(context.superImposedTree, rightcontent , mergedContent);
+				context.getSuperImposedTreeIndex().findAndReplaceASTNodeContent(rightcontent , mergedContent);
 			} else if(tp.right == null){
-				FilesManager.findAndReplaceASTNodeContent(context.superImposedTree, leftcontent , mergedContent);
+				context.getSuperImposedTreeIndex().findAndReplaceASTNodeContent(leftcontent , mergedContent);
 			}
 
 			//statistics
@@ -112,7 +112,7 @@ public class InitializationBlocksHandler {
 	private static boolean areSimilarBlocks(FSTNode first, FSTNode second) {
 		String firstContent = ((FSTTerminal)first).getBody();
 		String secondContent= ((FSTTerminal)second).getBody();
-		double similarity   = FilesManager.computeStringSimilarity(firstContent, secondContent);
+		double similarity   = FilesManager.computeStringSimilarity(firstContent, secondContent, 0.70);
 		if(similarity > 0.70){ 	//are similar
 			return true;
 		} else { 				//are different
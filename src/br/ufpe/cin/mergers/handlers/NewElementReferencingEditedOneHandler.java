@@ -2,9 +2,9 @@ package br.ufpe.cin.mergers.handlers;
 
 import java.util.List;
 
-import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.parser.IdentifierIndex;
 import de.ovgu.cide.fstgen.ast.FSTNode;
 import de.ovgu.cide.fstgen.ast.FSTTerminal;
 
@@ -23,16 +23,16 @@ public final class NewElementReferencingEditedOneHandler {
 		 */
 		if((!context.editedLeftNodes.isEmpty() && !context.addedRightNodes.isEmpty()) ||
 		   (!context.editedRightNodes.isEmpty()&& !context.addedLeftNodes.isEmpty())){
-		List<MergeConflict> unstructuredMergeConflicts = FilesManager.extractMergeConflicts(context.unstructuredOutput);
+		List<MergeConflict> unstructuredMergeConflicts = context.getUnstructuredConflicts().getConflicts();
 		for(FSTNode addedLeftNode : context.addedLeftNodes){
 			if(isValidNode(addedLeftNode)){
 				for(FSTNode editedRightNode : context.editedRightNodes){
 					if(isValidNode(editedRightNode)){
 						String newElementContent 	  = ((FSTTerminal) addedLeftNode).getBody();
-						String editedElementContent   = getEditedElementContent(editedRightNode);
+						String editedElementContent   = getEditedElementContent(context, editedRightNode);
 						String editedElementIdentfier = getElementIdentifier(editedRightNode);
-						if(thereIsUnstructuredConflictWithAddedAndEditedElements(unstructuredMergeConflicts, newElementContent, editedElementContent)){
-							if(addedElementRefersToEditedOne(newElementContent,editedElementIdentfier)){
+						if(thereIsUnstructuredConflictWithAddedAndEditedElements(unstructuredMergeConflicts, context.getNormalizedBody((FSTTerminal) addedLeftNode), editedElementContent)){
+							if(addedElementRefersToEditedOne(context.getIdentifiers((FSTTerminal) addedLeftNode),editedElementIdentfier)){
 								generateConflictWithAddedAndEditedElements(context, ((FSTTerminal)editedRightNode).getBody(),newElementContent);
 							}
 						}
@@ -45,10 +45,10 @@ public final class NewElementReferencingEditedOneHandler {
 				for(FSTNode editedLeftNode : context.editedLeftNodes){
 					if(isValidNode(editedLeftNode)){
 						String newElementContent 	  = ((FSTTerminal) addedRightNode).getBody();
-						String editedElementContent   = getEditedElementContent(editedLeftNode);
+						String editedElementContent   = getEditedElementContent(context, editedLeftNode);
 						String editedElementIdentfier = getElementIdentifier(editedLeftNode);
-						if(thereIsUnstructuredConflictWithAddedAndEditedElements(unstructuredMergeConflicts, newElementContent, editedElementContent)){
-							if(addedElementRefersToEditedOne(newElementContent,editedElementIdentfier)){
+						if(thereIsUnstructuredConflictWithAddedAndEditedElements(unstructuredMergeConflicts, context.getNormalizedBody((FSTTerminal) addedRightNode), editedElementContent)){
+							if(addedElementRefersToEditedOne(context.getIdentifiers((FSTTerminal) addedRightNode),editedElementIdentfier)){
 								generateConflictWithAddedAndEditedElements(context, ((FSTTerminal)editedLeftNode).getBody(),newElementContent);
 							}
 						}
@@ -63,21 +63,21 @@ public final class NewElementReferencingEditedOneHandler {
 	 * Given a list of unstructured merge conflicts, verifies if there is
 	 * a conflict containing the added and edited elements.
 	 * @param unstructuredMergeConflicts
-	 * @param added element
-	 * @param edited element
+	 * @param added element, without whitespaces
+	 * @param edited element, without whitespaces
 	 * @return true if there is, false if not.
 	 */
 	private static boolean thereIsUnstructuredConflictWithAddedAndEditedElements(List<MergeConflict> unstructuredMergeConflicts,String addedContent, String editedContent) {
 		for(MergeConflict mc : unstructuredMergeConflicts){
-			if(mc.contains(addedContent, editedContent) || mc.contains(editedContent,addedContent)){
+			if(mc.containsNormalized(addedContent, editedContent) || mc.containsNormalized(editedContent,addedContent)){
 				return true;
 			}
 		}
 		return false;
 	}
 	
-	private static boolean addedElementRefersToEditedOne(String newElementContent, String editedElementIdentifier) {
-		return newElementContent.matches("(?s).*\\b"+editedElementIdentifier+"\\b.*");
+	private static boolean addedElementRefersToEditedOne(IdentifierIndex newElementIdentifiers, String editedElementIdentifier) {
+		return newElementIdentifiers.contains(editedElementIdentifier);
 	}
 
 	private static boolean isValidNode(FSTNode node){
@@ -95,9 +95,10 @@ public final class NewElementReferencingEditedOneHandler {
 		return id;
 	}
 	
-	private static String getEditedElementContent(FSTNode editedelement) {
+	private static String getEditedElementContent(MergeContext context, FSTNode editedelement) {
 		//through tests we observed that only the signature (the first line) of an edited method appears in the possible conflict 
-		String id =	(editedelement.getType().equals("MethodDecl")) ? (((FSTTerminal) editedelement).getBody()).split("\\{")[0] : ((FSTTerminal)editedelement).getBody();
+		String content = context.getNormalizedBody((FSTTerminal) editedelement); //without whitespaces
+		String id =	(editedelement.getType().equals("MethodDecl") && content.indexOf('{') >= 0) ? content.substring(0, content.indexOf('{')) : content;
 		return id;
 	}
 	
@@ -112,8 +113,8 @@ public final class NewElementReferencingEditedOneHandler {
 		//first creates a conflict with the import statements
 		MergeConflict newConflict = new MergeConflict(editedElementContent+'\n', addedElementContent+'\n');
 		//second put the conflict in one of the nodes containing the import statements, and deletes the other node containing the orther import statement
-		FilesManager.findAndReplaceASTNodeContent(context.superImposedTree, editedElementContent, newConflict.body);
-		FilesManager.findAndDeleteASTNode(context.superImposedTree, addedElementContent);
+		context.getSuperImposedTreeIndex().findAndReplaceASTNodeContent(editedElementContent, newConflict.body);
+		context.getSuperImposedTreeIndex().findAndDeleteASTNode(addedElementContent);
 		
 		//statistics
 		context.newElementReferencingEditedOneConflicts++;
@@ -1,7 +1,9 @@
 package br.ufpe.cin.mergers.handlers;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.tuple.Pair;
@@ -9,6 +11,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.RenamingCandidateIndex;
 import de.ovgu.cide.fstgen.ast.FSTNode;
 import de.ovgu.cide.fstgen.ast.FSTTerminal;
 
@@ -22,107 +25,72 @@ import de.ovgu.cide.fstgen.ast.FSTTerminal;
 public final class RenamingConflictsHandler {
 
 	public static void handle(MergeContext context) {
+		//the new methods/constructors of each developer are indexed once, instead of compared pair by pair
+		RenamingCandidateIndex leftNewMethodsOrConstructors  = new RenamingCandidateIndex(context.addedLeftNodes.stream().filter(m -> isValidNode(m)).collect(Collectors.toList()));
+		RenamingCandidateIndex rightNewMethodsOrConstructors = new RenamingCandidateIndex(context.addedRightNodes.stream().filter(m -> isValidNode(m)).collect(Collectors.toList()));
+
 		//when both developers rename the same method/constructor
-		handleMutualRenamings(context);
+		handleMutualRenamings(context, leftNewMethodsOrConstructors, rightNewMethodsOrConstructors);
 
 		//when one of the developers rename a method/constructor
-		handleSingleRenamings(context);
+		handleSingleRenamings(context, leftNewMethodsOrConstructors, rightNewMethodsOrConstructors);
 	}
 
-	private static void handleMutualRenamings(MergeContext context) {
-		if(!context.addedLeftNodes.isEmpty() && !context.addedRightNodes.isEmpty()){
-			List<FSTNode> leftNewMethodsOrConstructors  = context.addedLeftNodes.stream().filter(m -> isValidNode(m)).collect(Collectors.toList());
-			List<FSTNode> rightNewMethodsOrConstructors= context.addedRightNodes.stream().filter(m -> isValidNode(m)).collect(Collectors.toList());
-			for(FSTNode left : leftNewMethodsOrConstructors){
-				for(FSTNode right : rightNewMethodsOrConstructors){
+	private static void handleMutualRenamings(MergeContext context, RenamingCandidateIndex leftNewMethodsOrConstructors, RenamingCandidateIndex rightNewMethodsOrConstructors) {
+		if(!leftNewMethodsOrConstructors.getNodes().isEmpty() && !rightNewMethodsOrConstructors.getNodes().isEmpty()){
+			for(FSTNode left : leftNewMethodsOrConstructors.getNodes()){
+				//the methods have the same body, ignoring their signature
+				for(FSTNode right : rightNewMethodsOrConstructors.getNodesWithSameBody(((FSTTerminal)left).getBody())){
 					if(!left.getName().equals(right.getName())){ //only if the two declarations have different signatures
-						String leftBody = ((FSTTerminal)left).getBody();
-						leftBody = FilesManager.getStringContentIntoSingleLineNoSpacing(leftBody);
-						leftBody = removeSignature(leftBody);
-
-						String rightBody = ((FSTTerminal)right).getBody();
-						rightBody = FilesManager.getStringContentIntoSingleLineNoSpacing(rightBody);
-						rightBody = removeSignature(rightBody);
-
-						if(leftBody.equals(rightBody)){//the methods have the same body, ignoring their signature
-							generateMutualRenamingConflict(context, ((FSTTerminal)left).getBody(), ((FSTTerminal)left).getBody(), ((FSTTerminal)right).getBody());
-							break;
-						}
+						generateMutualRenamingConflict(context, ((FSTTerminal)left).getBody(), ((FSTTerminal)left).getBody(), ((FSTTerminal)right).getBody());
+						break;
 					}
 				}
 			}
 		}
 	}
 
-	private static String removeSignature(String string) {
-		string = string.replaceFirst("^.*(?=(\\{))", "");
-		return string;
-	}
-
-	private static void handleSingleRenamings(MergeContext context) {
+	private static void handleSingleRenamings(MergeContext context, RenamingCandidateIndex leftNewMethodsOrConstructors, RenamingCandidateIndex rightNewMethodsOrConstructors) {
 		//possible renamings or deletions in left
 		if(!context.possibleRenamedLeftNodes.isEmpty() || !context.possibleRenamedRightNodes.isEmpty()){
+			List<String> unstructuredMergeConflicts = null; //without spacing, computed once
 			for(Pair<String,FSTNode> tuple: context.possibleRenamedLeftNodes){
-				List<Pair<Double,String>> similarNodes = new ArrayList<Pair<Double,String>>(); //list of possible nodes renaming a previous one
 				if(nodeHasConflict(tuple.getRight()) && isValidNode(tuple.getRight())){
 					String baseContent = tuple.getLeft();
 					String currentNodeContent= ((FSTTerminal) tuple.getRight()).getBody(); //node content with conflict
 					String editedNodeContent = FilesManager.extractMergeConflicts(currentNodeContent).get(0).right;
 
-					//1. getting similar nodes to fulfill renaming conflicts
-					for(FSTNode newNode : context.addedLeftNodes){ // a possible renamed node is seem as "new" node due to superimposition
-						if(isValidNode(newNode)){
-							String possibleRenamingContent = ((FSTTerminal) newNode).getBody();
-							double similarity  	  		   = FilesManager.computeStringSimilarity(baseContent, possibleRenamingContent);
-							if(similarity >= 0.7){ //a typical value of 0.7 (up to 1.0) is used, increase it for a more accurate comparison, or decrease for a more relaxed one.
-								Pair<Double,String> tp = Pair.of(similarity, possibleRenamingContent);
-								similarNodes.add(tp);
-							}
-						}
+					//1. checking if unstructured merge also reported the renaming conflict
+					if(unstructuredMergeConflicts == null){
+						unstructuredMergeConflicts = getUnstructuredMergeConflictsNoSpacing(context);
 					}
-
-					//2. checking if unstructured merge also reported the renaming conflict
-					String signature = getSignature(baseContent);
-					List<MergeConflict> unstructuredMergeConflictsHavingRenamedSignature = FilesManager.extractMergeConflicts(context.unstructuredOutput).stream()
-							.filter(mc -> FilesManager.getStringContentIntoSingleLineNoSpacing(mc.body).contains(signature))
-							.collect(Collectors.toList());
-					if(unstructuredMergeConflictsHavingRenamedSignature.size() > 0){
+					if(hasConflictWithSignature(unstructuredMergeConflicts, getSignature(baseContent))){
+						//2. getting similar nodes to fulfill renaming conflicts
+						List<Pair<Double,String>> similarNodes = getSimilarNodes(baseContent, leftNewMethodsOrConstructors);
 						String possibleRenamingContent = getMostSimilarContent(similarNodes);
 						generateRenamingConflict(context, currentNodeContent, possibleRenamingContent, editedNodeContent,false);
 					} else { //do not report the renaming conflict
-						((FSTTerminal) tuple.getRight()).setBody(editedNodeContent);
+						context.getSuperImposedTreeIndex().setBody((FSTTerminal) tuple.getRight(), editedNodeContent);
 					}
 				}
 			}
 
 			//possible renamings or deletions in right
 			for(Pair<String,FSTNode> tuple: context.possibleRenamedRightNodes){
-				List<Pair<Double,String>> similarNodes = new ArrayList<Pair<Double,String>>(); //list of possible nodes renaming a previous one
 				if(nodeHasConflict(tuple.getRight()) && isValidNode(tuple.getRight())){
 					String baseContent = tuple.getLeft();
 					String currentNodeContent= ((FSTTerminal) tuple.getRight()).getBody(); //node content with conflict
 					String editedNodeContent = FilesManager.extractMergeConflicts(currentNodeContent).get(0).left;
 
-					for(FSTNode newNode : context.addedRightNodes){ // a possible renamed node is seem as "new" node due to superimposition
-						if(isValidNode(newNode)){
-							String possibleRenamingContent = ((FSTTerminal) newNode).getBody();
-							double similarity  	  		   = FilesManager.computeStringSimilarity(baseContent, possibleRenamingContent);
-							if(similarity >= 0.7){ //a typical value of 0.7 (up to 1.0) is used, increase it for a more accurate comparison, or decrease for a more relaxed one.
-								Pair<Double,String> tp = Pair.of(similarity, possibleRenamingContent);
-								similarNodes.add(tp);
-							}
-						}
+					if(unstructuredMergeConflicts == null){
+						unstructuredMergeConflicts = getUnstructuredMergeConflictsNoSpacing(context);
 					}
-
-					String signature = getSignature(baseContent);
-					List<MergeConflict> unstructuredMergeConflictsHavingRenamedSignature = FilesManager.extractMergeConflicts(context.unstructuredOutput).stream()
-							.filter(mc -> FilesManager.getStringContentIntoSingleLineNoSpacing(mc.body).contains(signature))
-							.collect(Collectors.toList());
-					if(unstructuredMergeConflictsHavingRenamedSignature.size() > 0){
+					if(hasConflictWithSignature(unstructuredMergeConflicts, getSignature(baseContent))){
+						List<Pair<Double,String>> similarNodes = getSimilarNodes(baseContent, rightNewMethodsOrConstructors);
 						String possibleRenamingContent = getMostSimilarContent(similarNodes);
 						generateRenamingConflict(context, currentNodeContent, possibleRenamingContent, editedNodeContent,false);
 					} else { //do not report the renaming conflict
-						((FSTTerminal) tuple.getRight()).setBody(editedNodeContent);
+						context.getSuperImposedTreeIndex().setBody((FSTTerminal) tuple.getRight(), editedNodeContent);
 					}
 				}
 			}
@@ -135,6 +103,44 @@ public final class RenamingConflictsHandler {
 		return signatureTrimmed;
 	}
 
+	/**
+	 * Gets the new methods/constructors most similar to the given base content, as they possibly rename it.
+	 * The candidates estimated as the most similar are compared first, so the comparisons of the others are
+	 * bounded by the highest similarity found. The nodes are returned in their original order, so the last
+	 * of them is taken on ties, as when all nodes are kept.
+	 */
+	private static List<Pair<Double,String>> getSimilarNodes(String baseContent, RenamingCandidateIndex newMethodsOrConstructors) {
+		double threshold = 0.7; //a typical value of 0.7 (up to 1.0) is used, increase it for a more accurate comparison, or decrease for a more relaxed one.
+		Map<FSTNode, Double> similarities = new IdentityHashMap<FSTNode, Double>();
+		for(FSTNode newNode : newMethodsOrConstructors.getSimilarCandidates(baseContent)){ // a possible renamed node is seem as "new" node due to superimposition
+			String possibleRenamingContent = ((FSTTerminal) newNode).getBody();
+			double similarity  	  		   = FilesManager.computeStringSimilarity(baseContent, possibleRenamingContent, threshold);
+			if(similarity >= threshold){ //less similar nodes are not the most similar one
+				similarities.put(newNode, similarity);
+				threshold = similarity;
+			}
+		}
+
+		List<Pair<Double,String>> similarNodes = new ArrayList<Pair<Double,String>>(); //list of possible nodes renaming a previous one
+		for(FSTNode newNode : newMethodsOrConstructors.getNodes()){
+			Double similarity = similarities.get(newNode);
+			if(similarity != null && similarity >= threshold){
+				similarNodes.add(Pair.of(similarity, ((FSTTerminal) newNode).getBody()));
+			}
+		}
+		return similarNodes;
+	}
+
+	private static List<String> getUnstructuredMergeConflictsNoSpacing(MergeContext context) {
+		return context.getUnstructuredConflicts().getConflicts().stream()
+				.map(mc -> FilesManager.getStringContentIntoSingleLineNoSpacing(mc.body))
+				.collect(Collectors.toList());
+	}
+
+	private static boolean hasConflictWithSignature(List<String> unstructuredMergeConflicts, String signature) {
+		return unstructuredMergeConflicts.stream().anyMatch(mc -> mc.contains(signature));
+	}
+
 	private static String getMostSimilarContent(List<Pair<Double, String>> similarNodes) {
 		if(!similarNodes.isEmpty()){
 			similarNodes.sort((n1, n2) -> n1.getLeft().compareTo(n2.getLeft()));		
@@ -179,11 +185,11 @@ public final class RenamingConflictsHandler {
 		//first creates a conflict 
 		MergeConflict newConflict = new MergeConflict(firstContent+'\n', secondContent+'\n');
 		//second put the conflict in one of the nodes containing the previous conflict, and deletes the other node containing the possible renamed version
-		FilesManager.findAndReplaceASTNodeContent(context.superImposedTree, currentNodeContent, newConflict.body);
+		context.getSuperImposedTreeIndex().findAndReplaceASTNodeContent(currentNodeContent, newConflict.body);
 		if(isLeftToRight){
-			FilesManager.findAndDeleteASTNode(context.superImposedTree, firstContent);
+			context.getSuperImposedTreeIndex().findAndDeleteASTNode(firstContent);
 		} else {
-			FilesManager.findAndDeleteASTNode(context.superImposedTree, secondContent);
+			context.getSuperImposedTreeIndex().findAndDeleteASTNode(secondContent);
 
 		}
 	}
@@ -196,8 +202,8 @@ public final class RenamingConflictsHandler {
 		MergeConflict newConflict = new MergeConflict(firstContent+'\n', secondContent+'\n');
 
 		//second put the conflict in one of the nodes containing the previous conflict, and deletes the other node containing the possible renamed version
-		FilesManager.findAndReplaceASTNodeContent(context.superImposedTree, currentNodeContent, newConflict.body);
-		FilesManager.findAndDeleteASTNode(context.superImposedTree, secondContent);
+		context.getSuperImposedTreeIndex().findAndReplaceASTNodeContent(currentNodeContent, newConflict.body);
+		context.getSuperImposedTreeIndex().findAndDeleteASTNode(secondContent);
 	}
 
 	/*	pure similarity-based handler (it works)
@@ -266,7 +272,7 @@ public final class RenamingConflictsHandler {
 	 */
 	public static void main(String[] args) {
 		String s = "intsum(inta,intb){returna+b;}";
-		removeSignature(s);
+		RenamingCandidateIndex.removeSignature(s);
 		System.out.println(s);
 
 	}
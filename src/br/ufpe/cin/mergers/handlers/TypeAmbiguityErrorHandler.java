@@ -1,17 +1,19 @@
 package br.ufpe.cin.mergers.handlers;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
 import org.eclipse.jdt.core.compiler.IProblem;
 
-import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.files.GoogleTextDiffMatchPatch;
 import br.ufpe.cin.files.GoogleTextDiffMatchPatch.Diff;
+import br.ufpe.cin.files.NormalizedText;
 import br.ufpe.cin.mergers.util.JavaCompiler;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
 import br.ufpe.cin.mergers.util.Source;
+import br.ufpe.cin.parser.IdentifierIndex;
 import de.ovgu.cide.fstgen.ast.FSTNode;
 import de.ovgu.cide.fstgen.ast.FSTTerminal;
 
@@ -33,9 +35,10 @@ public final class TypeAmbiguityErrorHandler {
 		 * output to look for compilation problems. 
 		 */
 		if(!leftImportStatementsNodes.isEmpty() && !rightImportStatementsNodes.isEmpty()){
-			List<MergeConflict> unstructuredMergeConflicts = FilesManager.extractMergeConflicts(context.unstructuredOutput);
+			List<MergeConflict> unstructuredMergeConflicts = context.getUnstructuredConflicts().getConflicts();
 			JavaCompiler compiler = new JavaCompiler();
 			compiler.compile(context, Source.SEMISTRUCTURED);	//compiling source code
+			IdentifierIndex[] contributionsIdentifiers = new IdentifierIndex[2]; //of the left and right contributions, collected on demand
 			while(!leftImportStatementsNodes.isEmpty()){
 				FSTNode leftImportStatementNode = ((FSTTerminal)leftImportStatementsNodes.poll());
 				String leftImportStatement 		= ((FSTTerminal) leftImportStatementNode).getBody();
@@ -62,7 +65,7 @@ public final class TypeAmbiguityErrorHandler {
 					//possible behaviorial type ambiguity error: p.Z vs. q.*
 					else if(rightImportedMember.equals("*;") || leftImportedMember.equals("*;")) {	
 						if(thereIsUnstructuredConflictWithImportedStatements(unstructuredMergeConflicts,leftImportStatement, rightImportStatement)){
-							if(thereIsContributionUsingImportedMember(context,rightImportedMember, leftImportedMember)){
+							if(thereIsContributionUsingImportedMember(context,contributionsIdentifiers,rightImportedMember, leftImportedMember)){
 								generateConflictWithImportStatements(context,leftImportStatement,rightImportStatement); break;
 							}
 						}
@@ -75,37 +78,45 @@ public final class TypeAmbiguityErrorHandler {
 	/**
 	 * Verifies if the contributions of the class that imported the package refers to the member imported in the other class
 	 * @param context
+	 * @param contributionsIdentifiers identifiers of the left and right contributions, collected on the first use
 	 * @param rightImportedMember
 	 * @param leftImportedMember
 	 */
-	private static boolean thereIsContributionUsingImportedMember(MergeContext context, String rightImportedMember,String leftImportedMember) {
-		String left = (context.getLeft()!=null)?FilesManager.readFileContent(context.getLeft()) :"";
-		String base = (context.getBase()!=null)?FilesManager.readFileContent(context.getBase()) :"";
-		String right=(context.getRight()!=null)?FilesManager.readFileContent(context.getRight()):"";
+	private static boolean thereIsContributionUsingImportedMember(MergeContext context, IdentifierIndex[] contributionsIdentifiers, String rightImportedMember,String leftImportedMember) {
 		if(rightImportedMember.equals("*;")){
-			GoogleTextDiffMatchPatch differ = new GoogleTextDiffMatchPatch();
-			List<Diff> differences = (!base.equals(""))?differ.diffMainAtLineLevel(base,right):differ.diffMainAtLineLevel(left,right);
-			List<String> rightContributions = differ.diffText2Insertions(differences);
-			String membername = leftImportedMember.substring(0,leftImportedMember.length()-1);
-			for(String ctrb : rightContributions){
-				//if(ctrb.contains(membername) && !ctrb.contains("import") && ctrb.matches("((?s).*\\b\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*\\.)*\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*\\b.*")){
-				//if(ctrb.matches("(?s).*\\b"+membername+"\\b.*") && !ctrb.contains("import")){
-				if(ctrb.matches("(?s).*(?<!\\.)\\b"+membername+"\\b.*") && !ctrb.contains("import")){
-					return true;
-				}
+			if(contributionsIdentifiers[1] == null){
+				contributionsIdentifiers[1] = getContributionsIdentifiers(context, true);
 			}
+			String membername = leftImportedMember.substring(0,leftImportedMember.length()-1);
+			return contributionsIdentifiers[1].containsUnqualified(membername);
 		} else {
-			GoogleTextDiffMatchPatch differ = new GoogleTextDiffMatchPatch();
-			List<Diff> differences = (!base.equals(""))?differ.diffMainAtLineLevel(base,left):differ.diffMainAtLineLevel(right,left);
-			List<String> leftContributions = differ.diffText2Insertions(differences);
+			if(contributionsIdentifiers[0] == null){
+				contributionsIdentifiers[0] = getContributionsIdentifiers(context, false);
+			}
 			String membername = rightImportedMember.substring(0,rightImportedMember.length()-1);
-			for(String ctrb : leftContributions){
-				if(ctrb.matches("(?s).*(?<!\\.)\\b"+membername+"\\b.*") && !ctrb.contains("import")){
-					return true;
-				}
+			return contributionsIdentifiers[0].containsUnqualified(membername);
+		}
+	}
+
+	/**
+	 * Collects the identifiers of the lines added by one of the versions, except the import statements.
+	 * @param context
+	 * @param rightContributions true for the lines added by the right version, false for the left one
+	 */
+	private static IdentifierIndex getContributionsIdentifiers(MergeContext context, boolean rightContributions) {
+		String left = context.getLeftContent();
+		String base = context.getBaseContent();
+		String right= context.getRightContent();
+		String other = (!base.equals("")) ? base : (rightContributions ? left : right);
+		GoogleTextDiffMatchPatch differ = new GoogleTextDiffMatchPatch();
+		List<Diff> differences = differ.diffMainAtLineLevel(other, rightContributions ? right : left);
+		List<String> contributions = new ArrayList<String>();
+		for(String ctrb : differ.diffText2Insertions(differences)){
+			if(!ctrb.contains("import")){
+				contributions.add(ctrb);
 			}
 		}
-		return false;
+		return IdentifierIndex.of(contributions);
 	}
 
 	/**
@@ -146,8 +157,13 @@ public final class TypeAmbiguityErrorHandler {
 	 * @return true if there is, false if not.
 	 */
 	private static boolean thereIsUnstructuredConflictWithImportedStatements(List<MergeConflict> unstructuredMergeConflicts,String leftImportStatement, String rightImportStatement) {
+		if(leftImportStatement.isEmpty() || rightImportStatement.isEmpty()){
+			return false;
+		}
+		leftImportStatement  = NormalizedText.removeWhitespaces(leftImportStatement);
+		rightImportStatement = NormalizedText.removeWhitespaces(rightImportStatement);
 		for(MergeConflict mc : unstructuredMergeConflicts){
-			if(mc.contains(leftImportStatement, rightImportStatement)){
+			if(mc.containsNormalized(leftImportStatement, rightImportStatement)){
 				return true;
 			}
 		}
@@ -165,8 +181,8 @@ public final class TypeAmbiguityErrorHandler {
 		//first creates a conflict with the import statements
 		MergeConflict newConflict = new MergeConflict(leftImportStatement+'\n', rightImportStatement+'\n');
 		//second put the conflict in one of the nodes containing the import statements, and deletes the other node containing the orther import statement
-		FilesManager.findAndReplaceASTNodeContent(context.superImposedTree, leftImportStatement, newConflict.body);
-		FilesManager.findAndDeleteASTNode(context.superImposedTree, rightImportStatement);
+		context.getSuperImposedTreeIndex().findAndReplaceASTNodeContent(leftImportStatement, newConflict.body);
+		context.getSuperImposedTreeIndex().findAndDeleteASTNode(rightImportStatement);
 
 		//statistics
 		context.typeAmbiguityErrorsConflicts++;
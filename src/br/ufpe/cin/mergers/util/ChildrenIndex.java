@@ -0,0 +1,47 @@
+package br.ufpe.cin.mergers.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+
+/**
+ * Hash index of the children of a non-terminal node by their (type, name) pair,
+ * the same criteria used by {@link FSTNode#compatibleWith(FSTNode)}.
+ * It replaces the linear scan of {@link FSTNonTerminal#getCompatibleChild(FSTNode)}
+ * during superimposition, which is quadratic on nodes with many children
+ * (big classes, enums, or long lists of import declarations).
+ */
+public class ChildrenIndex {
+
+	private final Map<String, Map<String, FSTNode>> childrenByTypeAndName = new HashMap<String, Map<String, FSTNode>>();
+
+	/**
+	 * Builds the index of the current children of the given node.
+	 * @param node
+	 */
+	public ChildrenIndex(FSTNonTerminal node) {
+		for (FSTNode child : node.getChildren()) {
+			Map<String, FSTNode> childrenByName = childrenByTypeAndName.get(child.getType());
+			if (childrenByName == null) {
+				childrenByName = new HashMap<String, FSTNode>();
+				childrenByTypeAndName.put(child.getType(), childrenByName);
+			}
+			//as in getCompatibleChild, the first compatible child wins
+			if (!childrenByName.containsKey(child.getName())) {
+				childrenByName.put(child.getName(), child);
+			}
+		}
+	}
+
+	/**
+	 * Returns the first indexed child compatible with the given node.
+	 * @param node
+	 * @return compatible child, or null if there isn't
+	 */
+	public FSTNode getCompatibleChild(FSTNode node) {
+		Map<String, FSTNode> childrenByName = childrenByTypeAndName.get(node.getType());
+		return (childrenByName == null) ? null : childrenByName.get(node.getName());
+	}
+}
@@ -0,0 +1,111 @@
+package br.ufpe.cin.mergers.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Merge conflicts of a merged code, extracted in a single pass over the code.
+ * The merged code does not change after the merge, so {@link MergeContext} keeps
+ * the index of its outputs and the handlers and statistics read the conflicts from it,
+ * instead of extracting them again.
+ */
+public class ConflictIndex {
+
+	private static final String CONFLICT_HEADER_BEGIN = "<<<<<<< MINE";
+	private static final String CONFLICT_MID = "=======";
+	private static final String CONFLICT_HEADER_END = ">>>>>>> YOURS";
+
+	private final String mergedCode;
+	private final List<MergeConflict> conflicts;
+
+	/**
+	 * Extracts the merge conflicts of the given merged code.
+	 * @param mergedCode
+	 */
+	public ConflictIndex(String mergedCode) {
+		this.mergedCode = mergedCode;
+		this.conflicts = Collections.unmodifiableList(extract(mergedCode));
+	}
+
+	/**
+	 * @return the indexed merged code.
+	 */
+	public String getMergedCode() {
+		return mergedCode;
+	}
+
+	/**
+	 * @return the merge conflicts, in the order they appear in the merged code.
+	 */
+	public List<MergeConflict> getConflicts() {
+		return conflicts;
+	}
+
+	/**
+	 * @param lineNumber
+	 * @return true if the given line number (starting from 1) is surrounded by a conflict.
+	 */
+	public boolean isConflictingLine(int lineNumber) {
+		for (MergeConflict mc : conflicts) {
+			if (mc.startLOC <= lineNumber && mc.endLOC >= lineNumber) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Extracts the conflicts line by line, splitting lines as {@link java.io.BufferedReader#readLine()} does.
+	 * @return a new list with the conflicts
+	 */
+	public static List<MergeConflict> extract(String mergedCode) {
+		List<MergeConflict> mergeConflicts = new ArrayList<MergeConflict>();
+		StringBuilder leftConflictingContent = new StringBuilder();
+		StringBuilder rightConflictingContent = new StringBuilder();
+		boolean isConflictOpen = false;
+		boolean isLeftContent = false;
+		int lineCounter = 0;
+		int startLOC = 0;
+		int startOffset = 0;
+
+		int length = mergedCode.length();
+		int lineStart = 0;
+		while (lineStart < length) {
+			int lineEnd = lineStart;
+			while (lineEnd < length && mergedCode.charAt(lineEnd) != '\n' && mergedCode.charAt(lineEnd) != '\r') {
+				lineEnd++;
+			}
+			int nextLineStart = lineEnd;
+			if (nextLineStart < length) {
+				nextLineStart += (mergedCode.charAt(nextLineStart) == '\r' && nextLineStart + 1 < length && mergedCode.charAt(nextLineStart + 1) == '\n') ? 2 : 1;
+			}
+			String line = mergedCode.substring(lineStart, lineEnd);
+			lineCounter++;
+
+			if (line.contains(CONFLICT_HEADER_BEGIN)) {
+				isConflictOpen = true;
+				isLeftContent = true;
+				startLOC = lineCounter;
+				startOffset = lineStart;
+			} else if (line.contains(CONFLICT_MID)) {
+				isLeftContent = false;
+			} else if (line.contains(CONFLICT_HEADER_END)) {
+				MergeConflict mergeConflict = new MergeConflict(leftConflictingContent.toString(), rightConflictingContent.toString(), startLOC, lineCounter);
+				mergeConflict.startOffset = startOffset;
+				mergeConflict.endOffset = lineEnd;
+				mergeConflicts.add(mergeConflict);
+
+				//reseting the flags
+				isConflictOpen = false;
+				isLeftContent = false;
+				leftConflictingContent.setLength(0);
+				rightConflictingContent.setLength(0);
+			} else if (isConflictOpen) {
+				(isLeftContent ? leftConflictingContent : rightConflictingContent).append(line).append('\n');
+			}
+			lineStart = nextLineStart;
+		}
+		return mergeConflicts;
+	}
+}
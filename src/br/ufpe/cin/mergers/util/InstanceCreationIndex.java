@@ -0,0 +1,43 @@
+package br.ufpe.cin.mergers.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * Number of instance creations (<i>new Type(...)</i>) of each type in a revision, counted in a single
+ * compilation of the revision. {@link MergeContext} keeps the index of each revision, so handlers
+ * comparing the references to several declarations do not compile the revisions again for each one.
+ */
+public class InstanceCreationIndex {
+
+	private final Map<String, Integer> instances = new HashMap<String, Integer>();
+
+	/**
+	 * Compiles the given java code and counts its instance creations.
+	 * @param javaSource
+	 */
+	public InstanceCreationIndex(String javaSource) {
+		JavaCompiler compiler = new JavaCompiler();
+		CompilationUnit cu = compiler.compile(javaSource);
+		cu.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(ClassInstanceCreation node) {
+				instances.merge(node.getType().toString(), 1, Integer::sum);
+				return super.visit(node);
+			}
+		});
+	}
+
+	/**
+	 * @param type as written in the code, such as <i>Inner</i> or <i>Outer.Inner</i>
+	 * @return the number of instance creations of the given type
+	 */
+	public int count(String type) {
+		Integer count = instances.get(type);
+		return (count != null) ? count : 0;
+	}
+}
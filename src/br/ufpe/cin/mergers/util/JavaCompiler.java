@@ -3,11 +3,15 @@ package br.ufpe.cin.mergers.util;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
-import org.apache.commons.io.FileUtils;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.AST;
@@ -15,6 +19,7 @@ import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 
 import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.files.ProjectResourceIndex;
 /**
  * Java compiler based on Eclipse JDT. 
  * @author Guilherme
@@ -23,6 +28,27 @@ public class JavaCompiler {
 
 	public List<IProblem> compilationProblems = new ArrayList<IProblem>();
 
+	//threads of background compilations, which do not prevent the application from exiting
+	private static final ExecutorService backgroundCompilations = Executors.newCachedThreadPool(task -> {
+		Thread thread = new Thread(task, "background-compilation");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Compiles the java code of a given MergeContext in a background thread.
+	 * @param context containing the java code.
+	 * @param source of the code to compile.
+	 * @return future compiler, holding the compilation problems.
+	 */
+	public static Future<JavaCompiler> compileInBackground(MergeContext context, Source source){
+		return backgroundCompilations.submit(() -> {
+			JavaCompiler compiler = new JavaCompiler();
+			compiler.compile(context, source);
+			return compiler;
+		});
+	}
+
 	/**
 	 * Compile the semistructured java code of a given MergeContext.
 	 * @param context containing the semistructured java code.
@@ -37,7 +63,7 @@ public class JavaCompiler {
 		CompilationUnit cunit;
 		switch (source) {
 		case UNSTRUCTURED:
-			cunit = compile(unitName,context.unstructuredOutput,sources,classpaths);
+			cunit = compile(unitName,context.getUnstructuredOutput(),sources,classpaths);
 			break;
 		case SEMISTRUCTURED:
 			cunit = compile(unitName,context.semistructuredOutput,sources,classpaths);
@@ -147,6 +173,7 @@ public class JavaCompiler {
 
 	/**
 	 * Gets a list o files path with the given extension, related to the given merge context. 
+	 * The folders of each project are read from its {@link ProjectResourceIndex}.
 	 * @param context
 	 * @param fileExtension
 	 * @return list of files path
@@ -154,14 +181,10 @@ public class JavaCompiler {
 	private String[] findResources(MergeContext context, String fileExtension){
 		//String projectpath = FilesManager.estimateProjectFolderPath(context);
 		String[] projectpaths = FilesManager.estimateFilesProjectFolderPath(context);
-		List<String> filespath= new ArrayList<String>();
+		Set<String> filespath= new LinkedHashSet<String>();
 		for(String path : projectpaths){
 			if(!path.isEmpty()){
-				List<File> files = (List<File>) FileUtils.listFiles(new File(path),new String[]{fileExtension}, true);
-				for(File f: files){
-					if(!filespath.contains(f.getParent())) 
-						filespath.add(f.getParent());
-				}
+				filespath.addAll(ProjectResourceIndex.of(path).getFolders(fileExtension));
 			}
 		}
 		return filespath.isEmpty()? (new String[] {""}) : filespath.toArray(new String[0]);
@@ -0,0 +1,76 @@
+package br.ufpe.cin.mergers.util;
+
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Terminal node resulting from the superimposition of matched terminals.
+ * It keeps the content contributed by each revision (left, base and right)
+ * until they are merged, so the merge of matched content reads them directly
+ * instead of splitting a marked body. A revision that does not have the node
+ * contributes an empty content.
+ */
+public class MatchedTerminal extends FSTTerminal {
+
+	private String leftContent;
+	private String baseContent;
+	private String rightContent;
+
+	/**
+	 * Creates a terminal with the same content of the given one, and the given contributions.
+	 * @param terminal
+	 * @param leftContent
+	 * @param baseContent
+	 * @param rightContent
+	 */
+	public MatchedTerminal(FSTTerminal terminal, String leftContent, String baseContent, String rightContent) {
+		super(terminal.getType(), terminal.getName(), terminal.getBody(), terminal.getSpecialTokenPrefix(),
+				terminal.getCompositionMechanism(), terminal.getMergingMechanism(), terminal.beginLine, terminal.endLine);
+		setBody(terminal.getBody()); //the constructor moves the body of ContractCompKey nodes
+		setContractCompKey(terminal.getContractCompKey());
+		setOriginalFeatureName(terminal.getOriginalFeatureName());
+		this.leftContent = leftContent;
+		this.baseContent = baseContent;
+		this.rightContent = rightContent;
+	}
+
+	/**
+	 * @return true if the contributions of the revisions were not merged yet.
+	 */
+	public boolean hasContributions() {
+		return leftContent != null;
+	}
+
+	/**
+	 * Replaces the contributions of the revisions by their merged content.
+	 * @param mergedContent
+	 */
+	public void setMergedContent(String mergedContent) {
+		setBody(mergedContent);
+		leftContent = null;
+		baseContent = null;
+		rightContent = null;
+	}
+
+	public String getLeftContent() {
+		return leftContent;
+	}
+
+	public String getBaseContent() {
+		return baseContent;
+	}
+
+	public String getRightContent() {
+		return rightContent;
+	}
+
+	@Override
+	public FSTNode getShallowClone() {
+		return new MatchedTerminal(this, leftContent, baseContent, rightContent);
+	}
+
+	@Override
+	public FSTNode getDeepClone() {
+		return new MatchedTerminal(this, leftContent, baseContent, rightContent);
+	}
+}
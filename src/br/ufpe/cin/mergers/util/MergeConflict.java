@@ -2,6 +2,8 @@ package br.ufpe.cin.mergers.util;
 
 import java.io.File;
 
+import br.ufpe.cin.files.NormalizedText;
+
 /**
  * Class representing a textual merge conflict.
  * @author Guilherme
@@ -16,10 +18,20 @@ public class MergeConflict {
 	
 	public int startLOC;
 	public int endLOC;
+
+	//position of the conflict in the merged code
+	public int startOffset;
+	public int endOffset;
 	
 	public File leftOriginFile;
 	public File baseOriginFile;
 	public File rightOriginFile;
+
+	//contents without whitespaces, and the contents they were computed from
+	private String normalizedLeft;
+	private String normalizedRight;
+	private String normalizedFromLeft;
+	private String normalizedFromRight;
 	
 
 	public MergeConflict(String leftConflictingContent,	String rightConflictingContent) {
@@ -58,11 +70,57 @@ public class MergeConflict {
 		if(leftPattern.isEmpty() || rightPattern.isEmpty()){
 			return false;
 		} else {
-			leftPattern  = (leftPattern.replaceAll("\\r\\n|\\r|\\n","")).replaceAll("\\s+","");
-			rightPattern = (rightPattern.replaceAll("\\r\\n|\\r|\\n","")).replaceAll("\\s+","");
-			String lefttrim  = (this.left.replaceAll("\\r\\n|\\r|\\n","")).replaceAll("\\s+","");
-			String righttrim = (this.right.replaceAll("\\r\\n|\\r|\\n","")).replaceAll("\\s+","");
-			return (lefttrim.contains(leftPattern) && righttrim.contains(rightPattern));
+			normalize();
+			return (normalizedLeft.contains(NormalizedText.removeWhitespaces(leftPattern)) && normalizedRight.contains(NormalizedText.removeWhitespaces(rightPattern)));
+		}
+	}
+
+	/**
+	 * Same as {@link #contains(String, String)}, for patterns already without whitespaces, 
+	 * such as the ones computed once for several conflicts. Empty patterns are not contained.
+	 * @param leftPattern without whitespaces
+	 * @param rightPattern without whitespaces
+	 */
+	public boolean containsNormalized(String leftPattern, String rightPattern){
+		if(leftPattern.isEmpty() || rightPattern.isEmpty()){
+			return false;
+		} else {
+			normalize();
+			return (normalizedLeft.contains(leftPattern) && normalizedRight.contains(rightPattern));
+		}
+	}
+
+	/**
+	 * Verifies if the conflicting contents of this conflict and another are equal, ignoring whitespaces.
+	 * @param other
+	 */
+	public boolean isEquivalentTo(MergeConflict other){
+		this.normalize();
+		other.normalize();
+		int length = normalizedLeft.length();
+		int otherLength = other.normalizedLeft.length();
+		if(length + normalizedRight.length() != otherLength + other.normalizedRight.length()){
+			return false;
+		}
+		//comparing the joined contents without joining them
+		String shorter = (length <= otherLength) ? this.normalizedLeft : other.normalizedLeft;
+		String longer  = (length <= otherLength) ? other.normalizedLeft : this.normalizedLeft;
+		String shorterRight = (length <= otherLength) ? this.normalizedRight : other.normalizedRight;
+		String longerRight  = (length <= otherLength) ? other.normalizedRight : this.normalizedRight;
+		int split = shorter.length();
+		return longer.startsWith(shorter) 
+				&& shorterRight.regionMatches(0, longer, split, longer.length() - split)
+				&& shorterRight.regionMatches(longer.length() - split, longerRight, 0, longerRight.length());
+	}
+
+	private void normalize(){
+		if(normalizedFromLeft != left){
+			normalizedLeft = NormalizedText.removeWhitespaces(left);
+			normalizedFromLeft = left;
+		}
+		if(normalizedFromRight != right){
+			normalizedRight = NormalizedText.removeWhitespaces(right);
+			normalizedFromRight = right;
 		}
 	}
 	
@@ -2,12 +2,28 @@ package br.ufpe.cin.mergers.util;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.apache.commons.lang3.tuple.Pair;
 
-import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.exceptions.MergeAbortedException;
+import br.ufpe.cin.exceptions.TextualMergeException;
+import br.ufpe.cin.files.NormalizedText;
+import br.ufpe.cin.files.SourceSnapshot;
+import br.ufpe.cin.logging.LoggerFactory;
+import br.ufpe.cin.mergers.TextualMerge;
+import br.ufpe.cin.parser.IdentifierIndex;
 import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
 
 /**
  * Encapsulates pertinent information of the merging process. A context
@@ -16,6 +32,10 @@ import de.ovgu.cide.fstgen.ast.FSTNode;
  * @author Guilherme
  */
 public class MergeContext {
+
+	//log of activities
+	private static final Logger LOGGER = LoggerFactory.make();
+
 	File base;
 	File right;
 	File left;
@@ -24,6 +44,10 @@ public class MergeContext {
 	String baseContent = "";
 	String leftContent = "";
 	String rightContent= "";
+
+	SourceSnapshot baseSnapshot = SourceSnapshot.EMPTY;
+	SourceSnapshot leftSnapshot = SourceSnapshot.EMPTY;
+	SourceSnapshot rightSnapshot= SourceSnapshot.EMPTY;
 	
 	public List<FSTNode> addedLeftNodes = new ArrayList<FSTNode>();
 	public List<FSTNode> addedRightNodes= new ArrayList<FSTNode>();
@@ -37,6 +61,9 @@ public class MergeContext {
 
 	public List<FSTNode> editedLeftNodes = new ArrayList<FSTNode>(); 
 	public List<FSTNode> editedRightNodes= new ArrayList<FSTNode>();
+
+	//subtrees placed in the superimposed tree without being copied, which the tree index copies before changing them
+	public Set<FSTNode> sharedSubtrees = Collections.newSetFromMap(new IdentityHashMap<FSTNode, Boolean>());
 	
 
 	public FSTNode leftTree;
@@ -44,7 +71,24 @@ public class MergeContext {
 	public FSTNode rightTree;
 	public FSTNode superImposedTree;
 	public String semistructuredOutput;
-	public String unstructuredOutput;
+	private String unstructuredOutput; //computed on demand
+	private TreeIndex superImposedTreeIndex; //built on demand
+	private ConflictIndex unstructuredConflicts; //built on demand
+	private ConflictIndex semistructuredConflicts; //built on demand
+	private NormalizedText.TerminalCache normalizedBodies; //built on demand
+	private Map<FSTTerminal, IdentifierIndex> identifierIndexes; //built on demand
+	private InstanceCreationIndex baseInstanceCreations; //built on demand
+	private InstanceCreationIndex leftInstanceCreations; //built on demand
+	private InstanceCreationIndex rightInstanceCreations; //built on demand
+	private Future<JavaCompiler> unstructuredCompilation; //started in background, if enabled
+	public boolean hasConflicts = false;
+	public boolean hasPendingStatisticsHandlers = false;
+
+	//messages of the merge, printed to the console when the merge is reported, so merges in parallel do not interleave them
+	public StringBuilder consoleMessages = new StringBuilder();
+
+	//when the merge happened, in milliseconds since the epoch, so statistics computed later are dated by the merge
+	public long mergeTimestamp = System.currentTimeMillis();
 	
 	//statistics
 	public int newElementReferencingEditedOneConflicts = 0;
@@ -74,9 +118,14 @@ public class MergeContext {
 		this.right= right;
 		this.outputFilePath = outputFilePath;
 		
-		this.leftContent = FilesManager.readFileContent(this.left);
-		this.baseContent = FilesManager.readFileContent(this.base);
-		this.rightContent= FilesManager.readFileContent(this.right);
+		//files are read only here, the next steps of the merge reuse their snapshots
+		this.leftSnapshot = SourceSnapshot.of(this.left);
+		this.baseSnapshot = SourceSnapshot.of(this.base);
+		this.rightSnapshot= SourceSnapshot.of(this.right);
+
+		this.leftContent = this.leftSnapshot.getContent();
+		this.baseContent = this.baseSnapshot.getContent();
+		this.rightContent= this.rightSnapshot.getContent();
 	}
 
 	/**
@@ -94,6 +143,8 @@ public class MergeContext {
 		this.nodesDeletedByLeft. addAll(otherContext.nodesDeletedByLeft);
 		this.nodesDeletedByRight. addAll(otherContext.nodesDeletedByRight);
 
+		this.sharedSubtrees.addAll(otherContext.sharedSubtrees);
+
 		
 		this.possibleRenamedLeftNodes. addAll(otherContext.possibleRenamedLeftNodes);
 		this.possibleRenamedRightNodes.addAll(otherContext.possibleRenamedRightNodes);
@@ -159,4 +210,213 @@ public class MergeContext {
 	public void setRightContent(String rightContent) {
 		this.rightContent = rightContent;
 	}
+
+	public SourceSnapshot getBaseSnapshot() {
+		return baseSnapshot;
+	}
+
+	public SourceSnapshot getLeftSnapshot() {
+		return leftSnapshot;
+	}
+
+	public SourceSnapshot getRightSnapshot() {
+		return rightSnapshot;
+	}
+
+	/**
+	 * Returns the unstructured merge of the files of this context, computing it in the first call.
+	 * Only a few handlers and the statistics need it, so it is often never computed.
+	 * @return unstructured merged code
+	 * @throws MergeAbortedException when textual merge fails
+	 */
+	public synchronized String getUnstructuredOutput() {
+		if (unstructuredOutput == null) {
+			long t0 = System.nanoTime();
+			try {
+				unstructuredOutput = TextualMerge.merge(leftContent, baseContent, rightContent, false);
+			} catch (TextualMergeException tme) { //textual merge must work even when semistructured not
+				throw new MergeAbortedException(tme);
+			}
+			unstructuredMergeTime = System.nanoTime() - t0;
+		}
+		return unstructuredOutput;
+	}
+
+	public synchronized void setUnstructuredOutput(String unstructuredOutput) {
+		this.unstructuredOutput = unstructuredOutput;
+	}
+
+	/**
+	 * Starts the unstructured merge and its compilation in a background thread,
+	 * so they run while the files are parsed and superimposed.
+	 */
+	public void compileUnstructuredOutputInBackground() {
+		unstructuredCompilation = JavaCompiler.compileInBackground(this, Source.UNSTRUCTURED);
+	}
+
+	/**
+	 * Returns the compilation of the unstructured merge output, waiting for the
+	 * background compilation if it was started, or compiling it otherwise.
+	 * @return compiler holding the compilation problems of the unstructured output
+	 */
+	public JavaCompiler getUnstructuredCompilation() {
+		if (unstructuredCompilation != null) {
+			try {
+				return unstructuredCompilation.get();
+			} catch (InterruptedException e) { //compiled again in the current thread
+				Thread.currentThread().interrupt();
+				LOGGER.log(Level.WARNING, "", e);
+			} catch (ExecutionException e) { //compiled again in the current thread
+				LOGGER.log(Level.WARNING, "", e);
+			}
+		}
+		JavaCompiler compiler = new JavaCompiler();
+		compiler.compile(this, Source.UNSTRUCTURED);
+		return compiler;
+	}
+
+	/**
+	 * Returns the conflicts of the unstructured merge, extracting them in the first call.
+	 * @return conflicts of the unstructured output
+	 */
+	public ConflictIndex getUnstructuredConflicts() {
+		String output = getUnstructuredOutput();
+		if (unstructuredConflicts == null || unstructuredConflicts.getMergedCode() != output) {
+			unstructuredConflicts = new ConflictIndex(output);
+		}
+		return unstructuredConflicts;
+	}
+
+	/**
+	 * Returns the conflicts of the semistructured merge, extracting them again
+	 * only when the semistructured output changes.
+	 * @return conflicts of the semistructured output
+	 */
+	public ConflictIndex getSemistructuredConflicts() {
+		if (semistructuredConflicts == null || semistructuredConflicts.getMergedCode() != semistructuredOutput) {
+			semistructuredConflicts = new ConflictIndex(semistructuredOutput);
+		}
+		return semistructuredConflicts;
+	}
+
+	/**
+	 * Returns the lookup index of the superimposed tree, building it in the first call
+	 * or when the tree is replaced. Handlers change the tree through this index,
+	 * which copies the shared subtrees before changing them.
+	 * @return index of the superimposed tree
+	 */
+	public TreeIndex getSuperImposedTreeIndex() {
+		if (superImposedTreeIndex == null || superImposedTreeIndex.getRoot() != superImposedTree) {
+			superImposedTreeIndex = new TreeIndex(superImposedTree, sharedSubtrees, this::followCopy);
+		}
+		return superImposedTreeIndex;
+	}
+
+	/**
+	 * Makes the nodes kept by the context that are in the superimposed tree refer to the copy
+	 * of a shared subtree, as they do when the subtrees are copied during superimposition.
+	 * The nodes kept from the first pass of superimposition (left and base) are not in the
+	 * superimposed tree then, so they keep referring to the shared subtree.
+	 * @param sharedRoot root of the shared subtree just copied
+	 */
+	private void followCopy(FSTNode sharedRoot) {
+		TreeIndex index = superImposedTreeIndex;
+
+		//nodes placed during the second pass (with right)
+		FSTNode rootCopy = index.getCopy(sharedRoot);
+		replaceNode(addedRightNodes, sharedRoot, rootCopy);
+		replaceNode(deletedBaseNodes, sharedRoot, rootCopy);
+		replaceNode(nodesDeletedByRight, sharedRoot, rootCopy);
+
+		//nodes collected from the superimposed tree
+		for (List<FSTNode> nodes : Arrays.asList(editedLeftNodes, editedRightNodes)) {
+			for (int i = 0; i < nodes.size(); i++) {
+				FSTNode copy = index.getCopy(nodes.get(i));
+				if (copy != null) {
+					nodes.set(i, copy);
+				}
+			}
+		}
+		for (List<Pair<String, FSTNode>> tuples : Arrays.asList(possibleRenamedLeftNodes, possibleRenamedRightNodes)) {
+			for (int i = 0; i < tuples.size(); i++) {
+				FSTNode copy = index.getCopy(tuples.get(i).getRight());
+				if (copy != null) {
+					tuples.set(i, Pair.of(tuples.get(i).getLeft(), copy));
+				}
+			}
+		}
+	}
+
+	private static void replaceNode(List<FSTNode> nodes, FSTNode node, FSTNode replacement) {
+		for (int i = 0; i < nodes.size(); i++) {
+			if (nodes.get(i) == node) {
+				nodes.set(i, replacement);
+			}
+		}
+	}
+
+	/**
+	 * Returns the body of a terminal without whitespaces, normalizing it again
+	 * only when the body changes. Handlers compare bodies through it in their loops.
+	 * @param terminal
+	 * @return normalized body of the terminal
+	 */
+	public String getNormalizedBody(FSTTerminal terminal) {
+		if (normalizedBodies == null) {
+			normalizedBodies = new NormalizedText.TerminalCache();
+		}
+		return normalizedBodies.getNormalizedBody(terminal);
+	}
+
+	/**
+	 * Returns the identifiers of the body of a terminal, collecting them again
+	 * only when the body changes. Handlers check references to other elements through it.
+	 * @param terminal
+	 * @return identifiers of the body of the terminal
+	 */
+	public IdentifierIndex getIdentifiers(FSTTerminal terminal) {
+		if (identifierIndexes == null) {
+			identifierIndexes = new IdentityHashMap<FSTTerminal, IdentifierIndex>();
+		}
+		String body = terminal.getBody();
+		IdentifierIndex identifiers = identifierIndexes.get(terminal);
+		if (identifiers == null || !identifiers.isOf(body)) {
+			identifiers = IdentifierIndex.of(body);
+			identifierIndexes.put(terminal, identifiers);
+		}
+		return identifiers;
+	}
+
+	/**
+	 * Returns the instance creations of the base version, compiling it in the first call.
+	 * @return instance creations of each type in the base version
+	 */
+	public InstanceCreationIndex getBaseInstanceCreations() {
+		if (baseInstanceCreations == null) {
+			baseInstanceCreations = new InstanceCreationIndex(baseContent);
+		}
+		return baseInstanceCreations;
+	}
+
+	/**
+	 * Returns the instance creations of the left version, compiling it in the first call.
+	 * @return instance creations of each type in the left version
+	 */
+	public InstanceCreationIndex getLeftInstanceCreations() {
+		if (leftInstanceCreations == null) {
+			leftInstanceCreations = new InstanceCreationIndex(leftContent);
+		}
+		return leftInstanceCreations;
+	}
+
+	/**
+	 * Returns the instance creations of the right version, compiling it in the first call.
+	 * @return instance creations of each type in the right version
+	 */
+	public InstanceCreationIndex getRightInstanceCreations() {
+		if (rightInstanceCreations == null) {
+			rightInstanceCreations = new InstanceCreationIndex(rightContent);
+		}
+		return rightInstanceCreations;
+	}
 }
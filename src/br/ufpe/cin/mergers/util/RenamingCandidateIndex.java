@@ -0,0 +1,229 @@
+package br.ufpe.cin.mergers.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import br.ufpe.cin.files.NormalizedText;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Index of the declarations added by a revision, built once per merge to find the declarations
+ * that possibly rename another one, instead of comparing every pair of declarations.
+ * Declarations are indexed by their body without signature, for exact matches, and by a
+ * <i>MinHash</i> sketch of their token shingles, split in bands for <i>locality-sensitive hashing</i>,
+ * for approximate matches. The sketches only order the candidates for the exact similarity comparison,
+ * the ones sharing a band with the queried content first, so the comparisons of the others can be bounded
+ * by the similarity already found. No declaration is left out, as slightly edited small declarations
+ * may share no band. When few declarations are indexed, they are not ordered.
+ */
+public class RenamingCandidateIndex {
+
+	//a sketch of 64 hashes in 16 bands of 4 rows favours candidates sharing about half of their shingles
+	private static final int SHINGLE_SIZE = 3;
+	private static final int BANDS = 16;
+	private static final int ROWS = 4;
+	private static final int HASHES = BANDS * ROWS;
+
+	private static final int MIN_SKETCHED_NODES = 16;
+
+	private static final long[] SEEDS = new long[HASHES];
+	static {
+		long seed = 0x2545F4914F6CDD1DL;
+		for (int i = 0; i < HASHES; i++) {
+			seed = mix(seed + i);
+			SEEDS[i] = seed;
+		}
+	}
+
+	private final List<FSTNode> nodes;
+	private Map<String, List<FSTNode>> nodesByBody; //built on demand
+	private long[][] sketches; //built on demand
+	private List<Map<Long, List<Integer>>> buckets; //built on demand
+
+	/**
+	 * @param nodes declarations to index, the terminals among them are indexed
+	 */
+	public RenamingCandidateIndex(List<FSTNode> nodes) {
+		List<FSTNode> terminals = new ArrayList<FSTNode>();
+		for (FSTNode node : nodes) {
+			if (node instanceof FSTTerminal) {
+				terminals.add(node);
+			}
+		}
+		this.nodes = Collections.unmodifiableList(terminals);
+	}
+
+	/**
+	 * @return the indexed declarations, in the given order
+	 */
+	public List<FSTNode> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @param body content of a declaration
+	 * @return the indexed declarations with the same body, ignoring spacing and signature, in the given order
+	 */
+	public List<FSTNode> getNodesWithSameBody(String body) {
+		if (nodesByBody == null) {
+			nodesByBody = new HashMap<String, List<FSTNode>>();
+			for (FSTNode node : nodes) {
+				nodesByBody.computeIfAbsent(removeSignature(((FSTTerminal) node).getBody()), key -> new ArrayList<FSTNode>()).add(node);
+			}
+		}
+		List<FSTNode> sameBody = nodesByBody.get(removeSignature(body));
+		return (sameBody != null) ? sameBody : Collections.<FSTNode>emptyList();
+	}
+
+	/**
+	 * @param content of a declaration
+	 * @return all the indexed declarations, the ones estimated as the most similar to the given content first
+	 */
+	public List<FSTNode> getSimilarCandidates(String content) {
+		if (nodes.size() <= MIN_SKETCHED_NODES) {
+			return nodes;
+		}
+		if (sketches == null) {
+			buildSketches();
+		}
+		long[] sketch = sketch(content);
+		Set<Integer> candidates = new LinkedHashSet<Integer>();
+		for (int band = 0; band < BANDS; band++) {
+			List<Integer> bucket = buckets.get(band).get(bandHash(sketch, band));
+			if (bucket != null) {
+				candidates.addAll(bucket);
+			}
+		}
+
+		//candidates by the estimated similarity of their shingles, followed by the other declarations
+		List<Integer> ranked = new ArrayList<Integer>(candidates);
+		int[] matches = new int[nodes.size()];
+		for (int candidate : ranked) {
+			matches[candidate] = matchingHashes(sketch, sketches[candidate]);
+		}
+		ranked.sort((c1, c2) -> Integer.compare(matches[c2], matches[c1]));
+		List<FSTNode> similar = new ArrayList<FSTNode>(nodes.size());
+		for (int candidate : ranked) {
+			similar.add(nodes.get(candidate));
+		}
+		for (int i = 0; i < nodes.size(); i++) {
+			if (!candidates.contains(i)) {
+				similar.add(nodes.get(i));
+			}
+		}
+		return similar;
+	}
+
+	/**
+	 * @param body content of a declaration
+	 * @return the body in a single line without spacing, and without the signature
+	 */
+	public static String removeSignature(String body) {
+		String normalized = NormalizedText.removeWhitespaces(body);
+		//everything up to the last opening brace of the line, as the expression "^.*(?=(\\{))" does
+		int lineEnd = 0;
+		while (lineEnd < normalized.length() && !isLineTerminator(normalized.charAt(lineEnd))) {
+			lineEnd++;
+		}
+		int brace = normalized.lastIndexOf('{', lineEnd);
+		return (brace > 0) ? normalized.substring(brace) : normalized;
+	}
+
+	private static boolean isLineTerminator(char c) {
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+
+	private void buildSketches() {
+		sketches = new long[nodes.size()][];
+		buckets = new ArrayList<Map<Long, List<Integer>>>(BANDS);
+		for (int band = 0; band < BANDS; band++) {
+			buckets.add(new HashMap<Long, List<Integer>>());
+		}
+		for (int i = 0; i < nodes.size(); i++) {
+			sketches[i] = sketch(((FSTTerminal) nodes.get(i)).getBody());
+			for (int band = 0; band < BANDS; band++) {
+				buckets.get(band).computeIfAbsent(bandHash(sketches[i], band), key -> new ArrayList<Integer>()).add(i);
+			}
+		}
+	}
+
+	/**
+	 * Computes the <i>MinHash</i> sketch of the shingles of consecutive tokens of the given content.
+	 */
+	private static long[] sketch(String content) {
+		List<Long> tokens = tokenize(content);
+		long[] sketch = new long[HASHES];
+		Arrays.fill(sketch, Long.MAX_VALUE);
+		int shingles = Math.max(1, tokens.size() - SHINGLE_SIZE + 1);
+		for (int s = 0; s < shingles; s++) {
+			long shingle = 0;
+			for (int t = s; t < Math.min(s + SHINGLE_SIZE, tokens.size()); t++) {
+				shingle = shingle * 31 + tokens.get(t);
+			}
+			for (int i = 0; i < HASHES; i++) {
+				long hash = mix(shingle ^ SEEDS[i]);
+				if (hash < sketch[i]) {
+					sketch[i] = hash;
+				}
+			}
+		}
+		return sketch;
+	}
+
+	/**
+	 * Splits the content in identifiers, literals and symbols, ignoring spacing.
+	 * @return the hashes of the tokens
+	 */
+	private static List<Long> tokenize(String content) {
+		List<Long> tokens = new ArrayList<Long>();
+		int i = 0;
+		while (i < content.length()) {
+			char c = content.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (Character.isJavaIdentifierPart(c)) {
+				long hash = 0;
+				while (i < content.length() && Character.isJavaIdentifierPart(content.charAt(i))) {
+					hash = hash * 31 + content.charAt(i++);
+				}
+				tokens.add(hash);
+			} else {
+				tokens.add((long) c);
+				i++;
+			}
+		}
+		return tokens;
+	}
+
+	private static long bandHash(long[] sketch, int band) {
+		long hash = band;
+		for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+			hash = mix(hash * 31 + sketch[row]);
+		}
+		return hash;
+	}
+
+	private static int matchingHashes(long[] first, long[] second) {
+		int matches = 0;
+		for (int i = 0; i < HASHES; i++) {
+			if (first[i] == second[i]) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	//finalizer of the SplitMix64 generator, spreading the bits of the value
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+}
@@ -0,0 +1,341 @@
+package br.ufpe.cin.mergers.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import br.ufpe.cin.files.FilesManager;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Lookup index of the terminal nodes of a tree by their content, ignoring spacing,
+ * and of the identifiers (<i>Id</i> nodes) by their name. It replaces the traversals of
+ * {@link FilesManager#findAndReplaceASTNodeContent(FSTNode, String, String)},
+ * {@link FilesManager#findAndDeleteASTNode(FSTNode, String)} and
+ * {@link FilesManager#findNodeByID(FSTNode, String)}, which normalize the content of
+ * every node visited and are called by the handlers inside nested loops.
+ * The tree must be changed through this index to keep it up to date.
+ * When several nodes match, the first one in the tree is returned, as the traversals do.
+ * Subtrees shared with other trees, instead of copied into the tree, are copied by the index
+ * before they are changed, so the other trees are not changed with them.
+ */
+public class TreeIndex {
+
+	private final FSTNode root;
+
+	//roots of the subtrees shared with other trees, and the copies of their nodes once changed
+	private final Set<FSTNode> sharedSubtrees;
+	private final Map<FSTNode, FSTNode> copies = new IdentityHashMap<FSTNode, FSTNode>();
+	private final Consumer<FSTNode> onCopy;
+
+	private final Map<String, List<FSTTerminal>> terminalsByContent = new HashMap<String, List<FSTTerminal>>();
+	private final Map<String, List<FSTTerminal>> identifiersByName = new HashMap<String, List<FSTTerminal>>();
+
+	//content under which each terminal is indexed
+	private final Map<FSTTerminal, String> indexedContent = new IdentityHashMap<FSTTerminal, String>();
+
+	/**
+	 * Builds the index of the current nodes of the given tree.
+	 * @param root
+	 */
+	public TreeIndex(FSTNode root) {
+		this(root, Collections.<FSTNode>emptySet());
+	}
+
+	/**
+	 * Builds the index of the current nodes of the given tree, which shares the given subtrees with other trees.
+	 * @param root
+	 * @param sharedSubtrees roots of the shared subtrees, which are removed from it once copied
+	 */
+	public TreeIndex(FSTNode root, Set<FSTNode> sharedSubtrees) {
+		this(root, sharedSubtrees, sharedRoot -> {});
+	}
+
+	/**
+	 * Builds the index of the current nodes of the given tree, which shares the given subtrees with other trees.
+	 * @param root
+	 * @param sharedSubtrees roots of the shared subtrees, which are removed from it once copied
+	 * @param onCopy called with the root of each shared subtree once it is replaced by its copy
+	 */
+	public TreeIndex(FSTNode root, Set<FSTNode> sharedSubtrees, Consumer<FSTNode> onCopy) {
+		this.root = root;
+		this.sharedSubtrees = sharedSubtrees;
+		this.onCopy = onCopy;
+		add(root);
+	}
+
+	/**
+	 * @return the indexed tree.
+	 */
+	public FSTNode getRoot() {
+		return root;
+	}
+
+	/**
+	 * Returns the copy of a node of a shared subtree, or null if the subtree was not copied.
+	 * @param node
+	 */
+	public FSTNode getCopy(FSTNode node) {
+		return copies.get(node);
+	}
+
+	/**
+	 * Finds a node with the content in the first parameter,
+	 * and replace the content with the content in the second parameter.
+	 * @param oldContent
+	 * @param newContent
+	 * @return if the replacement was successful
+	 */
+	public boolean findAndReplaceASTNodeContent(String oldContent, String newContent) {
+		FSTTerminal terminal = first(terminalsByContent.get(FilesManager.getStringContentIntoSingleLineNoSpacing(oldContent)));
+		if (terminal != null) {
+			setBody(terminal, newContent);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Finds a node with the given content and deletes it from the tree.
+	 * @param content
+	 * @return if the deletion was successful
+	 */
+	public boolean findAndDeleteASTNode(String content) {
+		FSTTerminal terminal = first(terminalsByContent.get(FilesManager.getStringContentIntoSingleLineNoSpacing(content)));
+		if (terminal != null) {
+			removeChild(terminal.getParent(), terminal);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the identifier node with the given <i>id</i>, or null if there isn't.
+	 * @param id
+	 */
+	public FSTNode findNodeByID(String id) {
+		return first(identifiersByName.get(id));
+	}
+
+	/**
+	 * Changes the content of a terminal node of the tree.
+	 * @param terminal
+	 * @param body
+	 */
+	public void setBody(FSTTerminal terminal, String body) {
+		terminal = (FSTTerminal) unshare(terminal);
+		remove(terminal);
+		terminal.setBody(body);
+		add(terminal);
+	}
+
+	/**
+	 * Adds a node, and its descendants, to the tree.
+	 * @param parent
+	 * @param child
+	 * @param index position of the child
+	 */
+	public void addChild(FSTNonTerminal parent, FSTNode child, int index) {
+		parent = (FSTNonTerminal) unshare(parent);
+		parent.addChild(child, index);
+		adopt(child);
+		add(child);
+	}
+
+	/**
+	 * Removes a node, and its descendants, from the tree. As in {@link FSTNonTerminal#removeChild(FSTNode)},
+	 * the first child equal to the given node is removed.
+	 * @param parent
+	 * @param child
+	 */
+	public void removeChild(FSTNonTerminal parent, FSTNode child) {
+		parent = (FSTNonTerminal) unshare(parent);
+		int index = parent.getChildren().indexOf(child);
+		if (index >= 0) {
+			remove(parent.getChildren().get(index));
+			parent.removeChild(child);
+		}
+	}
+
+	/**
+	 * Copies the shared subtree the given node is in, if it was not copied yet, so it can be changed.
+	 * @return the copy of the node, or the node itself if it is not shared
+	 */
+	private FSTNode unshare(FSTNode node) {
+		FSTNode copy = copies.get(node);
+		if (copy != null) {
+			return copy;
+		}
+		FSTNode sharedRoot = null;
+		for (FSTNode current = node; current != null && !sharedSubtrees.isEmpty(); current = current.getParent()) {
+			if (sharedSubtrees.contains(current)) {
+				sharedRoot = current; //the outermost one
+			}
+		}
+		if (sharedRoot == null) {
+			return node;
+		}
+		copySubtree(sharedRoot);
+		return copies.get(node);
+	}
+
+	/**
+	 * Replaces a shared subtree by a copy of it, in the same position.
+	 */
+	private void copySubtree(FSTNode sharedRoot) {
+		FSTNode copy = sharedRoot.getDeepClone();
+		copy.index = sharedRoot.index;
+		mapCopies(sharedRoot, copy);
+		sharedSubtrees.remove(sharedRoot);
+
+		FSTNonTerminal parent = sharedRoot.getParent();
+		if (parent != null) {
+			ListIterator<FSTNode> siblings = parent.getChildren().listIterator();
+			while (siblings.hasNext()) {
+				if (siblings.next() == sharedRoot) {
+					remove(sharedRoot);
+					siblings.set(copy);
+					copy.setParent(parent);
+					add(copy);
+					break;
+				}
+			}
+		}
+		onCopy.accept(sharedRoot);
+	}
+
+	private void mapCopies(FSTNode node, FSTNode copy) {
+		copies.put(node, copy);
+		if (node instanceof FSTNonTerminal) {
+			Iterator<FSTNode> copiedChildren = ((FSTNonTerminal) copy).getChildren().iterator();
+			for (FSTNode child : ((FSTNonTerminal) node).getChildren()) {
+				mapCopies(child, copiedChildren.next());
+			}
+		}
+	}
+
+	/**
+	 * Sets the parent of the descendants of a node added to the tree, as some of them
+	 * may be shared with the subtree the node replaces.
+	 */
+	private static void adopt(FSTNode node) {
+		if (node instanceof FSTNonTerminal) {
+			for (FSTNode child : ((FSTNonTerminal) node).getChildren()) {
+				child.setParent((FSTNonTerminal) node);
+				adopt(child);
+			}
+		}
+	}
+
+	private void add(FSTNode node) {
+		if (node instanceof FSTNonTerminal) {
+			for (FSTNode child : ((FSTNonTerminal) node).getChildren()) {
+				add(child);
+			}
+		} else if (node instanceof FSTTerminal) {
+			FSTTerminal terminal = (FSTTerminal) node;
+			String content = FilesManager.getStringContentIntoSingleLineNoSpacing(terminal.getBody());
+			indexedContent.put(terminal, content);
+			bucket(terminalsByContent, content).add(terminal);
+			if (terminal.getType().equals("Id")) {
+				bucket(identifiersByName, terminal.getBody()).add(terminal);
+			}
+		}
+	}
+
+	private void remove(FSTNode node) {
+		if (node instanceof FSTNonTerminal) {
+			for (FSTNode child : ((FSTNonTerminal) node).getChildren()) {
+				remove(child);
+			}
+		} else if (node instanceof FSTTerminal) {
+			FSTTerminal terminal = (FSTTerminal) node;
+			String content = indexedContent.remove(terminal);
+			if (content != null) {
+				removeFromBucket(terminalsByContent, content, terminal);
+				if (terminal.getType().equals("Id")) {
+					removeFromBucket(identifiersByName, terminal.getBody(), terminal);
+				}
+			}
+		}
+	}
+
+	private static List<FSTTerminal> bucket(Map<String, List<FSTTerminal>> map, String key) {
+		List<FSTTerminal> bucket = map.get(key);
+		if (bucket == null) {
+			bucket = new ArrayList<FSTTerminal>(1);
+			map.put(key, bucket);
+		}
+		return bucket;
+	}
+
+	private static void removeFromBucket(Map<String, List<FSTTerminal>> map, String key, FSTTerminal terminal) {
+		List<FSTTerminal> bucket = map.get(key);
+		if (bucket != null) {
+			for (int i = 0; i < bucket.size(); i++) {
+				if (bucket.get(i) == terminal) {
+					bucket.remove(i);
+					break;
+				}
+			}
+			if (bucket.isEmpty()) {
+				map.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * @return the node that comes first in the tree, or null if there isn't.
+	 */
+	private static FSTTerminal first(List<FSTTerminal> candidates) {
+		if (candidates == null || candidates.isEmpty()) {
+			return null;
+		}
+		FSTTerminal first = candidates.get(0);
+		for (int i = 1; i < candidates.size(); i++) { //nodes with the same content are rare
+			if (comesBefore(candidates.get(i), first)) {
+				first = candidates.get(i);
+			}
+		}
+		return first;
+	}
+
+	private static boolean comesBefore(FSTNode a, FSTNode b) {
+		List<Integer> pathA = pathOf(a);
+		List<Integer> pathB = pathOf(b);
+		for (int i = 0; i < pathA.size() && i < pathB.size(); i++) {
+			int comparison = Integer.compare(pathA.get(i), pathB.get(i));
+			if (comparison != 0) {
+				return comparison < 0;
+			}
+		}
+		return pathA.size() < pathB.size();
+	}
+
+	/**
+	 * @return the positions of the node and its ancestors among their siblings, from the root.
+	 */
+	private static List<Integer> pathOf(FSTNode node) {
+		List<Integer> path = new ArrayList<Integer>();
+		for (FSTNode current = node; current.getParent() != null; current = current.getParent()) {
+			int position = 0;
+			for (FSTNode sibling : current.getParent().getChildren()) {
+				if (sibling == current) {
+					break;
+				}
+				position++;
+			}
+			path.add(0, position);
+		}
+		return path;
+	}
+}
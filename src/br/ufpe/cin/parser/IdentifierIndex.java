@@ -0,0 +1,145 @@
+package br.ufpe.cin.parser;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import br.ufpe.cin.generated.Java18MergeParserConstants;
+import br.ufpe.cin.generated.Java18MergeParserTokenManager;
+import cide.gparser.OffsetCharStream;
+import cide.gparser.Token;
+import cide.gparser.TokenMgrError;
+
+/**
+ * Set of the identifiers of a piece of code, as split by the lexer of {@link JParser}, for checking
+ * if the code refers to a given element by lookup instead of searching its text. Comments and literals
+ * are not identifiers, so references inside them are not found. The identifiers are kept sorted and
+ * without duplicates, and the set is immutable once built.
+ */
+public final class IdentifierIndex {
+
+	private static final String[] NONE = new String[0];
+
+	private final String source;
+	private final String[] identifiers;
+	private final String[] unqualifiedIdentifiers; //not preceded by a dot, such as in p.identifier
+
+	private IdentifierIndex(String source, List<String> identifiers, List<String> unqualifiedIdentifiers) {
+		this.source = source;
+		this.identifiers = sortedWithoutDuplicates(identifiers);
+		this.unqualifiedIdentifiers = sortedWithoutDuplicates(unqualifiedIdentifiers);
+	}
+
+	/**
+	 * Builds the set of identifiers of the given code. Code that the lexer does not accept,
+	 * such as a fragment starting inside a comment, is split in words instead.
+	 * @param code
+	 * @return the identifiers of the code
+	 */
+	public static IdentifierIndex of(String code) {
+		List<String> identifiers = new ArrayList<String>();
+		List<String> unqualifiedIdentifiers = new ArrayList<String>();
+		collect(code, identifiers, unqualifiedIdentifiers);
+		return new IdentifierIndex(code, identifiers, unqualifiedIdentifiers);
+	}
+
+	/**
+	 * Builds the set of identifiers of the given pieces of code, each one split separately.
+	 * @param codes
+	 * @return the identifiers of all the pieces of code
+	 */
+	public static IdentifierIndex of(List<String> codes) {
+		List<String> identifiers = new ArrayList<String>();
+		List<String> unqualifiedIdentifiers = new ArrayList<String>();
+		for (String code : codes) {
+			collect(code, identifiers, unqualifiedIdentifiers);
+		}
+		return new IdentifierIndex(null, identifiers, unqualifiedIdentifiers);
+	}
+
+	private static void collect(String code, List<String> identifiers, List<String> unqualifiedIdentifiers) {
+		int collected = identifiers.size();
+		int collectedUnqualified = unqualifiedIdentifiers.size();
+		try {
+			Java18MergeParserTokenManager lexer = new Java18MergeParserTokenManager(new OffsetCharStream(new StringReader(code)));
+			int previousKind = Java18MergeParserConstants.EOF;
+			for (Token token = lexer.getNextToken(); token.kind != Java18MergeParserConstants.EOF; token = lexer.getNextToken()) {
+				if (token.kind == Java18MergeParserConstants.IDENTIFIER) {
+					identifiers.add(token.image);
+					if (previousKind != Java18MergeParserConstants.DOT) {
+						unqualifiedIdentifiers.add(token.image);
+					}
+				}
+				previousKind = token.kind;
+			}
+		} catch (TokenMgrError e) {
+			identifiers.subList(collected, identifiers.size()).clear();
+			unqualifiedIdentifiers.subList(collectedUnqualified, unqualifiedIdentifiers.size()).clear();
+			splitInWords(code, identifiers, unqualifiedIdentifiers);
+		}
+	}
+
+	/**
+	 * @param identifier
+	 * @return true if the code has the given identifier
+	 */
+	public boolean contains(String identifier) {
+		return Arrays.binarySearch(identifiers, identifier) >= 0;
+	}
+
+	/**
+	 * @param identifier
+	 * @return true if the code has the given identifier not preceded by a dot, such as in <i>p.identifier</i>
+	 */
+	public boolean containsUnqualified(String identifier) {
+		return Arrays.binarySearch(unqualifiedIdentifiers, identifier) >= 0;
+	}
+
+	/**
+	 * @param code
+	 * @return true if this is the set of identifiers of the given code instance
+	 */
+	public boolean isOf(String code) {
+		return source == code;
+	}
+
+	private static void splitInWords(String code, List<String> identifiers, List<String> unqualifiedIdentifiers) {
+		int i = 0;
+		while (i < code.length()) {
+			if (Character.isJavaIdentifierStart(code.charAt(i))) {
+				int start = i;
+				while (i < code.length() && Character.isJavaIdentifierPart(code.charAt(i))) {
+					i++;
+				}
+				String word = code.substring(start, i);
+				identifiers.add(word);
+				if (start == 0 || code.charAt(start - 1) != '.') {
+					unqualifiedIdentifiers.add(word);
+				}
+			} else if (Character.isJavaIdentifierPart(code.charAt(i))) {
+				//digits and other characters that do not start an identifier, with the rest of their word
+				while (i < code.length() && Character.isJavaIdentifierPart(code.charAt(i))) {
+					i++;
+				}
+			} else {
+				i++;
+			}
+		}
+	}
+
+	private static String[] sortedWithoutDuplicates(List<String> words) {
+		if (words.isEmpty()) {
+			return NONE;
+		}
+		String[] sorted = words.toArray(new String[words.size()]);
+		Arrays.sort(sorted);
+		int size = 1;
+		for (int i = 1; i < sorted.length; i++) {
+			if (!sorted[i].equals(sorted[size - 1])) {
+				sorted[size++] = sorted[i];
+			}
+		}
+		return (size == sorted.length) ? sorted : Arrays.copyOf(sorted, size);
+	}
+}
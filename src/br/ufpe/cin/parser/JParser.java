@@ -1,17 +1,21 @@
 package br.ufpe.cin.parser;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import br.ufpe.cin.app.JFSTMerge;
-import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.files.SourceSnapshot;
 import br.ufpe.cin.generated.Java18MergeParser;
 import cide.gparser.OffsetCharStream;
 import cide.gparser.ParseException;
 import cide.gparser.TokenMgrError;
+import de.ovgu.cide.fstgen.ast.AbstractFSTParser;
 import de.ovgu.cide.fstgen.ast.FSTFeatureNode;
 import de.ovgu.cide.fstgen.ast.FSTNode;
 import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
@@ -25,6 +29,41 @@ import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
  */
 public class JParser {
 
+	//node types named with unique generated names ({AUTO} in the grammar)
+	static final List<String> AUTO_NAMED_TYPES = Arrays.asList("EmptyTypeDecl", "InitializerDecl", "EmptyDecl", "AnnoationEmptyDecl");
+
+	//the featurehouse parser generates these names with a static counter that is not thread-safe,
+	//so files parsed in parallel could get the same names, and are renamed with this one instead
+	private static final AtomicInteger uniqueId = new AtomicInteger();
+
+	static {
+		//the featurehouse parser memorizes every created node in a static list that nobody reads,
+		//which leaks memory across merges and is not safe when files are parsed in parallel
+		AbstractFSTParser.fstnodes = new ArrayList<FSTNode>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean add(FSTNode node) {
+				return true;
+			}
+		};
+	}
+
+	//messages announcing the parsed files, which are printed right away when there is none
+	private final StringBuilder console;
+
+	public JParser() {
+		this(null);
+	}
+
+	/**
+	 * @param console where the messages announcing the parsed files are kept, to be printed later.
+	 * Can be <b>null</b>, in this case, the messages are printed right away.
+	 */
+	public JParser(StringBuilder console) {
+		this.console = console;
+	}
+
 	/**
 	 * Parses a given .java file
 	 * @param javaFile
@@ -34,29 +73,72 @@ public class JParser {
 	 * @throws UnsupportedEncodingException 
 	 */
 	public FSTNode parse(File javaFile) throws FileNotFoundException, UnsupportedEncodingException, ParseException, TokenMgrError  {
+		return parse(SourceSnapshot.of(javaFile));
+	}
+
+	/**
+	 * Parses the already read content of a .java file
+	 * @param javaSource snapshot of the file
+	 * @return ast representing the java file
+	 * @throws ParseException 
+	 * @throws FileNotFoundException 
+	 */
+	public FSTNode parse(SourceSnapshot javaSource) throws FileNotFoundException, ParseException, TokenMgrError  {
 		FSTFeatureNode generatedAst = new FSTFeatureNode("");//root node
-		if(isValidFile(javaFile)){
+		File javaFile = javaSource.getFile();
+		if(isValidFile(javaSource)){
 			if(!JFSTMerge.isGit){
-				System.out.println("Parsing: " + javaFile.getAbsolutePath());
+				String message = "Parsing: " + javaFile.getAbsolutePath();
+				if (console != null) {
+					console.append(message).append(System.lineSeparator());
+				} else {
+					System.out.println(message);
+				}
+			}
+			FSTNode root = (JFSTMerge.useParsedTreeCache) ? ParsedTreeCache.get(javaSource) : null;
+			if (root == null) {
+				Java18MergeParser parser = new Java18MergeParser(new OffsetCharStream(new StringReader(javaSource.getChars())));
+				parser.CompilationUnit(false);
+				root = parser.getRoot();
+				renameAutoNamedNodes(root);
+				if (JFSTMerge.useParsedTreeCache) {
+					ParsedTreeCache.put(javaSource, root);
+				}
 			}
-			Java18MergeParser parser = new Java18MergeParser(new OffsetCharStream(new InputStreamReader(new FileInputStream(javaFile),"UTF8")));
-			parser.CompilationUnit(false);
 			generatedAst.addChild(new FSTNonTerminal("Java-File", javaFile.getName()));
-			generatedAst.addChild(parser.getRoot());
+			generatedAst.addChild(root);
 		}
 		return generatedAst;
 	}
 
+	/**
+	 * @return a new name for a node of the types named with generated names, distinct from every other one
+	 */
+	static String newAutoName() {
+		return "auto-" + uniqueId.incrementAndGet();
+	}
+
+	private static void renameAutoNamedNodes(FSTNode node) {
+		if (node instanceof FSTNonTerminal) {
+			for (FSTNode child : ((FSTNonTerminal) node).getChildren()) {
+				renameAutoNamedNodes(child);
+			}
+		} else if (AUTO_NAMED_TYPES.contains(node.getType())) {
+			node.setName(newAutoName());
+		}
+	}
+
 	/**
 	 * Checks if the given file is adequate for parsing.
-	 * @param file to be parsed
+	 * @param source of the file to be parsed
 	 * @return true if the file is appropriated, or false
 	 * @throws FileNotFoundException 
 	 * @throws ParseException 
 	 */
-	private boolean isValidFile(File file) throws FileNotFoundException, ParseException 
+	private boolean isValidFile(SourceSnapshot source) throws FileNotFoundException, ParseException 
 	{
-		if(FilesManager.readFileContent(file).isEmpty()){
+		File file = source.getFile();
+		if(source.isEmpty()){
 			throw new FileNotFoundException();
 		} else if(file != null && (isJavaFile(file) || JFSTMerge.isGit)){
 			return true;
@@ -0,0 +1,322 @@
+package br.ufpe.cin.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import br.ufpe.cin.files.SourceSnapshot;
+import br.ufpe.cin.generated.Java18MergeParser;
+import br.ufpe.cin.generated.Java18MergeParserTokenManager;
+import br.ufpe.cin.logging.LoggerFactory;
+import de.ovgu.cide.fstgen.ast.AbstractFSTParser;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * On-disk cache of the trees generated by the parser, addressed by the SHA-256 of the parsed content
+ * and of the classes of the parser, so the entries of other versions of the grammar or of the tool are not used.
+ * The same files are parsed again and again across merge scenarios and the commits of a rebase,
+ * so cached trees are rebuilt from a compact binary form instead of running the parser.
+ * Entries are kept in the <i>$HOME/.jfstmerge/cache</i> folder and the least recently used
+ * are evicted when the folder exceeds its size limit. The cache is enabled with the <i>-p true</i> option.
+ */
+public final class ParsedTreeCache {
+
+	//log of activities
+	private static final Logger LOGGER = LoggerFactory.make();
+
+	//must change whenever the format of the entries change, changes of the parser are detected by the key of the entries
+	private static final int FORMAT_VERSION = 2;
+
+	//classes generating the trees, whose content is part of the key of the entries
+	private static final List<Class<?>> PARSER_CLASSES = Arrays.<Class<?>>asList(Java18MergeParser.class, Java18MergeParserTokenManager.class, AbstractFSTParser.class, JParser.class);
+
+	private static final String EXTENSION = ".fst";
+
+	private static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+	private static final byte NON_TERMINAL = 0;
+	private static final byte TERMINAL = 1;
+	private static final byte AUTO_NAMED_TERMINAL = 2;
+
+	private static File directory = new File(System.getProperty("user.home") + File.separator + ".jfstmerge" + File.separator + "cache");
+	private static long maxSize = DEFAULT_MAX_SIZE;
+
+	//estimated size of the cache folder, -1 until computed
+	private static final AtomicLong size = new AtomicLong(-1);
+
+	//digest of the format version and of the parser classes, null until computed
+	private static byte[] parserVersion;
+
+	/**
+	 * Changes the location and the size limit of the cache.
+	 * @param cacheDirectory
+	 * @param maxSizeInBytes
+	 */
+	public static synchronized void configure(File cacheDirectory, long maxSizeInBytes) {
+		directory = cacheDirectory;
+		maxSize = maxSizeInBytes;
+		size.set(-1);
+	}
+
+	/**
+	 * Returns a new tree equal to the one generated by the parser for the given content, if cached.
+	 * @param source parsed content
+	 * @return the root of the tree, or null in case of cache miss
+	 */
+	public static FSTNode get(SourceSnapshot source) {
+		File entry = entryOf(source);
+		if (!entry.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(entry.toPath()))))) {
+			if (in.readInt() != FORMAT_VERSION) {
+				throw new IOException("Outdated cache entry.");
+			}
+			FSTNode root = readNode(in, new ArrayList<String>());
+			entry.setLastModified(System.currentTimeMillis()); //least recently used entries are evicted first
+			return root;
+		} catch (IOException | RuntimeException e) { //corrupted or outdated entries are parsed again
+			entry.delete();
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the tree generated by the parser for the given content.
+	 * Must be called before the tree is modified by the merge.
+	 * @param source parsed content
+	 * @param root of the tree
+	 */
+	public static void put(SourceSnapshot source, FSTNode root) {
+		File entry = entryOf(source);
+		File temp = null;
+		try {
+			createDirectory();
+			temp = File.createTempFile("entry", ".tmp", directory);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp.toPath()))))) {
+				out.writeInt(FORMAT_VERSION);
+				writeNode(out, root, new HashMap<String, Integer>());
+			}
+			long length = temp.length();
+			//entries are complete when visible, even with concurrent merges
+			Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			if (size.get() < 0) {
+				size.set(computeSize());
+			} else {
+				size.addAndGet(length);
+			}
+			if (size.get() > maxSize) {
+				evict();
+			}
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "", e);
+		} finally {
+			if (temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
+	private static File entryOf(SourceSnapshot source) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(getParserVersion());
+			digest.update(source.getBytes());
+			StringBuilder name = new StringBuilder();
+			for (byte b : digest.digest()) {
+				name.append(String.format("%02x", b));
+			}
+			return new File(directory, name.append(EXTENSION).toString());
+		} catch (NoSuchAlgorithmException e) { //every java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Computes the digest of the format version and of the class files of the parser, once per execution.
+	 * The class files change with the grammar and with the versions of the tool and of featurehouse.
+	 */
+	private static synchronized byte[] getParserVersion() throws NoSuchAlgorithmException {
+		if (parserVersion == null) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(ByteBuffer.allocate(4).putInt(FORMAT_VERSION).array());
+			for (Class<?> parserClass : PARSER_CLASSES) {
+				try (InputStream in = parserClass.getResourceAsStream(parserClass.getSimpleName() + ".class")) {
+					byte[] buffer = new byte[8192];
+					for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+						digest.update(buffer, 0, read);
+					}
+				} catch (IOException | RuntimeException e) { //an unknown version never matches the entries of other executions
+					LOGGER.log(Level.WARNING, "", e);
+					digest.update(Long.toString(System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			parserVersion = digest.digest();
+		}
+		return parserVersion;
+	}
+
+	private static void createDirectory() throws IOException {
+		if (!directory.isDirectory()) {
+			directory.mkdirs();
+			try { //the cache holds the content of the merged files, so it is private to the user
+				Files.setPosixFilePermissions(directory.toPath(), PosixFilePermissions.fromString("rwx------"));
+			} catch (UnsupportedOperationException e) {
+				// non posix file systems, such as in windows
+			}
+		}
+	}
+
+	/**
+	 * Removes the least recently used entries until the cache uses 3/4 of its size limit.
+	 */
+	private static synchronized void evict() {
+		File[] entries = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+		if (entries == null) {
+			return;
+		}
+		long total = 0;
+		long[] lastUsed = new long[entries.length];
+		Integer[] order = new Integer[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			total += entries[i].length();
+			lastUsed[i] = entries[i].lastModified();
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingLong(i -> lastUsed[i]));
+		for (int i = 0; i < order.length && total > maxSize / 4 * 3; i++) {
+			long length = entries[order[i]].length();
+			if (entries[order[i]].delete()) {
+				total -= length;
+			}
+		}
+		size.set(total);
+	}
+
+	private static long computeSize() {
+		long total = 0;
+		File[] entries = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+		if (entries != null) {
+			for (File entry : entries) {
+				total += entry.length();
+			}
+		}
+		return total;
+	}
+
+	private static void writeNode(DataOutputStream out, FSTNode node, Map<String, Integer> strings) throws IOException {
+		if (node instanceof FSTNonTerminal) {
+			List<FSTNode> children = ((FSTNonTerminal) node).getChildren();
+			out.writeByte(NON_TERMINAL);
+			writeString(out, node.getType(), strings);
+			writeString(out, node.getName(), strings);
+			out.writeInt(children.size());
+			for (FSTNode child : children) {
+				writeNode(out, child, strings);
+			}
+		} else {
+			FSTTerminal terminal = (FSTTerminal) node;
+			out.writeByte(JParser.AUTO_NAMED_TYPES.contains(terminal.getType()) ? AUTO_NAMED_TERMINAL : TERMINAL);
+			writeString(out, terminal.getType(), strings);
+			writeString(out, terminal.getName(), strings);
+			writeString(out, terminal.getBody(), strings);
+			writeString(out, terminal.getSpecialTokenPrefix(), strings);
+			writeString(out, terminal.getCompositionMechanism(), strings);
+			writeString(out, terminal.getMergingMechanism(), strings);
+			writeString(out, terminal.getContractCompKey(), strings);
+			writeString(out, terminal.getOriginalFeatureName(), strings);
+			out.writeInt(terminal.beginLine);
+			out.writeInt(terminal.endLine);
+		}
+	}
+
+	private static FSTNode readNode(DataInputStream in, List<String> strings) throws IOException {
+		byte kind = in.readByte();
+		String type = readString(in, strings);
+		String name = readString(in, strings);
+		if (kind == NON_TERMINAL) {
+			int numberOfChildren = in.readInt();
+			List<FSTNode> children = new ArrayList<FSTNode>(numberOfChildren);
+			for (int i = 0; i < numberOfChildren; i++) {
+				children.add(readNode(in, strings));
+			}
+			return new FSTNonTerminal(type, name, children);
+		} else {
+			if (kind == AUTO_NAMED_TERMINAL) { //generated names must not be reused
+				name = JParser.newAutoName();
+			}
+			String body = readString(in, strings);
+			String prefix = readString(in, strings);
+			String composition = readString(in, strings);
+			String merging = readString(in, strings);
+			String contractCompKey = readString(in, strings);
+			String feature = readString(in, strings);
+			FSTTerminal terminal = new FSTTerminal(type, name, body, prefix, composition, merging, in.readInt(), in.readInt());
+			terminal.setBody(body);
+			terminal.setContractCompKey(contractCompKey);
+			terminal.setOriginalFeatureName(feature);
+			return terminal;
+		}
+	}
+
+	/**
+	 * Writes each distinct string once, repetitions are written as references to the first occurrence.
+	 */
+	private static void writeString(DataOutputStream out, String string, Map<String, Integer> strings) throws IOException {
+		if (string == null) {
+			out.writeInt(-1);
+			return;
+		}
+		Integer id = strings.get(string);
+		if (id != null) {
+			out.writeInt(id);
+		} else {
+			strings.put(string, strings.size());
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(strings.size() - 1);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream in, List<String> strings) throws IOException {
+		int id = in.readInt();
+		if (id == -1) {
+			return null;
+		} else if (id < strings.size()) {
+			return strings.get(id);
+		} else if (id == strings.size()) {
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			String string = new String(bytes, StandardCharsets.UTF_8);
+			strings.add(string);
+			return string;
+		} else {
+			throw new IOException("Corrupted cache entry.");
+		}
+	}
+}
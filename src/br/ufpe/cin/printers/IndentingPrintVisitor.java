@@ -0,0 +1,352 @@
+package br.ufpe.cin.printers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import br.ufpe.cin.generated.SimplePrintVisitor;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Printer of Java trees that indents the printed code in the same pass, instead of parsing the printed code again.
+ * The code between declarations is laid out by the printer, indented by the nesting of the bodies it is in.
+ * Declarations and their comments keep their original layout, indented again relatively to their nesting.
+ * Conflict markers are printed in their own lines, in the first column, so conflicting code is indented as well.
+ * The code is written line by line into the given output, so it can be streamed into a file instead of kept in memory.
+ */
+public class IndentingPrintVisitor extends SimplePrintVisitor {
+
+	private static final int TAB_WIDTH = 4;
+	private static final String NO_SPACE_AFTER = "{([@.";
+	private static final String NO_SPACE_BEFORE = "})];.,";
+
+	private final Appendable output;
+	private final StringBuilder line = new StringBuilder(); //current line, without its indentation
+	private String lineIndentation = "";
+	private int depth = 0; //of the bodies being printed
+	private boolean isLineBreakPending = false;
+	private boolean isSpacePending = false;
+	private boolean endsWithComment = false;
+	private boolean isLastLineBlank = true; //no blank lines at the beginning
+
+	/**
+	 * Printer of the code into memory, returned by {@link #getResult()}.
+	 */
+	public IndentingPrintVisitor() {
+		this(new StringBuilder());
+	}
+
+	/**
+	 * Printer of the code into the given output, such as a {@link java.io.Writer}.
+	 * Errors writing into it are thrown as {@link UncheckedIOException}.
+	 * @param output
+	 */
+	public IndentingPrintVisitor(Appendable output) {
+		this.output = output;
+	}
+
+	@Override
+	public boolean visit(FSTTerminal terminal) {
+		String prefix = (terminal.getSpecialTokenPrefix() != null) ? terminal.getSpecialTokenPrefix() : "";
+
+		//comments before the terminal, kept in the line of the previous code when they were in it
+		int newLines = 0;
+		int i = 0;
+		while (i < prefix.length()) {
+			char c = prefix.charAt(i);
+			if (c == '\n' || c == '\r') {
+				newLines++;
+				i += (c == '\r' && i + 1 < prefix.length() && prefix.charAt(i + 1) == '\n') ? 2 : 1;
+			} else if (Character.isWhitespace(c)) {
+				i++;
+			} else {
+				int end = commentEnd(prefix, i);
+				boolean isInline = newLines == 0 && line.length() > 0;
+				if (!isInline) {
+					startLine(newLines > 1);
+				}
+				printText(prefix.substring(i, end), columnOf(prefix, i), isInline);
+				endsWithComment = true;
+				if (prefix.startsWith("//", i)) {
+					isLineBreakPending = true;
+				}
+				newLines = 0;
+				i = end;
+			}
+		}
+
+		String body = terminal.getBody();
+		if (body.trim().isEmpty()) {
+			return false;
+		}
+		//declarations start new lines, and the parts of a declaration split in terminals are joined
+		boolean isOnNewLine = newLines > 0;
+		boolean isLineBreak = line.length() == 0 || isLineBreakPending || (isOnNewLine && (endsWithComment || ";{}".indexOf(lastChar()) >= 0));
+		if (isLineBreak) {
+			startLine(newLines > 1);
+		}
+		printText(body, isOnNewLine ? columnOf(prefix, prefix.length()) : -1, !isLineBreak && !prefix.isEmpty() && needsSpace(body.trim()));
+		return false;
+	}
+
+	@Override
+	protected void printToken(String token) {
+		if (token.equals("}")) {
+			depth = Math.max(0, depth - 1);
+			if (line.length() > 0 && lastChar() != '{') {
+				isLineBreakPending = true;
+			}
+		}
+		if (isLineBreakPending) {
+			flushLine();
+		}
+		appendCode(token, needsSpace(token));
+		if (token.equals("{")) {
+			depth++;
+		}
+	}
+
+	@Override
+	protected void hintNewLine() {
+		if (line.length() > 0) {
+			isLineBreakPending = true;
+		}
+	}
+
+	@Override
+	protected void hintSingleSpace() {
+		isSpacePending = true;
+	}
+
+	//the indentation follows the braces printed, which are the ones the hints surround
+	@Override
+	protected void hintIncIndent() {
+	}
+
+	@Override
+	protected void hintDecIndent() {
+	}
+
+	/**
+	 * Writes the last line printed into the output.
+	 */
+	public void flush() {
+		flushLine();
+	}
+
+	/**
+	 * @return the printed code, when printed into memory.
+	 */
+	@Override
+	public String getResult() {
+		flushLine();
+		return output.toString();
+	}
+
+	/**
+	 * Prints code or comments, continuing the current line with the first line of the text.
+	 * The next lines are indented relatively to the given column of the first line,
+	 * or to the least indented of them when the column is unknown. The conflicting contents
+	 * whose first line lost its indentation, as the bodies of declarations, are indented relatively
+	 * to their other lines.
+	 */
+	private void printText(String text, int column, boolean space) {
+		List<String> lines = splitLines(text);
+		int[] bases = new int[lines.size()];
+		int base = (column >= 0) ? column : Integer.MAX_VALUE;
+		for (int start = 0; start < lines.size(); start++) {
+			int end = start;
+			while (end < lines.size() && !isConflictMarker(lines.get(end))) {
+				end++;
+			}
+			int contentBase = Integer.MAX_VALUE;
+			for (int k = start + 1; k < end; k++) {
+				if (!lines.get(k).trim().isEmpty()) {
+					contentBase = Math.min(contentBase, width(lines.get(k)));
+				}
+			}
+			boolean isUnindented = start > 0 && start < end && !lines.get(start).trim().isEmpty() && width(lines.get(start)) == 0;
+			if (isUnindented && contentBase != Integer.MAX_VALUE) {
+				Arrays.fill(bases, start, end, contentBase);
+			} else {
+				Arrays.fill(bases, start, end, -1);
+				base = Math.min(base, contentBase);
+				if (start > 0 && start < end && !lines.get(start).trim().isEmpty()) {
+					base = Math.min(base, width(lines.get(start)));
+				}
+			}
+			start = end;
+		}
+		if (base == Integer.MAX_VALUE) {
+			base = 0;
+		}
+
+		for (int k = 0; k < lines.size(); k++) {
+			String l = lines.get(k);
+			if (isConflictMarker(l)) {
+				flushLine();
+				writeLine("", l.trim(), l.trim().length());
+				isLastLineBlank = false;
+			} else if (k == 0) {
+				if (!l.trim().isEmpty()) {
+					appendCode(l.trim(), space);
+				}
+			} else if (l.trim().isEmpty()) {
+				//blank lines around conflict markers are left out
+				if (!isConflictMarker(lines.get(k - 1)) && (k + 1 == lines.size() || !isConflictMarker(lines.get(k + 1)))) {
+					startLine(true);
+				}
+			} else {
+				flushLine();
+				lineIndentation = indentation(depth, Math.max(0, width(l) - ((bases[k] >= 0) ? bases[k] : base)));
+				line.append(l, leadingWhitespaces(l), l.length());
+			}
+		}
+	}
+
+	private void appendCode(String code, boolean space) {
+		if (line.length() == 0) {
+			lineIndentation = indentation(depth, 0);
+		} else if (space || isSpacePending) {
+			line.append(' ');
+		}
+		line.append(code);
+		isSpacePending = false;
+		endsWithComment = false;
+	}
+
+	private void startLine(boolean isAfterBlankLine) {
+		flushLine();
+		if (isAfterBlankLine && !isLastLineBlank) {
+			writeLine("", "", 0);
+			isLastLineBlank = true;
+		}
+	}
+
+	private void flushLine() {
+		int end = line.length();
+		while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+			end--;
+		}
+		if (end > 0) {
+			writeLine(lineIndentation, line, end);
+			isLastLineBlank = false;
+		}
+		line.setLength(0);
+		isLineBreakPending = false;
+		isSpacePending = false;
+		endsWithComment = false;
+	}
+
+	private void writeLine(String indentation, CharSequence code, int end) {
+		try {
+			output.append(indentation).append(code, 0, end).append('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private boolean needsSpace(String code) {
+		return line.length() > 0 && !code.isEmpty() && NO_SPACE_AFTER.indexOf(lastChar()) < 0 && NO_SPACE_BEFORE.indexOf(code.charAt(0)) < 0;
+	}
+
+	private char lastChar() {
+		for (int i = line.length() - 1; i >= 0; i--) {
+			if (!Character.isWhitespace(line.charAt(i))) {
+				return line.charAt(i);
+			}
+		}
+		return '\n';
+	}
+
+	private static boolean isConflictMarker(String l) {
+		String trimmed = l.trim();
+		return trimmed.startsWith("<<<<<<<") || trimmed.startsWith("=======") || trimmed.startsWith("|||||||") || trimmed.startsWith(">>>>>>>");
+	}
+
+	/**
+	 * @return the end of the comment starting at the given position of the special tokens of a terminal
+	 */
+	private static int commentEnd(String prefix, int start) {
+		int end;
+		if (prefix.startsWith("//", start)) {
+			end = start;
+			while (end < prefix.length() && prefix.charAt(end) != '\n' && prefix.charAt(end) != '\r') {
+				end++;
+			}
+		} else if (prefix.startsWith("/*", start)) {
+			end = prefix.indexOf("*/", start + 2);
+			end = (end < 0) ? prefix.length() : end + 2;
+		} else {
+			end = start;
+			while (end < prefix.length() && !Character.isWhitespace(prefix.charAt(end))) {
+				end++;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * @return the column of the given position, or -1 if it is unknown or not preceded only by whitespaces in its line
+	 */
+	private static int columnOf(String prefix, int position) {
+		int lineStart = position;
+		while (lineStart > 0 && prefix.charAt(lineStart - 1) != '\n' && prefix.charAt(lineStart - 1) != '\r') {
+			lineStart--;
+		}
+		if (lineStart == 0) {
+			return -1;
+		}
+		String indentation = prefix.substring(lineStart, position);
+		return indentation.trim().isEmpty() ? width(indentation) : -1;
+	}
+
+	private static List<String> splitLines(String text) {
+		List<String> lines = new ArrayList<String>();
+		int start = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\n' || c == '\r') {
+				lines.add(text.substring(start, i));
+				if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+					i++;
+				}
+				start = i + 1;
+			}
+		}
+		lines.add(text.substring(start));
+		return lines;
+	}
+
+	private static int leadingWhitespaces(String l) {
+		int i = 0;
+		while (i < l.length() && Character.isWhitespace(l.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * @return width of the indentation of the given line, with tabs up to the next multiple of the tab width
+	 */
+	private static int width(String l) {
+		int width = 0;
+		for (int i = 0; i < l.length() && Character.isWhitespace(l.charAt(i)); i++) {
+			width = (l.charAt(i) == '\t') ? (width / TAB_WIDTH + 1) * TAB_WIDTH : width + 1;
+		}
+		return width;
+	}
+
+	private static String indentation(int depth, int columns) {
+		StringBuilder indentation = new StringBuilder();
+		for (int i = 0; i < depth + columns / TAB_WIDTH; i++) {
+			indentation.append('\t');
+		}
+		for (int i = 0; i < columns % TAB_WIDTH; i++) {
+			indentation.append(' ');
+		}
+		return indentation.toString();
+	}
+}
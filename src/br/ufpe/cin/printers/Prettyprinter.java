@@ -1,13 +1,14 @@
 package br.ufpe.cin.printers;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import br.ufpe.cin.app.JFSTMerge;
 import br.ufpe.cin.exceptions.PrintException;
 import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.files.FilesTuple;
-import br.ufpe.cin.generated.SimplePrintVisitor;
 import br.ufpe.cin.mergers.util.MergeContext;
 import br.ufpe.cin.mergers.util.MergeScenario;
 import de.ovgu.cide.fstgen.ast.FSTNode;
@@ -21,7 +22,7 @@ import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
 public final class Prettyprinter {
 
 	/**
-	 * Converts a given tree into textual source code.
+	 * Converts a given tree into indented textual source code.
 	 * @param tree
 	 * @return textual representation of the given tree, or empty string in case of given empty tree.
 	 */
@@ -29,16 +30,37 @@ public final class Prettyprinter {
 		//uncomment to print the AST
 		//System.out.println(tree.printFST(0));
 
-		String printable = "";
 		//de.ovgu.cide.fstgen.parsers.generated_java18_merge.SimplePrintVisitor printer = new de.ovgu.cide.fstgen.parsers.generated_java18_merge.SimplePrintVisitor();
-		SimplePrintVisitor printer = new SimplePrintVisitor();
+		//printed as into files and streams, but into memory, as the merge keeps the printed code
+		StringBuilder printable = new StringBuilder();
+		try {
+			print(tree, printable);
+		} catch (IOException e) { //not thrown by a StringBuilder
+			throw new UncheckedIOException(e);
+		}
+		//printable = printable.trim().replaceAll(" +", " "); //fix for a bug in java18_merge.SimplePrintVisitor, not working 
+		return printable.toString();
+	}
+
+	/**
+	 * Writes the indented textual source code of a given tree into the given output, line by line,
+	 * instead of building the whole code in memory. Files, streams and channels are written through
+	 * a {@link java.io.Writer}, such as the ones of {@link java.nio.channels.Channels#newWriter}.
+	 * @param tree
+	 * @param output which is neither flushed nor closed. Nothing is written in case of given empty tree.
+	 * @throws IOException in case cannot write into the output.
+	 */
+	public static void print(FSTNode tree, Appendable output) throws IOException {
 		FSTNode root = getCompilationUnit(tree);
 		if(root != null){
-			root.accept(printer);
-			printable = printer.getResult();
+			IndentingPrintVisitor printer = new IndentingPrintVisitor(output);
+			try {
+				root.accept(printer);
+				printer.flush();
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
 		}
-		//printable = printable.trim().replaceAll(" +", " "); //fix for a bug in java18_merge.SimplePrintVisitor, not working 
-		return printable;
 	}
 
 	/**
@@ -68,7 +90,7 @@ public final class Prettyprinter {
 			boolean writeSucceed = FilesManager.writeContent(semistructuredOutputFilePath, semistructuredMergeOutputContent);
 			if(writeSucceed && !JFSTMerge.isGit){
 				String unstructuredOutputFilePath  		= outputFilePath +".merge"; 
-				String unstructuredMergeOutputContent 	= context.unstructuredOutput;
+				String unstructuredMergeOutputContent 	= context.getUnstructuredOutput();
 				writeSucceed = FilesManager.writeContent(unstructuredOutputFilePath, unstructuredMergeOutputContent);
 			}
 			if(!writeSucceed){
@@ -0,0 +1,196 @@
+package br.ufpe.cin.statistics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.mergers.util.MergeContext;
+
+/**
+ * Binary store of the statistics of each merged file, optionally kept besides the <i>jfstmerge.statistics</i> log,
+ * for evaluations with many merges. Each merge is a fixed-width record holding the time of the merge,
+ * the project of the merged files and the same metrics of the log, so the store is read by mapping it
+ * in memory, without parsing text. The projects are kept in a separate file, one per line,
+ * and referenced by their line number. See {@link StatisticsQuery} for the aggregates of the store.
+ */
+public final class BinaryStatisticsStore {
+
+	private static final int MAGIC = 0x4A465342;
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+
+	/**
+	 * Metrics of each record, named as the columns of the <i>jfstmerge.statistics</i> log.
+	 */
+	public static final String[] METRICS = {"ssmergeconfs", "ssmergeloc", "ssmergerenamingconfs", "ssmergedeletionconfs", "ssmergeinnerdeletionconfs",
+			"ssmergetaeconfs", "ssmergenereoconfs", "ssmergeinitlblocksconfs", "ssmergeacidentalconfs", "unmergeconfs", "unmergeloc",
+			"unmergetime", "ssmergetime", "unmergeduplicateddeclarationerrors", "unmergeorderingconfs", "equalconfs"};
+
+	//time of the merge, project and metrics
+	private static final int RECORD_LONGS = 2 + METRICS.length;
+	private static final int RECORD_SIZE = 8 * RECORD_LONGS;
+
+	//largest mapped region, a multiple of the record size
+	private static final long MAX_MAPPED_SIZE = (Integer.MAX_VALUE / RECORD_SIZE) * (long) RECORD_SIZE;
+
+	private static File directory = new File(System.getProperty("user.home") + File.separator + ".jfstmerge");
+
+	//identifiers of the projects known by this process
+	private static final Map<String, Integer> projectIds = new HashMap<String, Integer>();
+
+	/**
+	 * Changes the folder of the store.
+	 * @param storeDirectory
+	 */
+	public static synchronized void configure(File storeDirectory) {
+		directory = storeDirectory;
+		projectIds.clear();
+	}
+
+	/**
+	 * Appends the statistics of the given merge context, computed by {@link Statistics#compute(MergeContext)}.
+	 * @param context
+	 * @throws IOException
+	 */
+	public static synchronized void append(MergeContext context) throws IOException {
+		ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		record.putLong(context.mergeTimestamp); //not the current time, as spooled merges are stored later
+		record.putLong(0); //project, known only when the store is locked
+		record.putLong(context.semistructuredNumberOfConflicts);
+		record.putLong(context.semistructuredMergeConflictsLOC);
+		record.putLong(context.renamingConflicts);
+		record.putLong(context.deletionConflicts);
+		record.putLong(context.innerDeletionConflicts);
+		record.putLong(context.typeAmbiguityErrorsConflicts);
+		record.putLong(context.newElementReferencingEditedOneConflicts);
+		record.putLong(context.initializationBlocksConflicts);
+		record.putLong(context.acidentalConflicts);
+		record.putLong(context.unstructuredNumberOfConflicts);
+		record.putLong(context.unstructuredMergeConflictsLOC);
+		record.putLong(context.unstructuredMergeTime);
+		record.putLong(context.semistructuredMergeTime);
+		record.putLong(context.duplicatedDeclarationErrors);
+		record.putLong(context.orderingConflicts);
+		record.putLong(context.equalConflicts);
+
+		directory.mkdirs();
+		try (FileChannel channel = FileChannel.open(storeFile().toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			channel.lock(); //released when the channel is closed
+			if (channel.size() < HEADER_SIZE) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(RECORD_SIZE).flip();
+				channel.truncate(0);
+				channel.write(header, 0);
+			} else {
+				validateHeader(channel);
+			}
+			record.putLong(8, projectId(estimateProject(context)));
+			record.flip();
+
+			//a record partially written by an interrupted merge is overwritten
+			long end = HEADER_SIZE + (channel.size() - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+			channel.truncate(end);
+			while (record.hasRemaining()) {
+				end += channel.write(record, end);
+			}
+		}
+	}
+
+	/**
+	 * Reads every record of the store, in the order they were appended.
+	 * The given array is reused for each record, and holds the time of the merge in milliseconds,
+	 * the project, as an index of {@link #readProjects()}, and the values of the {@link #METRICS}.
+	 * @param consumer of the records
+	 * @throws IOException
+	 */
+	public static void scan(Consumer<long[]> consumer) throws IOException {
+		File store = storeFile();
+		if (!store.isFile()) {
+			return;
+		}
+		long[] record = new long[RECORD_LONGS];
+		try (FileChannel channel = FileChannel.open(store.toPath(), StandardOpenOption.READ)) {
+			validateHeader(channel);
+			long end = HEADER_SIZE + (channel.size() - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+			for (long position = HEADER_SIZE; position < end; position += MAX_MAPPED_SIZE) {
+				MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPED_SIZE, end - position));
+				LongBuffer longs = region.asLongBuffer();
+				while (longs.hasRemaining()) {
+					longs.get(record);
+					consumer.accept(record);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the projects referenced by the records, in the order they were first stored
+	 */
+	public static List<String> readProjects() throws IOException {
+		File projects = projectsFile();
+		return projects.isFile() ? Files.readAllLines(projects.toPath(), StandardCharsets.UTF_8) : new ArrayList<String>();
+	}
+
+	/**
+	 * Estimates the project of the merged files, as the folder holding their <i>src</i> folder,
+	 * or the folder of the merged files otherwise.
+	 */
+	private static String estimateProject(MergeContext context) {
+		String project = FilesManager.estimateProjectRootFolderPath(context);
+		if (project.isEmpty()) {
+			File file = (context.getLeft() != null) ? context.getLeft() : (context.getBase() != null) ? context.getBase() : context.getRight();
+			project = (file != null && file.getAbsoluteFile().getParent() != null) ? file.getAbsoluteFile().getParent() + File.separator : "<unknown>";
+		}
+		return project.replace('\n', ' ').replace('\r', ' ');
+	}
+
+	/**
+	 * Returns the identifier of the given project, adding it to the projects file if it is new.
+	 * Must be called with the store locked, as other processes may add projects.
+	 */
+	private static int projectId(String project) throws IOException {
+		Integer id = projectIds.get(project);
+		if (id == null) {
+			List<String> projects = readProjects();
+			for (int i = projectIds.size(); i < projects.size(); i++) {
+				projectIds.put(projects.get(i), i);
+			}
+			id = projectIds.get(project);
+			if (id == null) {
+				id = projects.size();
+				Files.write(projectsFile().toPath(), (project + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+				projectIds.put(project, id);
+			}
+		}
+		return id;
+	}
+
+	private static void validateHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining() && channel.read(header, header.position()) > 0);
+		header.flip();
+		if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION || header.getInt() != RECORD_SIZE) {
+			throw new IOException("Invalid or outdated statistics store: " + storeFile());
+		}
+	}
+
+	private static File storeFile() {
+		return new File(directory, "statistics.bin");
+	}
+
+	private static File projectsFile() {
+		return new File(directory, "statistics.projects");
+	}
+}
@@ -9,9 +9,10 @@ import java.util.Deque;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.app.JFSTMerge;
 import br.ufpe.cin.files.FilesTuple;
 import br.ufpe.cin.logging.LoggerStatistics;
+import br.ufpe.cin.mergers.handlers.ConflictsHandler;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
 import br.ufpe.cin.mergers.util.MergeScenario;
@@ -30,8 +31,10 @@ public final class Statistics {
 	 * @throws Exception 
 	 */
 	public static void compute(MergeContext context) throws Exception{
-		List<MergeConflict> semistructuredMergeConflicts  = FilesManager.extractMergeConflicts(context.semistructuredOutput);
-		List<MergeConflict> unstructuredMergeConflits	  = FilesManager.extractMergeConflicts(context.unstructuredOutput);
+		ConflictsHandler.handleStatisticsOnly(context);
+
+		List<MergeConflict> semistructuredMergeConflicts  = context.getSemistructuredConflicts().getConflicts();
+		List<MergeConflict> unstructuredMergeConflits	  = context.getUnstructuredConflicts().getConflicts();
 
 		context.semistructuredNumberOfConflicts = computeNumberOfConflicts(semistructuredMergeConflicts);
 		context.unstructuredNumberOfConflicts   = computeNumberOfConflicts(unstructuredMergeConflits);
@@ -72,7 +75,9 @@ public final class Statistics {
 
 		computeDifferentConflicts(context);		
 		LoggerStatistics.logContext(loggermsg,context);
-
+		if(JFSTMerge.storeBinaryStatistics){
+			BinaryStatisticsStore.append(context);
+		}
 	}
 
 
@@ -180,10 +185,10 @@ public final class Statistics {
 	 */
 	private static void computeDifferentConflicts(MergeContext context) throws IOException {
 		Deque<MergeConflict> semistructuredMergeConflicts  = new ArrayDeque<MergeConflict>();
-		semistructuredMergeConflicts.addAll(FilesManager.extractMergeConflicts(context.semistructuredOutput));
+		semistructuredMergeConflicts.addAll(context.getSemistructuredConflicts().getConflicts());
 
 		Deque<MergeConflict> unstructuredMergeConflits = new ArrayDeque<MergeConflict>();
-		unstructuredMergeConflits.addAll(FilesManager.extractMergeConflicts(context.unstructuredOutput));
+		unstructuredMergeConflits.addAll(context.getUnstructuredConflicts().getConflicts());
 
 		List<MergeConflict> differentUnstructuredMergeConflicts = new ArrayList<MergeConflict>();
 		List<MergeConflict> differentSemistructuredMergeConflicts = new ArrayList<MergeConflict>();
@@ -224,9 +229,7 @@ public final class Statistics {
 	}
 
 	private static boolean areEquivalentConflicts(MergeConflict confa, MergeConflict confb) {
-		String bodya = FilesManager.getStringContentIntoSingleLineNoSpacing(confa.left + confa.right);
-		String bodyb = FilesManager.getStringContentIntoSingleLineNoSpacing(confb.left + confb.right);
-		if(bodya.equals(bodyb)){
+		if(confa.isEquivalentTo(confb)){
 			return true;
 		}
 
@@ -0,0 +1,219 @@
+package br.ufpe.cin.statistics;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * Command line query of the {@link BinaryStatisticsStore}, printing the totals of the metrics
+ * and the number of merged files per project and per time window, as comma separated values.<br>
+ * Usage: <i>java -cp jFSTMerge.jar br.ufpe.cin.statistics.StatisticsQuery -w day -from 20180101</i>
+ */
+public class StatisticsQuery {
+
+	@Parameter(names = "-w", description = "Time window of the aggregates: all, hour, day, week, month or year. Optional, defaults to all.")
+	String window = "all";
+
+	@Parameter(names = "-p", description = "Parameter to aggregate by project (true or false). Optional, defaults to true.", arity = 1)
+	boolean byProject = true;
+
+	@Parameter(names = "-n", description = "Regular expression matching the project folders, whose first group names the project, such as \".*/projects/([^/]+)/.*\". Optional.")
+	String projectPattern;
+
+	@Parameter(names = "-from", description = "First day of the aggregated merges (yyyyMMdd). Optional.")
+	String from;
+
+	@Parameter(names = "-to", description = "Last day of the aggregated merges (yyyyMMdd). Optional.")
+	String to;
+
+	private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+	/**
+	 * Group of the aggregated merges.
+	 */
+	private static class Group {
+		final String project;
+		final String window;
+		final long[] totals = new long[1 + BinaryStatisticsStore.METRICS.length]; //number of files and metrics
+
+		Group(String project, String window) {
+			this.project = project;
+			this.window = window;
+		}
+	}
+
+	//bounds and label of the window of the last record, as records usually come in time order
+	private long windowStart = Long.MAX_VALUE;
+	private long windowEnd = Long.MIN_VALUE;
+	private int windowId;
+	private final List<String> windowLabels = new ArrayList<String>();
+	private final Map<String, Integer> windowIds = new HashMap<String, Integer>();
+
+	public static void main(String[] args) {
+		StatisticsQuery query = new StatisticsQuery();
+		JCommander commandLineOptions = new JCommander(query);
+		try {
+			commandLineOptions.parse(args);
+			for (String line : query.run()) {
+				System.out.println(line);
+			}
+		} catch (ParameterException pe) {
+			System.err.println(pe.getMessage());
+			commandLineOptions.setProgramName("StatisticsQuery");
+			commandLineOptions.usage();
+			System.exit(-1);
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		}
+	}
+
+	/**
+	 * Aggregates the records of the store according to the options of the query.
+	 * @return the header and the lines of the aggregates
+	 * @throws IOException
+	 */
+	List<String> run() throws IOException {
+		if (!window.matches("all|hour|day|week|month|year")) {
+			throw new ParameterException("Invalid time window: " + window);
+		}
+		ZoneId zone = ZoneId.systemDefault();
+		long first = (from != null) ? parseDay(from).atStartOfDay(zone).toInstant().toEpochMilli() : Long.MIN_VALUE;
+		long last  = (to != null) ? parseDay(to).plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() : Long.MAX_VALUE;
+
+		//names of the projects are computed once, not for each record
+		List<String> projects = BinaryStatisticsStore.readProjects();
+		List<String> projectNames = new ArrayList<String>();
+		Map<String, Integer> projectNameIds = new HashMap<String, Integer>();
+		int[] projectNameOfProject = new int[projects.size()];
+		Pattern pattern = (projectPattern != null) ? Pattern.compile(projectPattern) : null;
+		for (int i = 0; i < projects.size(); i++) {
+			String name = !byProject ? "all" : projectName(projects.get(i), pattern);
+			projectNameOfProject[i] = projectNameIds.computeIfAbsent(name, n -> {
+				projectNames.add(n);
+				return projectNames.size() - 1;
+			});
+		}
+
+		Map<Long, Group> groups = new HashMap<Long, Group>();
+		BinaryStatisticsStore.scan(record -> {
+			long time = record[0];
+			int project = (int) record[1];
+			if (time < first || time >= last || project < 0 || project >= projectNameOfProject.length) {
+				return;
+			}
+			int nameId = projectNameOfProject[project];
+			int window = windowOf(time, zone);
+			Group group = groups.computeIfAbsent(((long) nameId << 32) | window, key -> new Group(projectNames.get(nameId), windowLabels.get(window)));
+			group.totals[0]++;
+			for (int i = 2; i < record.length; i++) {
+				group.totals[i - 1] += record[i];
+			}
+		});
+
+		List<Group> sorted = new ArrayList<Group>(groups.values());
+		sorted.sort(Comparator.comparing((Group g) -> g.project).thenComparing(g -> g.window));
+		List<String> lines = new ArrayList<String>();
+		lines.add("project,window,files," + String.join(",", BinaryStatisticsStore.METRICS));
+		for (Group group : sorted) {
+			StringBuilder line = new StringBuilder();
+			line.append(group.project).append(',').append(group.window);
+			for (long total : group.totals) {
+				line.append(',').append(total);
+			}
+			lines.add(line.toString());
+		}
+		return lines;
+	}
+
+	private static String projectName(String projectFolder, Pattern pattern) {
+		if (pattern != null) {
+			Matcher matcher = pattern.matcher(projectFolder);
+			if (matcher.matches() && matcher.groupCount() > 0) {
+				return matcher.group(1);
+			}
+		}
+		return projectFolder;
+	}
+
+	/**
+	 * @return the identifier of the time window holding the given time
+	 */
+	private int windowOf(long time, ZoneId zone) {
+		if (time >= windowStart && time < windowEnd) {
+			return windowId;
+		}
+		ZonedDateTime start;
+		ZonedDateTime end;
+		String label;
+		ZonedDateTime date = Instant.ofEpochMilli(time).atZone(zone);
+		switch (window) {
+		case "hour":
+			start = date.truncatedTo(ChronoUnit.HOURS);
+			end = start.plusHours(1);
+			label = start.format(DateTimeFormatter.ofPattern("yyyyMMdd_HH"));
+			break;
+		case "day":
+			start = date.truncatedTo(ChronoUnit.DAYS);
+			end = start.plusDays(1);
+			label = start.format(DAY);
+			break;
+		case "week":
+			start = date.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+			end = start.plusWeeks(1);
+			label = start.format(DAY);
+			break;
+		case "month":
+			start = date.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+			end = start.plusMonths(1);
+			label = start.format(DateTimeFormatter.ofPattern("yyyyMM"));
+			break;
+		case "year":
+			start = date.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1);
+			end = start.plusYears(1);
+			label = start.format(DateTimeFormatter.ofPattern("yyyy"));
+			break;
+		default:
+			windowStart = Long.MIN_VALUE;
+			windowEnd = Long.MAX_VALUE;
+			windowId = windowIdOf("all");
+			return windowId;
+		}
+		windowStart = start.toInstant().toEpochMilli();
+		windowEnd = end.toInstant().toEpochMilli();
+		windowId = windowIdOf(label);
+		return windowId;
+	}
+
+	private int windowIdOf(String label) {
+		return windowIds.computeIfAbsent(label, l -> {
+			windowLabels.add(l);
+			return windowLabels.size() - 1;
+		});
+	}
+
+	private static LocalDate parseDay(String day) {
+		try {
+			return LocalDate.parse(day, DAY);
+		} catch (RuntimeException e) {
+			throw new ParameterException("Invalid day: " + day + ". Inform it as yyyyMMdd.");
+		}
+	}
+}
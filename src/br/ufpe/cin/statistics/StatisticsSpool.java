@@ -0,0 +1,330 @@
+package br.ufpe.cin.statistics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.files.ContentWriter;
+import br.ufpe.cin.logging.AsyncLogWriter;
+import br.ufpe.cin.logging.LoggerFactory;
+import br.ufpe.cin.mergers.util.MergeContext;
+
+/**
+ * Spool of the merges whose statistics are computed later, out of the merge.
+ * When merging as a git driver, git waits for the driver process to finish, so the driver
+ * only writes the merged file and spools what the statistics need in the <i>$HOME/.jfstmerge/spool</i> folder.
+ * The spooled merges are processed, in the order they were spooled, by a batch job started by the driver
+ * in a separate process, or by the merge server while it is idle. A lock ensures a single processor at a time.
+ * The records of the logs written while merging as a git driver are spooled as well, see {@link AsyncLogWriter}.
+ */
+public final class StatisticsSpool {
+
+	//log of activities
+	private static final Logger LOGGER = LoggerFactory.make();
+
+	//must change whenever the format of the entries change
+	private static final int FORMAT_VERSION = 4;
+
+	//kinds of the entries
+	private static final int MERGE = 0;
+	private static final int LOG_RECORD = 1;
+
+	private static final String EXTENSION = ".entry";
+
+	private static File directory = new File(System.getProperty("user.home") + File.separator + ".jfstmerge" + File.separator + "spool");
+
+	//the merge server processes the spool by itself while idle
+	public static boolean startsBatchJob = true;
+
+	/**
+	 * Changes the folder of the spool.
+	 * @param spoolDirectory
+	 */
+	public static synchronized void configure(File spoolDirectory) {
+		directory = spoolDirectory;
+	}
+
+	/**
+	 * Spools the given merge, and starts the batch job that processes the spool if it is not running.
+	 * @param context resulting from the merge
+	 * @throws IOException
+	 */
+	public static void spool(MergeContext context) throws IOException {
+		spool(out -> write(out, context));
+	}
+
+	/**
+	 * Spools a record to be appended to a log by the batch job, as queued by {@link AsyncLogWriter}.
+	 * @param file log
+	 * @param header written before the record if the log does not exist, can be <b>null</b>
+	 * @param content of the record
+	 * @param encrypted if the log is encrypted
+	 * @param maxSize of the log, or 0 if it is not limited
+	 * @throws IOException
+	 */
+	public static void spool(File file, String header, String content, boolean encrypted, long maxSize) throws IOException {
+		spool(out -> {
+			out.writeInt(FORMAT_VERSION);
+			out.writeByte(LOG_RECORD);
+			writeString(out, file.getAbsolutePath());
+			writeString(out, header);
+			writeString(out, content);
+			out.writeBoolean(encrypted);
+			out.writeLong(maxSize);
+		});
+	}
+
+	/**
+	 * Writer of the content of an entry.
+	 */
+	private interface EntryWriter {
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	private static void spool(EntryWriter writer) throws IOException {
+		createDirectory();
+		File temp = File.createTempFile("entry", ".tmp", directory);
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+				writer.write(out);
+			}
+			//entries are named by the spooling time, so they are processed in order, and complete when visible
+			String name = String.format("%016d", System.currentTimeMillis()) + "-" + temp.getName().replace(".tmp", EXTENSION);
+			Files.move(temp.toPath(), new File(directory, name).toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			temp.delete();
+		}
+		if (startsBatchJob && !isBeingProcessed()) {
+			startBatchJob();
+		}
+	}
+
+	/**
+	 * @return true if there are spooled merges not processed yet.
+	 */
+	public static boolean hasPendingEntries() {
+		File[] entries = listEntries();
+		return entries != null && entries.length > 0;
+	}
+
+	/**
+	 * Computes the statistics of the oldest spooled merge, unless another process is processing the spool.
+	 * @return true if a merge was processed
+	 */
+	public static boolean processNext() {
+		return process(1) > 0;
+	}
+
+	/**
+	 * Computes the statistics of every spooled merge, unless another process is processing the spool.
+	 * @return number of merges processed
+	 */
+	public static int processAll() {
+		return process(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Batch job processing the spool until it is empty.
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		//entries spooled while the lock is released are processed in the next iteration
+		while (processAll() > 0 && hasPendingEntries());
+		System.exit(0);
+	}
+
+	private static int process(int maxEntries) {
+		int processed = 0;
+		if (!directory.isDirectory()) {
+			return 0;
+		}
+		try (RandomAccessFile lockFile = new RandomAccessFile(lockFile(), "rw");
+				FileLock lock = lockFile.getChannel().tryLock()) {
+			if (lock == null) { //another process is processing the spool
+				return 0;
+			}
+			File[] entries = listEntries();
+			if (entries == null) {
+				return 0;
+			}
+			Arrays.sort(entries);
+			for (int i = 0; i < entries.length && processed < maxEntries; i++) {
+				process(entries[i]);
+				processed++;
+			}
+		} catch (IOException | OverlappingFileLockException e) {
+			LOGGER.log(Level.WARNING, "", e);
+		}
+		return processed;
+	}
+
+	/**
+	 * Computes the statistics of a spooled merge with the options it was merged with, or queues a spooled log record,
+	 * and removes the entry from the spool. Entries that cannot be processed are removed as well, so they do not block the spool.
+	 */
+	private static void process(File entry) {
+		boolean isGit = JFSTMerge.isGit;
+		boolean isCryptographed = JFSTMerge.isCryptographed;
+		boolean logFiles = JFSTMerge.logFiles;
+		boolean storeBinaryStatistics = JFSTMerge.storeBinaryStatistics;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry.toPath())))) {
+			if (in.readInt() != FORMAT_VERSION) {
+				throw new IOException("Outdated spool entry: " + entry);
+			}
+			JFSTMerge.isGit = false; //so the logs are written, instead of spooled again
+			if (in.readByte() == LOG_RECORD) {
+				File file = new File(readString(in));
+				String header = readString(in);
+				String content = readString(in);
+				boolean encrypted = in.readBoolean();
+				long maxSize = in.readLong();
+				if (encrypted || maxSize > 0) {
+					AsyncLogWriter.getInstance().appendToBuffer(file, content, encrypted, maxSize);
+				} else {
+					AsyncLogWriter.getInstance().append(file, header, content);
+				}
+				return;
+			}
+			JFSTMerge.isCryptographed = in.readBoolean();
+			JFSTMerge.logFiles = in.readBoolean();
+			JFSTMerge.storeBinaryStatistics = in.readBoolean();
+			Statistics.compute(read(in));
+		} catch (Exception e) {
+			LOGGER.log(Level.SEVERE, "", e);
+		} finally {
+			JFSTMerge.isGit = isGit;
+			JFSTMerge.isCryptographed = isCryptographed;
+			JFSTMerge.logFiles = logFiles;
+			JFSTMerge.storeBinaryStatistics = storeBinaryStatistics;
+			entry.delete();
+		}
+	}
+
+	private static void write(DataOutputStream out, MergeContext context) throws IOException {
+		out.writeInt(FORMAT_VERSION);
+		out.writeByte(MERGE);
+		out.writeBoolean(JFSTMerge.isCryptographed);
+		out.writeBoolean(JFSTMerge.logFiles);
+		out.writeBoolean(JFSTMerge.storeBinaryStatistics);
+		out.writeLong(context.mergeTimestamp);
+		writeString(out, (context.getLeft() != null) ? context.getLeft().getAbsolutePath() : null);
+		writeString(out, (context.getBase() != null) ? context.getBase().getAbsolutePath() : null);
+		writeString(out, (context.getRight()!= null) ? context.getRight().getAbsolutePath(): null);
+		writeString(out, context.getLeftContent());
+		writeString(out, context.getBaseContent());
+		writeString(out, context.getRightContent());
+		writeString(out, context.semistructuredOutput);
+		out.writeBoolean(context.hasPendingStatisticsHandlers);
+		out.writeInt(context.renamingConflicts);
+		out.writeInt(context.deletionConflicts);
+		out.writeInt(context.innerDeletionConflicts);
+		out.writeInt(context.typeAmbiguityErrorsConflicts);
+		out.writeInt(context.newElementReferencingEditedOneConflicts);
+		out.writeInt(context.initializationBlocksConflicts);
+		out.writeLong(context.semistructuredMergeTime);
+	}
+
+	private static MergeContext read(DataInputStream in) throws IOException {
+		MergeContext context = new MergeContext();
+		context.mergeTimestamp = in.readLong();
+		context.setLeft(toFile(readString(in)));
+		context.setBase(toFile(readString(in)));
+		context.setRight(toFile(readString(in)));
+		context.setLeftContent(readString(in));
+		context.setBaseContent(readString(in));
+		context.setRightContent(readString(in));
+		context.semistructuredOutput = readString(in);
+		context.hasPendingStatisticsHandlers = in.readBoolean();
+		context.renamingConflicts = in.readInt();
+		context.deletionConflicts = in.readInt();
+		context.innerDeletionConflicts = in.readInt();
+		context.typeAmbiguityErrorsConflicts = in.readInt();
+		context.newElementReferencingEditedOneConflicts = in.readInt();
+		context.initializationBlocksConflicts = in.readInt();
+		context.semistructuredMergeTime = in.readLong();
+		return context;
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		if (string == null) {
+			out.writeInt(-1);
+		} else {
+			//encoded in chunks, as the merged code can be large
+			out.writeInt((int) ContentWriter.utf8Length(string));
+			ContentWriter.write(string, StandardCharsets.UTF_8, out);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length == -1) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static File toFile(String path) {
+		return (path != null) ? new File(path) : null;
+	}
+
+	private static File[] listEntries() {
+		return directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+	}
+
+	private static File lockFile() {
+		return new File(directory, "spool.lock");
+	}
+
+	private static boolean isBeingProcessed() {
+		try (RandomAccessFile lockFile = new RandomAccessFile(lockFile(), "rw");
+				FileLock lock = lockFile.getChannel().tryLock()) {
+			return lock == null;
+		} catch (IOException | OverlappingFileLockException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Starts the batch job in a separate process, which goes on after the driver exits.
+	 */
+	private static void startBatchJob() {
+		File log = new File(directory, "spool.log");
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		try {
+			new ProcessBuilder(java, "-Duser.home=" + System.getProperty("user.home"), "-cp", System.getProperty("java.class.path"), StatisticsSpool.class.getName())
+			.redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+			.redirectError(ProcessBuilder.Redirect.appendTo(log))
+			.start()
+			.getOutputStream().close();
+		} catch (IOException e) { //the spool is processed by the next job
+			LOGGER.log(Level.WARNING, "", e);
+		}
+	}
+
+	private static void createDirectory() throws IOException {
+		if (!directory.isDirectory()) {
+			directory.mkdirs();
+			try { //the spool holds the content of the merged files, so it is private to the user
+				Files.setPosixFilePermissions(directory.toPath(), PosixFilePermissions.fromString("rwx------"));
+			} catch (UnsupportedOperationException e) {
+				// non posix file systems, such as in windows
+			}
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package br.ufpe.cin.tests;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+@RunWith(Suite.class)
+@SuiteClasses({
+	ParallelMergeTest.class,
+	IndentingPrintVisitorTest.class,
+	ContentWriterTest.class,
+	UnstructuredMergeTest.class,
+	MergeServerTest.class,
+	ParsedTreeCacheTest.class,
+	ConflictIndexTest.class,
+	ProjectResourceIndexTest.class,
+	StatisticsSpoolTest.class,
+	SegmentedLogTest.class,
+	LoggerStatisticsTest.class,
+	AsyncLogWriterTest.class,
+	BinaryStatisticsStoreTest.class,
+	BoundedEditDistanceTest.class,
+	RenamingCandidateIndexTest.class,
+	NormalizedTextTest.class,
+	IdentifierIndexTest.class,
+	InstanceCreationIndexTest.class,
+	TreeIndexTest.class
+})
+public class AllComponentsTest {}
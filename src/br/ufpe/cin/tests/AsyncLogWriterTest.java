@@ -0,0 +1,95 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import br.ufpe.cin.logging.AsyncLogWriter;
+import br.ufpe.cin.logging.SegmentedLog;
+
+public class AsyncLogWriterTest {
+
+	private static final long FLUSH_TIMEOUT_MILLIS = 10000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testRecordsAreWrittenInOrderAfterHeader() throws Exception {
+		File log = new File(folder.getRoot(), "logs" + File.separator + "conflicts");
+		for (int i = 0; i < 100; i++) {
+			AsyncLogWriter.getInstance().append(log, "header\n", "record" + i + "\n");
+		}
+		assertTrue(AsyncLogWriter.getInstance().flush(FLUSH_TIMEOUT_MILLIS));
+
+		List<String> lines = Files.readAllLines(log.toPath());
+		assertEquals("header", lines.get(0));
+		for (int i = 0; i < 100; i++) {
+			assertEquals("record" + i, lines.get(i + 1));
+		}
+		assertEquals(101, lines.size());
+	}
+
+	@Test
+	public void testRecordsOfSeveralThreadsAreNotLost() throws Exception {
+		File first  = folder.newFile("first");
+		File second = folder.newFile("second");
+		List<Thread> merges = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++) {
+			Thread merge = new Thread(() -> {
+				for (int i = 0; i < 1000; i++) {
+					AsyncLogWriter.getInstance().append((i % 2 == 0) ? first : second, null, "record\n");
+				}
+			});
+			merges.add(merge);
+			merge.start();
+		}
+		for (Thread merge : merges) {
+			merge.join();
+		}
+		assertTrue(AsyncLogWriter.getInstance().flush(FLUSH_TIMEOUT_MILLIS));
+
+		assertEquals(0, AsyncLogWriter.getInstance().getDroppedRecords());
+		assertEquals(4000, Files.readAllLines(first.toPath()).size());
+		assertEquals(4000, Files.readAllLines(second.toPath()).size());
+	}
+
+	@Test
+	public void testEncryptedRecordsAreAppendedToSegments() throws Exception {
+		File segments = new File(folder.getRoot(), "files");
+		AsyncLogWriter.getInstance().appendToBuffer(segments, "first\n", true, 1024 * 1024);
+		assertTrue(AsyncLogWriter.getInstance().flush(FLUSH_TIMEOUT_MILLIS));
+		File segment = segments.listFiles()[0];
+		byte[] written = Files.readAllBytes(segment.toPath());
+		AsyncLogWriter.getInstance().appendToBuffer(segments, "second\n", true, 1024 * 1024);
+		assertTrue(AsyncLogWriter.getInstance().flush(FLUSH_TIMEOUT_MILLIS));
+
+		//the records written before are neither decrypted nor encrypted again
+		byte[] appended = Files.readAllBytes(segment.toPath());
+		assertTrue(appended.length > written.length);
+		assertArrayEquals(written, Arrays.copyOf(appended, written.length));
+		assertEquals(Arrays.asList("first\n", "second\n"), new SegmentedLog(segments, 1024 * 1024).readAll());
+	}
+
+	@Test
+	public void testFullLogIsBackedUp() throws Exception {
+		File log = new File(folder.getRoot(), "jfstmerge.files");
+		AsyncLogWriter.getInstance().appendToBuffer(log, "0123456789\n", false, 10);
+		assertTrue(AsyncLogWriter.getInstance().flush(FLUSH_TIMEOUT_MILLIS));
+		AsyncLogWriter.getInstance().appendToBuffer(log, "new\n", false, 10);
+		assertTrue(AsyncLogWriter.getInstance().flush(FLUSH_TIMEOUT_MILLIS));
+
+		assertEquals(Arrays.asList("new"), Files.readAllLines(log.toPath()));
+		assertEquals(2, folder.getRoot().listFiles((dir, name) -> name.startsWith("jfstmerge.files")).length);
+	}
+}
@@ -0,0 +1,119 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.logging.AsyncLogWriter;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.statistics.BinaryStatisticsStore;
+import br.ufpe.cin.statistics.StatisticsSpool;
+
+public class BinaryStatisticsStoreTest {
+
+	@Rule
+	public TemporaryHome home = new TemporaryHome();
+
+	@Test
+	public void testRecordsAreReadInOrder() throws Exception {
+		BinaryStatisticsStore.append(context("projectA", 1));
+		BinaryStatisticsStore.append(context("projectB", 2));
+		BinaryStatisticsStore.append(context("projectA", 3));
+
+		List<long[]> records = scan();
+		assertEquals(3, records.size());
+		for (int i = 0; i < 3; i++) {
+			long[] record = records.get(i);
+			assertEquals(i + 1, record[2]);						//ssmergeconfs
+			assertEquals(10 * (i + 1), record[3]);				//ssmergeloc
+			assertEquals(i + 1, record[2 + BinaryStatisticsStore.METRICS.length - 1]); //equalconfs
+		}
+		assertEquals(0, records.get(0)[1]);
+		assertEquals(1, records.get(1)[1]);
+		assertEquals(0, records.get(2)[1]);
+		assertEquals(Arrays.asList(project("projectA"), project("projectB")), BinaryStatisticsStore.readProjects());
+	}
+
+	@Test
+	public void testPartiallyWrittenRecordIsOverwritten() throws Exception {
+		BinaryStatisticsStore.append(context("projectA", 1));
+		File store = new File(home.getLogFolder(), "statistics.bin");
+		try (RandomAccessFile file = new RandomAccessFile(store, "rw")) { //as if the merge was interrupted
+			file.setLength(file.length() + 20);
+		}
+		BinaryStatisticsStore.append(context("projectA", 2));
+
+		List<long[]> records = scan();
+		assertEquals(2, records.size());
+		assertEquals(2, records.get(1)[2]);
+	}
+
+	@Test
+	public void testSpooledMergeIsStoredWithTheTimeOfTheMerge() throws Exception {
+		JFSTMerge.computeStatistics = false; //the statistics are computed from the spool
+		JFSTMerge.storeBinaryStatistics = true;
+		StatisticsSpool.startsBatchJob = false;
+		MergeContext context;
+		try {
+			context = new JFSTMerge().mergeFiles(
+					new File("testfiles/renamingmethodleftconf/left.java"),
+					new File("testfiles/renamingmethodleftconf/base.java"),
+					new File("testfiles/renamingmethodleftconf/right.java"),
+					null);
+			context.mergeTimestamp -= 2 * 24 * 3600 * 1000L; //as if the spool was processed two days after the merge
+			StatisticsSpool.spool(context);
+		} finally {
+			JFSTMerge.computeStatistics = true;
+			JFSTMerge.storeBinaryStatistics = false;
+			StatisticsSpool.startsBatchJob = true;
+		}
+		assertEquals(1, StatisticsSpool.processAll());
+		AsyncLogWriter.getInstance().flush(10000); //the logs of the merge are written before the home is removed
+
+		List<long[]> records = scan();
+		assertEquals(1, records.size());
+		assertEquals(context.mergeTimestamp, records.get(0)[0]);
+	}
+
+	@Test
+	public void testEmptyStoreHasNoRecords() throws Exception {
+		assertEquals(0, scan().size());
+		assertEquals(0, BinaryStatisticsStore.readProjects().size());
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidStoreIsRejected() throws Exception {
+		try (RandomAccessFile file = new RandomAccessFile(new File(home.getLogFolder(), "statistics.bin"), "rw")) {
+			file.writeBytes("date,files,ssmergeconfs\n");
+		}
+		scan();
+	}
+
+	private MergeContext context(String project, int value) {
+		MergeContext context = new MergeContext();
+		context.setLeft(new File(project(project) + "src" + File.separator + "Test.java"));
+		context.semistructuredNumberOfConflicts = value;
+		context.semistructuredMergeConflictsLOC = 10 * value;
+		context.equalConflicts = value;
+		return context;
+	}
+
+	private String project(String name) {
+		return new File(home.getRoot(), name).getAbsolutePath() + File.separator;
+	}
+
+	private static List<long[]> scan() throws IOException {
+		List<long[]> records = new ArrayList<long[]>();
+		BinaryStatisticsStore.scan(record -> records.add(record.clone()));
+		return records;
+	}
+}
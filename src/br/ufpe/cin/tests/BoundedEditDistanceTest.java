@@ -0,0 +1,100 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import br.ufpe.cin.files.BoundedEditDistance;
+import br.ufpe.cin.files.FilesManager;
+
+public class BoundedEditDistanceTest {
+
+	//small alphabets, so the strings share many characters, and non ASCII characters
+	private static final String[] ALPHABETS = {"ab", "abcd{}();", "abcdefghijklmnopqrstuvwxyz0123456789", "aã{çé}"};
+
+	@Test
+	public void testDistanceIsTheLevenshteinDistance() {
+		Random random = new Random(42);
+		for (int i = 0; i < 3000; i++) {
+			String alphabet = ALPHABETS[random.nextInt(ALPHABETS.length)];
+			String first  = randomString(random, alphabet, random.nextInt(200));
+			String second = mutate(random, alphabet, first);
+			int distance = StringUtils.getLevenshteinDistance(first, second);
+
+			assertEquals(first + " / " + second, distance, BoundedEditDistance.compute(first, second, distance));
+			assertEquals(first + " / " + second, distance, BoundedEditDistance.compute(first, second, distance + random.nextInt(10)));
+			assertEquals(first + " / " + second, distance, BoundedEditDistance.compute(first, second, Integer.MAX_VALUE));
+			if (distance > 0) {
+				assertEquals(first + " / " + second, -1, BoundedEditDistance.compute(first, second, distance - 1 - random.nextInt(distance)));
+			}
+		}
+	}
+
+	@Test
+	public void testDistanceOfEmptyAndEqualStrings() {
+		assertEquals(0, BoundedEditDistance.compute("", "", 0));
+		assertEquals(3, BoundedEditDistance.compute("", "abc", 3));
+		assertEquals(-1, BoundedEditDistance.compute("abc", "", 2));
+		assertEquals(0, BoundedEditDistance.compute("intsum(inta,intb){returna+b;}", "intsum(inta,intb){returna+b;}", 0));
+		assertEquals(-1, BoundedEditDistance.compute("a", "a", -1));
+	}
+
+	@Test
+	public void testBoundedSimilarityMatchesFullSimilarity() {
+		Random random = new Random(7);
+		double[] thresholds = {0.0, 0.5, 0.7, 0.9, 1.0};
+		for (int i = 0; i < 2000; i++) {
+			String alphabet = ALPHABETS[random.nextInt(ALPHABETS.length)];
+			String first  = randomString(random, alphabet, random.nextInt(150));
+			String second = mutate(random, alphabet, first);
+			double similarity = FilesManager.computeStringSimilarity(first, second);
+
+			for (double threshold : thresholds) {
+				double bounded = FilesManager.computeStringSimilarity(first, second, threshold);
+				if (similarity >= threshold) {
+					assertEquals(first + " / " + second, similarity, bounded, 0.0);
+				} else {
+					assertTrue(first + " / " + second, bounded < threshold);
+				}
+			}
+		}
+	}
+
+	private static String randomString(Random random, String alphabet, int length) {
+		StringBuilder string = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			string.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return string.toString();
+	}
+
+	/**
+	 * @return the given string with random insertions, deletions and substitutions, or a new random string
+	 */
+	private static String mutate(Random random, String alphabet, String string) {
+		if (random.nextInt(10) == 0) {
+			return randomString(random, alphabet, random.nextInt(200));
+		}
+		StringBuilder mutated = new StringBuilder(string);
+		int edits = random.nextInt(1 + string.length() / 4 + 3);
+		for (int i = 0; i < edits; i++) {
+			int position = random.nextInt(mutated.length() + 1);
+			char c = alphabet.charAt(random.nextInt(alphabet.length()));
+			switch (random.nextInt(3)) {
+			case 0:
+				mutated.insert(position, c);
+				break;
+			case 1:
+				if (position < mutated.length()) mutated.deleteCharAt(position);
+				break;
+			default:
+				if (position < mutated.length()) mutated.setCharAt(position, c);
+			}
+		}
+		return mutated.toString();
+	}
+}
@@ -0,0 +1,171 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.mergers.util.ConflictIndex;
+import br.ufpe.cin.mergers.util.MergeConflict;
+import br.ufpe.cin.mergers.util.MergeContext;
+
+public class ConflictIndexTest {
+
+	private static final String[] LINES = {"<<<<<<< MINE", "=======", ">>>>>>> YOURS", "int a;", "", "  void m() {}",
+			"x <<<<<<< MINE y", "\t=======", "a >>>>>>> YOURS", "<<<<<<<", "======"};
+	private static final String[] LINE_BREAKS = {"\n", "\r\n", "\r"};
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		//hidding sysout output
+		@SuppressWarnings("unused")
+		PrintStream originalStream = System.out;
+		PrintStream hideStream    = new PrintStream(new OutputStream(){
+			public void write(int b) {}
+		});
+		System.setOut(hideStream);
+	}
+
+	@Test
+	public void testConflictsOfHandlerFixtures() {
+		int conflicts = 0;
+		for (File[] scenario : Fixtures.scenarios()) {
+			MergeContext context = new JFSTMerge().mergeFiles(scenario[0], scenario[1], scenario[2], null);
+			String message = scenario[0].getPath();
+
+			assertSameConflicts(message, context.semistructuredOutput, context.getSemistructuredConflicts().getConflicts());
+			assertSameConflicts(message, context.getUnstructuredOutput(), context.getUnstructuredConflicts().getConflicts());
+			assertSameConflicts(message, context.semistructuredOutput, FilesManager.extractMergeConflicts(context.semistructuredOutput));
+			conflicts += context.getSemistructuredConflicts().getConflicts().size() + context.getUnstructuredConflicts().getConflicts().size();
+		}
+		assertTrue(conflicts > 0);
+	}
+
+	@Test
+	public void testLinesAreSplitAsBefore() {
+		Random random = new Random(5);
+		for (int i = 0; i < 5000; i++) {
+			StringBuilder code = new StringBuilder();
+			int lines = random.nextInt(40);
+			for (int j = 0; j < lines; j++) {
+				code.append(LINES[random.nextInt(LINES.length)]);
+				if (j < lines - 1 || random.nextBoolean()) {
+					code.append(LINE_BREAKS[random.nextInt(LINE_BREAKS.length)]);
+				}
+			}
+			String mergedCode = code.toString();
+			String message = mergedCode.replace("\n", "\\n").replace("\r", "\\r");
+			ConflictIndex index = new ConflictIndex(mergedCode);
+			assertSameConflicts(message, mergedCode, index.getConflicts());
+
+			for (int line = 0; line <= lines + 1; line++) {
+				boolean conflicting = false;
+				for (MergeConflict conflict : extractMergeConflicts(mergedCode)) {
+					conflicting |= conflict.startLOC <= line && line <= conflict.endLOC;
+				}
+				assertEquals(message, conflicting, index.isConflictingLine(line));
+			}
+		}
+	}
+
+	@Test
+	public void testIndexIsRebuiltWhenOutputChanges() {
+		MergeContext context = new MergeContext();
+		context.semistructuredOutput = "class A {\n<<<<<<< MINE\nint a;\n=======\nint b;\n>>>>>>> YOURS\n}";
+		ConflictIndex index = context.getSemistructuredConflicts();
+		assertSame(index, context.getSemistructuredConflicts());
+		assertEquals(1, index.getConflicts().size());
+
+		context.semistructuredOutput = "class A {\n}";
+		assertNotSame(index, context.getSemistructuredConflicts());
+		assertEquals(0, context.getSemistructuredConflicts().getConflicts().size());
+	}
+
+	/**
+	 * Compares the conflicts with the ones extracted before, and checks that their offsets delimit their lines.
+	 */
+	private static void assertSameConflicts(String message, String mergedCode, List<MergeConflict> conflicts) {
+		List<MergeConflict> expected = extractMergeConflicts(mergedCode);
+		List<String> lines = new BufferedReader(new StringReader(mergedCode)).lines().collect(Collectors.toList());
+		assertEquals(message, expected.size(), conflicts.size());
+		for (int i = 0; i < expected.size(); i++) {
+			MergeConflict expectedConflict = expected.get(i);
+			MergeConflict conflict = conflicts.get(i);
+			assertEquals(message, expectedConflict.left, conflict.left);
+			assertEquals(message, expectedConflict.right, conflict.right);
+			assertEquals(message, expectedConflict.body, conflict.body);
+			assertEquals(message, expectedConflict.startLOC, conflict.startLOC);
+			assertEquals(message, expectedConflict.endLOC, conflict.endLOC);
+			//a closing marker without an opening one starts its conflict before the first line
+			String conflictLines = mergedCode.substring(conflict.startOffset, conflict.endOffset);
+			assertEquals(message, lines.subList(Math.max(conflict.startLOC, 1) - 1, conflict.endLOC), new BufferedReader(new StringReader(conflictLines)).lines().collect(Collectors.toList()));
+		}
+	}
+
+	/**
+	 * Extraction of the merge conflicts before {@link ConflictIndex}.
+	 */
+	private static List<MergeConflict> extractMergeConflicts(String mergedCode){
+		String CONFLICT_HEADER_BEGIN= "<<<<<<< MINE";
+		String CONFLICT_MID			= "=======";
+		String CONFLICT_HEADER_END 	= ">>>>>>> YOURS";
+		String leftConflictingContent = "";
+		String rightConflictingContent= "";
+		boolean isConflictOpen		  = false;
+		boolean isLeftContent		  = false;
+		int lineCounter				  = 0;
+		int startLOC				  = 0;
+		int endLOC				  	  = 0;
+
+		List<MergeConflict> mergeConflicts = new ArrayList<MergeConflict>();
+		List<String> lines = new ArrayList<>();
+		BufferedReader reader = new BufferedReader(new StringReader(mergedCode));
+		lines = reader.lines().collect(Collectors.toList());
+		Iterator<String> itlines = lines.iterator();
+		while(itlines.hasNext()){
+			String line = itlines.next();
+			lineCounter++;
+			if(line.contains(CONFLICT_HEADER_BEGIN)){
+				isConflictOpen = true;
+				isLeftContent  = true;
+				startLOC = lineCounter;
+			}
+			else if(line.contains(CONFLICT_MID)){
+				isLeftContent = false;
+			}
+			else if(line.contains(CONFLICT_HEADER_END)) {
+				endLOC = lineCounter;
+				MergeConflict mergeConflict = new MergeConflict(leftConflictingContent,rightConflictingContent,startLOC,endLOC);
+				mergeConflicts.add(mergeConflict);
+
+				//reseting the flags
+				isConflictOpen	= false;
+				isLeftContent   = false;
+				leftConflictingContent = "";
+				rightConflictingContent= "";
+			} else {
+				if(isConflictOpen){
+					if(isLeftContent){leftConflictingContent+=line + "\n";
+					}else{rightConflictingContent+=line + "\n";}
+				}
+			}
+		}
+		return mergeConflicts;
+	}
+}
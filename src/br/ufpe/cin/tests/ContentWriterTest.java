@@ -0,0 +1,95 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.files.ContentWriter;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.printers.Prettyprinter;
+
+public class ContentWriterTest {
+
+	//ascii, accented, asian and supplementary characters, lone surrogates when picked apart, and characters of no charset
+	private static final String ALPHABET = "ab{}; \n\t\u00E7\u00E3\u4E2D\uD83D\uDE00\uD800\uDC00\uFFFF";
+	private static final Charset[] CHARSETS = {StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16, StandardCharsets.US_ASCII};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		//hidding sysout output
+		@SuppressWarnings("unused")
+		PrintStream originalStream = System.out;
+		PrintStream hideStream    = new PrintStream(new OutputStream(){
+			public void write(int b) {}
+		});
+		System.setOut(hideStream);
+	}
+
+	@Test
+	public void testContentIsEncodedAsGetBytes() throws Exception {
+		Random random = new Random(17);
+		for (int i = 0; i < 200; i++) {
+			//contents up to several buffers long
+			StringBuilder content = new StringBuilder();
+			int length = (i % 10 == 0) ? random.nextInt(300000) : random.nextInt(100);
+			for (int j = 0; j < length; j++) {
+				content.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			}
+			for (Charset charset : CHARSETS) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				ContentWriter.write(content, charset, out);
+				assertArrayEquals(content.toString().getBytes(charset), out.toByteArray());
+			}
+			assertEquals(content.toString().getBytes(StandardCharsets.UTF_8).length, ContentWriter.utf8Length(content));
+
+			File file = folder.newFile();
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+				ContentWriter.write(content, StandardCharsets.UTF_8, channel);
+			}
+			assertArrayEquals(content.toString().getBytes(StandardCharsets.UTF_8), Files.readAllBytes(file.toPath()));
+		}
+	}
+
+	@Test
+	public void testTreeIsStreamedAsPrinted() throws Exception {
+		int streamed = 0;
+		for (File[] scenario : Fixtures.scenarios()) {
+			MergeContext context = new JFSTMerge().mergeFiles(scenario[0], scenario[1], scenario[2], null);
+			if (context.superImposedTree == null) {
+				continue;
+			}
+			File file = folder.newFile();
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+					Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1)) {
+				Prettyprinter.print(context.superImposedTree, writer);
+			}
+			String printed = Prettyprinter.print(context.superImposedTree);
+			assertEquals(scenario[0].getPath(), printed, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+			assertEquals(scenario[0].getPath(), context.semistructuredOutput, printed);
+			streamed++;
+		}
+		assertTrue(streamed > 0);
+	}
+}
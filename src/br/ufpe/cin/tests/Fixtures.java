@@ -0,0 +1,69 @@
+package br.ufpe.cin.tests;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Merge scenarios of the handler tests, and descriptions of trees to compare the results of merging them.
+ */
+final class Fixtures {
+
+	private Fixtures() {}
+
+	/**
+	 * @return left, base and right files of the scenarios in the <i>testfiles</i> folder
+	 */
+	static List<File[]> scenarios() {
+		List<File[]> scenarios = new ArrayList<File[]>();
+		File[] folders = new File("testfiles").listFiles();
+		Arrays.sort(folders);
+		for (File scenario : folders) {
+			String[] versions = {"left", "base", "right"};
+			File[] files = new File[3];
+			for (int i = 0; i < 3; i++) {
+				files[i] = new File(scenario, versions[i] + ".java");
+				if (!files[i].isFile()) {
+					files[i] = new File(scenario, versions[i] + File.separator + "Test.java");
+				}
+			}
+			if (files[0].isFile() && files[1].isFile() && files[2].isFile()) {
+				scenarios.add(files);
+			}
+		}
+		return scenarios;
+	}
+
+	static String describe(List<FSTNode> nodes) {
+		StringBuilder description = new StringBuilder();
+		for (FSTNode node : nodes) {
+			description.append(describe(node)).append('\n');
+		}
+		return description.toString();
+	}
+
+	/**
+	 * Types, names and bodies of the nodes of a tree, except the generated names, which are distinct for every parse.
+	 */
+	static String describe(FSTNode node) {
+		StringBuilder description = new StringBuilder(node.getType());
+		if (!node.getName().startsWith("auto")) {
+			description.append(':').append(node.getName());
+		}
+		if (node instanceof FSTNonTerminal) {
+			description.append('(');
+			for (FSTNode child : ((FSTNonTerminal) node).getChildren()) {
+				description.append(describe(child)).append(',');
+			}
+			description.append(')');
+		} else if (node instanceof FSTTerminal) {
+			description.append('=').append(((FSTTerminal) node).getBody());
+		}
+		return description.toString();
+	}
+}
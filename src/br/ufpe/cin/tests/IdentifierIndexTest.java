@@ -0,0 +1,80 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.parser.IdentifierIndex;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+public class IdentifierIndexTest {
+
+	@Test
+	public void testIdentifiersOfCode() {
+		IdentifierIndex identifiers = IdentifierIndex.of("int total = sum(values) + this.count; // average\nString s = \"count of items\";");
+
+		assertTrue(identifiers.contains("total"));
+		assertTrue(identifiers.contains("sum"));
+		assertTrue(identifiers.contains("values"));
+		assertTrue(identifiers.contains("count"));
+		assertTrue(identifiers.contains("String"));
+		assertFalse(identifiers.contains("int"));		//keyword
+		assertFalse(identifiers.contains("average"));	//comment
+		assertFalse(identifiers.contains("items"));		//literal
+		assertFalse(identifiers.contains("tot"));		//part of an identifier
+	}
+
+	@Test
+	public void testQualifiedIdentifiers() {
+		IdentifierIndex identifiers = IdentifierIndex.of("a.field = field2; b . method(); other();");
+
+		assertTrue(identifiers.contains("field"));
+		assertFalse(identifiers.containsUnqualified("field"));
+		assertTrue(identifiers.containsUnqualified("field2"));
+		assertFalse(identifiers.containsUnqualified("method"));
+		assertTrue(identifiers.containsUnqualified("a"));
+		assertTrue(identifiers.containsUnqualified("other"));
+	}
+
+	@Test
+	public void testCodeNotAcceptedByLexerIsSplitInWords() {
+		IdentifierIndex identifiers = IdentifierIndex.of("end of a comment */ int x = p.y; \"unterminated");
+
+		assertTrue(identifiers.contains("end"));
+		assertTrue(identifiers.contains("x"));
+		assertTrue(identifiers.contains("unterminated"));
+		assertTrue(identifiers.containsUnqualified("p"));
+		assertFalse(identifiers.containsUnqualified("y"));
+	}
+
+	@Test
+	public void testIdentifiersOfSeveralPieces() {
+		IdentifierIndex identifiers = IdentifierIndex.of(Arrays.asList("int a = b;", "/* unterminated", "c.d();"));
+
+		assertTrue(identifiers.contains("a"));
+		assertTrue(identifiers.contains("b"));
+		assertTrue(identifiers.contains("unterminated"));
+		assertTrue(identifiers.containsUnqualified("c"));
+		assertFalse(identifiers.containsUnqualified("d"));
+	}
+
+	@Test
+	public void testIdentifiersAreKeptUntilTheTerminalChanges() {
+		MergeContext context = new MergeContext();
+		FSTTerminal terminal = new FSTTerminal("MethodDecl", "m()", "void m() { a(); }", "");
+		IdentifierIndex identifiers = context.getIdentifiers(terminal);
+		assertSame(identifiers, context.getIdentifiers(terminal));
+
+		terminal.setBody("void m() { b(); }");
+		IdentifierIndex changed = context.getIdentifiers(terminal);
+		assertNotSame(identifiers, changed);
+		assertTrue(changed.contains("b"));
+		assertFalse(changed.contains("a"));
+	}
+}
@@ -0,0 +1,106 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.files.NormalizedText;
+import br.ufpe.cin.generated.SimplePrintVisitor;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.printers.Prettyprinter;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+
+public class IndentingPrintVisitorTest {
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		//hidding sysout output
+		@SuppressWarnings("unused")
+		PrintStream originalStream = System.out;
+		PrintStream hideStream    = new PrintStream(new OutputStream(){
+			public void write(int b) {}
+		});
+		System.setOut(hideStream);
+	}
+
+	@Test
+	public void testPrintedCodeIsTheReindentedCode() throws Exception {
+		int reindented = 0;
+		int conflicting = 0;
+		for (File[] scenario : Fixtures.scenarios()) {
+			MergeContext context = new JFSTMerge().mergeFiles(scenario[0], scenario[1], scenario[2], null);
+			if (getCompilationUnit(context.superImposedTree) == null) {
+				continue;
+			}
+			String message = scenario[0].getPath();
+			String printed = Prettyprinter.print(context.superImposedTree);
+			String simplyPrinted = simplePrint(context.superImposedTree);
+
+			//the same tokens, only laid out differently
+			assertEquals(message, NormalizedText.removeWhitespaces(simplyPrinted), NormalizedText.removeWhitespaces(printed));
+			if (context.hasConflicts) {
+				//the conflicts, which the old reindentation could not parse, are indented as well
+				assertEquals(message, simplyPrinted, indentCode(simplyPrinted));
+				for (String line : printed.split("\n")) {
+					assertFalse(message, line.startsWith("\t") && line.trim().matches("(<<<<<<<|=======|>>>>>>>).*"));
+				}
+				conflicting++;
+			} else {
+				//the same code, as parsed by the old reindentation
+				assertEquals(message, indentCode(simplyPrinted), indentCode(printed));
+				assertTrue(message, printed.contains("\n\t"));
+				reindented++;
+			}
+		}
+		assertTrue(reindented > 0);
+		assertTrue(conflicting > 0);
+	}
+
+	/**
+	 * Printing of the merged trees before {@link br.ufpe.cin.printers.IndentingPrintVisitor}.
+	 */
+	private static String simplePrint(FSTNode tree) {
+		SimplePrintVisitor printer = new SimplePrintVisitor();
+		getCompilationUnit(tree).accept(printer);
+		return printer.getResult();
+	}
+
+	/**
+	 * Reindentation of the printed merged trees before {@link br.ufpe.cin.printers.IndentingPrintVisitor}.
+	 */
+	private static String indentCode(String sourceCode){
+		String indentedCode = sourceCode;
+		try{
+			CompilationUnit indenter = JavaParser.parse(new ByteArrayInputStream(sourceCode.getBytes()), StandardCharsets.UTF_8.displayName());
+			indentedCode = indenter.toString();
+		} catch (Exception e){} //in case of any errors, returns the non-indented sourceCode
+		return indentedCode;
+	}
+
+	private static FSTNonTerminal getCompilationUnit(FSTNode tree){
+		if(null != tree && tree instanceof FSTNonTerminal){
+			FSTNonTerminal node = (FSTNonTerminal)tree;
+			if(node.getType().equals("CompilationUnit")){
+				return node;
+			} else {
+				return node.getChildren().isEmpty()? null : getCompilationUnit(node.getChildren().get(1));
+			}
+		} else {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import br.ufpe.cin.mergers.util.InstanceCreationIndex;
+import br.ufpe.cin.mergers.util.MergeContext;
+
+public class InstanceCreationIndexTest {
+
+	private static final String CODE = "package p;\n"
+			+ "import java.util.ArrayList;\n"
+			+ "public class Outer {\n"
+			+ "	class Inner {}\n"
+			+ "	Inner first = new Inner();\n"
+			+ "	Object list = new ArrayList<String>();\n"
+			+ "	void m() {\n"
+			+ "		Inner second = new Inner();\n"
+			+ "		Outer.Inner third = new Outer.Inner();\n"
+			+ "		Runnable r = new Runnable() { public void run() { new Inner(); } };\n"
+			+ "		String s = \"new Inner()\"; // new Inner()\n"
+			+ "	}\n"
+			+ "}\n";
+
+	@Test
+	public void testInstanceCreationsAreCountedByType() {
+		InstanceCreationIndex instances = new InstanceCreationIndex(CODE);
+
+		assertEquals(3, instances.count("Inner"));
+		assertEquals(1, instances.count("Outer.Inner"));
+		assertEquals(1, instances.count("Runnable"));
+		assertEquals(1, instances.count("ArrayList<String>"));
+		assertEquals(0, instances.count("Outer"));
+		assertEquals(0, instances.count("String"));
+	}
+
+	@Test
+	public void testEmptyCodeHasNoInstanceCreations() {
+		assertEquals(0, new InstanceCreationIndex("").count("Inner"));
+	}
+
+	@Test
+	public void testEachRevisionIsCompiledOnce() {
+		MergeContext context = new MergeContext();
+		context.setBaseContent(CODE);
+		context.setLeftContent("class Outer { Object o = new Inner(); }");
+		context.setRightContent("");
+
+		assertSame(context.getBaseInstanceCreations(), context.getBaseInstanceCreations());
+		assertSame(context.getLeftInstanceCreations(), context.getLeftInstanceCreations());
+		assertSame(context.getRightInstanceCreations(), context.getRightInstanceCreations());
+		assertEquals(3, context.getBaseInstanceCreations().count("Inner"));
+		assertEquals(1, context.getLeftInstanceCreations().count("Inner"));
+		assertEquals(0, context.getRightInstanceCreations().count("Inner"));
+	}
+}
@@ -0,0 +1,109 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import br.ufpe.cin.logging.LoggerStatistics;
+import br.ufpe.cin.mergers.util.MergeContext;
+
+public class LoggerStatisticsTest {
+
+	private static final String ENTRY = "left.java#base.java#right.java,2,10,1,0,0,0,0,0,0,3,14,1000000,2000000,1,1,1";
+
+	@Rule
+	public TemporaryHome home = new TemporaryHome();
+
+	@Test
+	public void testSummaryIsUpdatedByRunningTotals() throws Exception {
+		log(1);
+		int files = summarizedFiles();
+		log(3);
+		String summary = readSummary();
+		assertEquals(files + 3, summarizedFiles());
+
+		LoggerStatistics.rebuildSummary();
+		assertEquals(summary, readSummary());
+	}
+
+	@Test
+	public void testLostCheckpointIsRecovered() throws Exception {
+		log(2);
+		int files = summarizedFiles();
+		checkpoint().delete();
+		log(1);
+
+		assertEquals(files + 1, summarizedFiles());
+	}
+
+	@Test
+	public void testCorruptedCheckpointIsRecovered() throws Exception {
+		log(2);
+		int files = summarizedFiles();
+		try (RandomAccessFile checkpoint = new RandomAccessFile(checkpoint(), "rw")) {
+			checkpoint.seek(4);
+			checkpoint.write(0xFF);
+		}
+		log(1);
+		String summary = readSummary();
+		assertEquals(files + 1, summarizedFiles());
+
+		LoggerStatistics.rebuildSummary();
+		assertEquals(summary, readSummary());
+	}
+
+	@Test
+	public void testEditedLogIsAccountedByRebuild() throws Exception {
+		log(2);
+		int files = summarizedFiles();
+		String summary = readSummary();
+		Files.write(statisticsLog().toPath(), ("20180101_000000," + ENTRY.replace(",2,10,", ",5,50,") + "\n").getBytes(), StandardOpenOption.APPEND);
+
+		LoggerStatistics.rebuildSummary();
+		assertNotEquals(summary, readSummary());
+		assertEquals(files + 1, summarizedFiles());
+
+		log(1); //the running totals go on from the rebuilt ones
+		assertEquals(files + 2, summarizedFiles());
+	}
+
+	private static void log(int entries) throws Exception {
+		for (int i = 0; i < entries; i++) {
+			LoggerStatistics.logContext(ENTRY, new MergeContext());
+		}
+	}
+
+	private File statisticsLog() {
+		return new File(home.getLogFolder(), "jfstmerge.statistics");
+	}
+
+	private File checkpoint() {
+		return new File(home.getLogFolder(), "jfstmerge.summary.checkpoint");
+	}
+
+	/**
+	 * @return the summary, without the time it was updated
+	 */
+	private String readSummary() throws Exception {
+		String summary = new String(Files.readAllBytes(new File(home.getLogFolder(), "jfstmerge.summary").toPath()));
+		return summary.replaceAll("LAST TIME UPDATED: .*", "");
+	}
+
+	/**
+	 * @return number of files in the summary, which also accounts the encrypted statistics of the user
+	 */
+	private int summarizedFiles() throws Exception {
+		Matcher matcher = Pattern.compile("invoked in (\\d+) JAVA files").matcher(readSummary());
+		matcher.find();
+		return Integer.parseInt(matcher.group(1));
+	}
+}
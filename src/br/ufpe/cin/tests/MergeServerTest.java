@@ -0,0 +1,207 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import br.ufpe.cin.app.MergeClient;
+import br.ufpe.cin.app.MergeServer;
+
+public class MergeServerTest {
+
+	//exit code of the process of a merge aborted by an error (-1)
+	private static final int ERROR_EXIT_CODE = 255;
+
+	private static final String TOKEN = "token";
+
+	@Rule
+	public TemporaryHome home = new TemporaryHome();
+
+	private File left;
+	private File base;
+	private File right;
+	private File output;
+
+	private Process server;
+	private FileChannel serverLock;
+
+	@Before
+	public void setUp() throws Exception {
+		File scenario = home.newFolder("scenario");
+		base  = write(new File(scenario, "base.java"), "public class A {\n\tvoid m() {\n\t\ta();\n\t}\n}\n");
+		left  = write(new File(scenario, "left.java"), "public class A {\n\tvoid m() {\n\t\tb();\n\t}\n}\n");
+		right = write(new File(scenario, "right.java"), "public class A {\n\tvoid m() {\n\t\tc();\n\t}\n}\n");
+		output = new File(scenario, "merged.java");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (server != null) {
+			server.destroy();
+			server.waitFor();
+		}
+		if (serverLock != null) {
+			serverLock.close();
+		}
+	}
+
+	@Test
+	public void testServerAnswersWithTheExitCodesOfTheMerges() throws Exception {
+		server = java(MergeServer.class, "1").start();
+		File portFile = new File(home.getLogFolder(), "server.port");
+		for (int i = 0; i < 300 && !portFile.isFile(); i++) {
+			Thread.sleep(100);
+		}
+		assertTrue(portFile.isFile());
+
+		assertEquals(1, client("-f", left.getPath(), base.getPath(), right.getPath(), "-o", output.getPath(), "-g"));
+		assertTrue(output.isFile());
+
+		write(right, "public class A {\n\tvoid m() {\n\t\ta();\n\t}\n\tvoid n() {}\n}\n");
+		assertEquals(0, client("-f", left.getPath(), base.getPath(), right.getPath(), "-o", output.getPath(), "-g"));
+
+		File unwritable = new File(left, "merged.java");
+		assertEquals(ERROR_EXIT_CODE, client("-f", left.getPath(), base.getPath(), right.getPath(), "-o", unwritable.getPath(), "-g"));
+
+		//every request was answered by the same server
+		assertTrue(server.isAlive());
+		assertTrue(portFile.isFile());
+	}
+
+	@Test
+	public void testClientForwardsTheMergeAndItsExitCode() throws Exception {
+		holdServerLock();
+		try (ServerSocket serverSocket = fakeServer()) {
+			File console = new File(home.getRoot(), "console");
+			File errors = new File(home.getRoot(), "errors");
+			Process client = java(MergeClient.class, "-f", left.getPath(), base.getPath(), right.getPath(), "-o", "merged.java", "-g")
+					.redirectOutput(console).redirectError(errors).start();
+
+			try (Socket socket = serverSocket.accept()) {
+				DataInputStream in = new DataInputStream(socket.getInputStream());
+				DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+				assertEquals(TOKEN, in.readUTF());
+				String[] args = new String[in.readInt()];
+				for (int i = 0; i < args.length; i++) {
+					args[i] = in.readUTF();
+				}
+				assertEquals(new File("merged.java").getAbsolutePath(), args[5]);
+				out.writeBoolean(true);
+				writeBytes(out, "merged");
+				writeBytes(out, "warning");
+				out.writeInt(7);
+				out.flush();
+			}
+			assertEquals(7, exitCodeOf(client));
+			assertEquals("merged", new String(Files.readAllBytes(console.toPath()), StandardCharsets.UTF_8));
+			assertEquals("warning", new String(Files.readAllBytes(errors.toPath()), StandardCharsets.UTF_8));
+		}
+		assertFalse(output.exists());
+	}
+
+	@Test
+	public void testClientMergesWhenTheServerStopsBeforeAcceptingTheMerge() throws Exception {
+		holdServerLock();
+		try (ServerSocket serverSocket = fakeServer()) {
+			Process client = java(MergeClient.class, "-f", left.getPath(), base.getPath(), right.getPath(), "-o", output.getPath(), "-g").start();
+
+			//as a server that stops for being idle, with the client connection queued
+			try (Socket socket = serverSocket.accept()) {
+				new DataInputStream(socket.getInputStream()).readUTF();
+			}
+			assertEquals(1, exitCodeOf(client));
+		}
+		assertTrue(output.isFile());
+	}
+
+	@Test
+	public void testClientDoesNotMergeAcceptedMerges() throws Exception {
+		holdServerLock();
+		try (ServerSocket serverSocket = fakeServer()) {
+			Process client = java(MergeClient.class, "-f", left.getPath(), base.getPath(), right.getPath(), "-o", output.getPath(), "-g").start();
+
+			try (Socket socket = serverSocket.accept()) {
+				DataInputStream in = new DataInputStream(socket.getInputStream());
+				in.readUTF();
+				int args = in.readInt();
+				for (int i = 0; i < args; i++) {
+					in.readUTF();
+				}
+				DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+				out.writeBoolean(true);
+				out.flush();
+			}
+			assertEquals(ERROR_EXIT_CODE, exitCodeOf(client));
+		}
+		assertFalse(output.exists());
+	}
+
+	/**
+	 * Publishes a server that the clients connect to instead of a merge server.
+	 */
+	private ServerSocket fakeServer() throws IOException {
+		ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		serverSocket.setSoTimeout(60000);
+		write(new File(home.getLogFolder(), "server.port"), serverSocket.getLocalPort() + "\n" + TOKEN + "\n");
+		return serverSocket;
+	}
+
+	/**
+	 * Keeps the servers started by the clients from running.
+	 */
+	private void holdServerLock() throws IOException {
+		home.getLogFolder().mkdirs();
+		serverLock = FileChannel.open(new File(home.getLogFolder(), "server.lock").toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		serverLock.lock();
+	}
+
+	private int client(String... args) throws Exception {
+		return exitCodeOf(java(MergeClient.class, args).start());
+	}
+
+	private ProcessBuilder java(Class<?> main, String... args) {
+		List<String> command = new ArrayList<String>(Arrays.asList(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+				"-Duser.home=" + home.getRoot().getAbsolutePath(), "-cp", System.getProperty("java.class.path"), main.getName()));
+		command.addAll(Arrays.asList(args));
+		File log = new File(home.getRoot(), "processes.log");
+		return new ProcessBuilder(command).redirectOutput(ProcessBuilder.Redirect.appendTo(log)).redirectError(ProcessBuilder.Redirect.appendTo(log));
+	}
+
+	private static int exitCodeOf(Process process) throws InterruptedException {
+		assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+		return process.exitValue();
+	}
+
+	private static File write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static void writeBytes(DataOutputStream out, String content) throws IOException {
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
@@ -0,0 +1,131 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.files.NormalizedText;
+import br.ufpe.cin.mergers.util.MergeConflict;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+public class NormalizedTextTest {
+
+	//whitespaces matched by \s, and others that are not
+	private static final String ALPHABET = "ab{}();=. \t\n\r\u000B\f\u00A0\u2028\u3000";
+
+	@Test
+	public void testWhitespacesAreTheRegexWhitespaces() {
+		Random random = new Random(11);
+		for (int i = 0; i < 20000; i++) {
+			String text = randomText(random);
+			assertEquals(escape(text), normalize(text), NormalizedText.removeWhitespaces(text));
+			assertEquals(escape(text), normalize(text), FilesManager.getStringContentIntoSingleLineNoSpacing(text));
+			assertEquals(escape(text), normalize(text).isEmpty(), NormalizedText.isBlank(text));
+		}
+		String normalized = "intx=0;";
+		assertSame(normalized, NormalizedText.removeWhitespaces(normalized));
+	}
+
+	@Test
+	public void testComparisonsAreTheComparisonsOfNormalizedTexts() {
+		Random random = new Random(12);
+		for (int i = 0; i < 20000; i++) {
+			String first  = randomText(random);
+			String second = (random.nextBoolean()) ? respace(random, first) : randomText(random);
+			String message = escape(first) + " / " + escape(second);
+
+			assertEquals(message, normalize(first).equals(normalize(second)), NormalizedText.equals(first, second));
+			assertEquals(message, Integer.signum(normalize(first).compareTo(normalize(second))), Integer.signum(NormalizedText.compare(first, second)));
+			assertEquals(message, Integer.signum(normalize(first).compareTo(normalize(second))), Integer.signum(NormalizedText.COMPARATOR.compare(first, second)));
+			assertEquals(message, normalize(first).hashCode(), NormalizedText.hash(first));
+			if (NormalizedText.equals(first, second)) {
+				assertEquals(message, NormalizedText.hash(first), NormalizedText.hash(second));
+			}
+		}
+	}
+
+	@Test
+	public void testConflictComparisonsAreTheComparisonsOfNormalizedContents() {
+		Random random = new Random(13);
+		for (int i = 0; i < 20000; i++) {
+			MergeConflict first  = new MergeConflict(randomText(random), randomText(random));
+			MergeConflict second = (random.nextBoolean())
+					? new MergeConflict(respace(random, first.left), respace(random, first.right))
+					: new MergeConflict(respace(random, first.left + first.right.substring(0, first.right.length() / 2)), randomText(random));
+			String leftPattern  = pattern(random, first.left);
+			String rightPattern = pattern(random, first.right);
+			String message = escape(first.body) + " / " + escape(second.body);
+
+			//as the statistics and the handlers compared them before
+			assertEquals(message, normalize(first.left + first.right).equals(normalize(second.left + second.right)), first.isEquivalentTo(second));
+			boolean contained = !leftPattern.isEmpty() && !rightPattern.isEmpty()
+					&& normalize(first.left).contains(normalize(leftPattern)) && normalize(first.right).contains(normalize(rightPattern));
+			assertEquals(message, contained, first.contains(leftPattern, rightPattern));
+			//blank patterns, never computed from declarations, are not contained once normalized
+			boolean blank = normalize(leftPattern).isEmpty() || normalize(rightPattern).isEmpty();
+			assertEquals(message, contained && !blank, first.containsNormalized(normalize(leftPattern), normalize(rightPattern)));
+		}
+	}
+
+	@Test
+	public void testNormalizedBodyChangesWithTheBody() {
+		NormalizedText.TerminalCache cache = new NormalizedText.TerminalCache();
+		FSTTerminal terminal = new FSTTerminal("MethodDecl", "m()", "void m() {\n\ta();\n}", "");
+		String normalized = cache.getNormalizedBody(terminal);
+		assertEquals("voidm(){a();}", normalized);
+		assertSame(normalized, cache.getNormalizedBody(terminal));
+
+		terminal.setBody("void m() {\n\tb();\n}");
+		assertNotSame(normalized, cache.getNormalizedBody(terminal));
+		assertEquals("voidm(){b();}", cache.getNormalizedBody(terminal));
+	}
+
+	/**
+	 * Normalization of code before {@link NormalizedText}.
+	 */
+	private static String normalize(String content) {
+		return (content.replaceAll("\\r\\n|\\r|\\n","")).replaceAll("\\s+","");
+	}
+
+	private static String randomText(Random random) {
+		StringBuilder text = new StringBuilder();
+		int length = random.nextInt(30);
+		for (int i = 0; i < length; i++) {
+			text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+		}
+		return text.toString();
+	}
+
+	/**
+	 * @return the text with its whitespaces changed, and rarely with another character changed
+	 */
+	private static String respace(Random random, String text) {
+		StringBuilder respaced = new StringBuilder();
+		for (char c : text.toCharArray()) {
+			if (!NormalizedText.isWhitespace(c)) {
+				respaced.append((random.nextInt(50) == 0) ? 'c' : c);
+			}
+			while (random.nextInt(4) == 0) {
+				respaced.append(" \t\r\n".charAt(random.nextInt(4)));
+			}
+		}
+		return respaced.toString();
+	}
+
+	private static String pattern(Random random, String text) {
+		if (random.nextInt(4) == 0) {
+			return randomText(random);
+		}
+		int begin = random.nextInt(text.length() + 1);
+		return respace(random, text.substring(begin, begin + random.nextInt(text.length() - begin + 1)));
+	}
+
+	private static String escape(String text) {
+		return text.replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+	}
+}
@@ -0,0 +1,68 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.files.FilesTuple;
+
+public class ParallelMergeTest {
+
+	@Rule
+	public TemporaryHome home = new TemporaryHome();
+
+	private File left;
+	private File base;
+	private File right;
+
+	@Before
+	public void setUp() throws Exception {
+		//the scenarios of the handler tests, as the files of the merged directories
+		left  = home.newFolder("left");
+		base  = home.newFolder("base");
+		right = home.newFolder("right");
+		for (File[] scenario : Fixtures.scenarios()) {
+			String name = scenario[0].getPath().split("[/\\\\]")[1] + ".java";
+			Files.copy(scenario[0].toPath(), new File(left, name).toPath());
+			Files.copy(scenario[1].toPath(), new File(base, name).toPath());
+			Files.copy(scenario[2].toPath(), new File(right, name).toPath());
+		}
+	}
+
+	@Test
+	public void testParallelMergeIsTheSequentialMerge() throws Exception {
+		ByteArrayOutputStream sequentialConsole = new ByteArrayOutputStream();
+		List<FilesTuple> sequential = mergeDirectories(1, sequentialConsole);
+		ByteArrayOutputStream parallelConsole = new ByteArrayOutputStream();
+		List<FilesTuple> parallel = mergeDirectories(4, parallelConsole);
+
+		assertTrue(sequential.size() > 1);
+		assertEquals(sequential.size(), parallel.size());
+		for (int i = 0; i < sequential.size(); i++) {
+			assertEquals(sequential.get(i).getLeftFile(), parallel.get(i).getLeftFile());
+			assertEquals(sequential.get(i).getContext().semistructuredOutput, parallel.get(i).getContext().semistructuredOutput);
+		}
+		assertTrue(sequentialConsole.toString("UTF-8").contains("Parsing: "));
+		assertEquals(sequentialConsole.toString("UTF-8"), parallelConsole.toString("UTF-8"));
+	}
+
+	private List<FilesTuple> mergeDirectories(int numberOfThreads, ByteArrayOutputStream console) throws Exception {
+		PrintStream systemOut = System.out;
+		try {
+			System.setOut(new PrintStream(console, true, "UTF-8"));
+			return new JFSTMerge().mergeDirectories(left.getPath(), base.getPath(), right.getPath(), null, numberOfThreads);
+		} finally {
+			System.setOut(systemOut);
+		}
+	}
+}
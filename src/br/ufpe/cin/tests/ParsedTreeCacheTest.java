@@ -0,0 +1,112 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.files.SourceSnapshot;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.parser.JParser;
+import br.ufpe.cin.parser.ParsedTreeCache;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+
+public class ParsedTreeCacheTest {
+
+	private static final File SAMPLE = new File("testfiles/initlblocksthreeversions/left/Test.java");
+
+	@Rule
+	public TemporaryHome home = new TemporaryHome();
+
+	private File cacheDirectory;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		//hidding sysout output
+		@SuppressWarnings("unused")
+		PrintStream originalStream = System.out;
+		PrintStream hideStream    = new PrintStream(new OutputStream(){
+			public void write(int b) {}
+		});
+		System.setOut(hideStream);
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		cacheDirectory = new File(home.getLogFolder(), "cache");
+		JFSTMerge.useParsedTreeCache = true;
+	}
+
+	@After
+	public void tearDown() {
+		JFSTMerge.useParsedTreeCache = false;
+	}
+
+	@Test
+	public void testColdParseIsCached() throws Exception {
+		SourceSnapshot source = SourceSnapshot.of(SAMPLE);
+		assertNull(ParsedTreeCache.get(source));
+
+		FSTNode parsed = new JParser().parse(source);
+		assertEquals(1, cacheDirectory.listFiles().length);
+
+		FSTNode cached = ParsedTreeCache.get(source);
+		assertNotNull(cached);
+		assertEquals(Fixtures.describe(((FSTNonTerminal) parsed).getChildren().get(1)), Fixtures.describe(cached));
+	}
+
+	@Test
+	public void testCacheHitHasSameTreeAsColdParse() throws Exception {
+		FSTNode cold = new JParser().parse(SAMPLE);
+		FSTNode hit  = new JParser().parse(SAMPLE);
+		assertEquals(Fixtures.describe(cold), Fixtures.describe(hit));
+
+		JFSTMerge.useParsedTreeCache = false;
+		FSTNode uncached = new JParser().parse(SAMPLE);
+		assertEquals(Fixtures.describe(uncached), Fixtures.describe(hit));
+	}
+
+	@Test
+	public void testMergeWithCacheHasSameOutput() {
+		JFSTMerge.useParsedTreeCache = false;
+		MergeContext uncached = merge();
+		JFSTMerge.useParsedTreeCache = true;
+		MergeContext cold = merge();
+		MergeContext hit  = merge();
+
+		assertEquals(uncached.semistructuredOutput, cold.semistructuredOutput);
+		assertEquals(uncached.semistructuredOutput, hit.semistructuredOutput);
+	}
+
+	@Test
+	public void testCorruptedEntryIsParsedAgain() throws Exception {
+		SourceSnapshot source = SourceSnapshot.of(SAMPLE);
+		new JParser().parse(source);
+		File entry = cacheDirectory.listFiles()[0];
+		Files.write(entry.toPath(), new byte[]{1, 2, 3});
+
+		assertNull(ParsedTreeCache.get(source));
+		assertFalse(entry.exists());
+	}
+
+	private static MergeContext merge() {
+		return new JFSTMerge().mergeFiles(
+				new File("testfiles/initlblocksthreeversions/left/Test.java"),
+				new File("testfiles/initlblocksthreeversions/base/Test.java"),
+				new File("testfiles/initlblocksthreeversions/right/Test.java"),
+				null);
+	}
+}
@@ -0,0 +1,124 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import br.ufpe.cin.files.ProjectResourceIndex;
+
+public class ProjectResourceIndexTest {
+
+	private static final String[] EXTENSIONS = {"java", "jar", "txt"};
+
+	@Rule
+	public TemporaryHome home = new TemporaryHome();
+
+	private File project;
+	private File indexes;
+
+	@Before
+	public void setUp() throws Exception {
+		project = home.newFolder("project");
+		indexes = new File(home.getLogFolder(), "projects");
+	}
+
+	@Test
+	public void testFoldersAreTheFoldersOfAListing() throws Exception {
+		Random random = new Random(3);
+		for (int i = 0; i < 40; i++) {
+			createFiles(random, project, 3);
+		}
+		setOldModificationTimes(project);
+		assertSameFolders();
+
+		//indexes stored by a previous run only list again the changed folders
+		for (int round = 0; round < 10; round++) {
+			List<File> entries = new ArrayList<File>(FileUtils.listFilesAndDirs(project, TrueFileFilter.TRUE, TrueFileFilter.TRUE));
+			for (int i = 0; i < 5; i++) {
+				File entry = entries.get(random.nextInt(entries.size()));
+				if (entry.equals(project) || random.nextBoolean()) {
+					createFiles(random, entry.isDirectory() ? entry : entry.getParentFile(), 2);
+				} else if (entry.exists()) {
+					FileUtils.forceDelete(entry);
+				}
+			}
+			ProjectResourceIndex.configure(indexes);
+			assertSameFolders();
+			setOldModificationTimes(project);
+		}
+	}
+
+	@Test
+	public void testCorruptedIndexesAreBuiltAgain() throws Exception {
+		createFiles(new Random(4), project, 3);
+		setOldModificationTimes(project);
+		assertSameFolders();
+
+		File[] stored = indexes.listFiles();
+		assertEquals(1, stored.length);
+		Files.write(stored[0].toPath(), new byte[]{0, 0, 0, 1, 0});
+		ProjectResourceIndex.configure(indexes);
+		assertSameFolders();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRootMustBeAFolder() throws Exception {
+		ProjectResourceIndex.of(home.newFile("A.java").getPath()).getFolders("java");
+	}
+
+	private void assertSameFolders() {
+		for (String extension : EXTENSIONS) {
+			assertEquals(extension, listFolders(project, extension), ProjectResourceIndex.of(project.getPath()).getFolders(extension));
+		}
+	}
+
+	/**
+	 * Listing of the folders before {@link ProjectResourceIndex}.
+	 */
+	private static List<String> listFolders(File root, String extension) {
+		Set<String> folders = new LinkedHashSet<String>();
+		for (File file : FileUtils.listFiles(root, new String[]{extension}, true)) {
+			folders.add(file.getParent());
+		}
+		return new ArrayList<String>(folders);
+	}
+
+	private static void createFiles(Random random, File folder, int depth) throws IOException {
+		int entries = random.nextInt(4);
+		for (int i = 0; i < entries; i++) {
+			String name = Integer.toString(random.nextInt(1000));
+			if (depth > 0 && random.nextInt(3) == 0) {
+				File subfolder = new File(folder, name);
+				subfolder.mkdir();
+				createFiles(random, subfolder, depth - 1);
+			} else {
+				new File(folder, name + "." + EXTENSIONS[random.nextInt(EXTENSIONS.length)]).createNewFile();
+			}
+		}
+	}
+
+	/**
+	 * Modification times older than the precision of the file systems, so that unchanged folders are not listed again.
+	 */
+	private static void setOldModificationTimes(File folder) {
+		for (File file : FileUtils.listFilesAndDirs(folder, TrueFileFilter.TRUE, TrueFileFilter.TRUE)) {
+			if (file.isDirectory()) {
+				assertTrue(file.setLastModified(System.currentTimeMillis() - 3600000));
+			}
+		}
+	}
+}
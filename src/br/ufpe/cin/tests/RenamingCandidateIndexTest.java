@@ -0,0 +1,144 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.mergers.util.RenamingCandidateIndex;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+public class RenamingCandidateIndexTest {
+
+	private static final String[] WORDS = {"count", "total", "value", "index", "name", "list", "item", "size", "result", "buffer", "node", "key"};
+
+	@Test
+	public void testRemoveSignature() {
+		assertEquals("{returna+b;}", RenamingCandidateIndex.removeSignature("int sum(int a, int b) {\n return a + b;\n}"));
+		assertEquals("{returna+b;}", RenamingCandidateIndex.removeSignature("int sumOf(int a,int b){ return a+b; }"));
+		assertEquals("voidm();", RenamingCandidateIndex.removeSignature("void m();"));
+	}
+
+	@Test
+	public void testNodesWithSameBody() {
+		FSTNode renamed = method("int sumOf(int x, int y) {\n\treturn a + b;\n}");
+		FSTNode other = method("int diff(int a, int b) {\n\treturn a - b;\n}");
+		RenamingCandidateIndex index = new RenamingCandidateIndex(Arrays.asList(other, renamed));
+
+		assertEquals(Arrays.asList(renamed), index.getNodesWithSameBody("int sum(int a, int b) { return a + b; }"));
+		assertTrue(index.getNodesWithSameBody("int sum(int a, int b) { return a * b; }").isEmpty());
+	}
+
+	@Test
+	public void testOnlyTerminalsAreIndexed() {
+		FSTNode method = method("void m() {}");
+		RenamingCandidateIndex index = new RenamingCandidateIndex(Arrays.asList(new FSTNonTerminal("ClassDeclaration", "A"), method));
+
+		assertEquals(Arrays.asList(method), index.getNodes());
+	}
+
+	@Test
+	public void testFewNodesAreNotReordered() {
+		Random random = new Random(1);
+		List<FSTNode> nodes = randomMethods(random, 16);
+		RenamingCandidateIndex index = new RenamingCandidateIndex(nodes);
+
+		assertEquals(nodes, index.getSimilarCandidates(((FSTTerminal) nodes.get(15)).getBody()));
+	}
+
+	@Test
+	public void testEveryNodeIsCandidate() {
+		Random random = new Random(2);
+		List<FSTNode> nodes = randomMethods(random, 200);
+		RenamingCandidateIndex index = new RenamingCandidateIndex(nodes);
+
+		for (int i = 0; i < 50; i++) {
+			List<FSTNode> candidates = index.getSimilarCandidates(randomMethod(random, "query" + i));
+			assertEquals(nodes.size(), candidates.size());
+			assertEquals(new HashSet<FSTNode>(nodes), new HashSet<FSTNode>(candidates));
+		}
+	}
+
+	@Test
+	public void testMostSimilarNodeIsRankedFirst() {
+		Random random = new Random(3);
+		int queries = 200, recalled = 0;
+		for (int q = 0; q < queries; q++) {
+			List<FSTNode> nodes = randomMethods(random, 40);
+			String renamed = edit(random, ((FSTTerminal) nodes.get(random.nextInt(nodes.size()))).getBody());
+
+			FSTNode mostSimilar = null;
+			double highestSimilarity = -1;
+			for (FSTNode node : nodes) {
+				double similarity = FilesManager.computeStringSimilarity(renamed, ((FSTTerminal) node).getBody());
+				if (similarity > highestSimilarity) {
+					highestSimilarity = similarity;
+					mostSimilar = node;
+				}
+			}
+			List<FSTNode> candidates = new RenamingCandidateIndex(nodes).getSimilarCandidates(renamed);
+			if (candidates.get(0) == mostSimilar) {
+				recalled++;
+			}
+		}
+		assertTrue("recall: " + recalled + "/" + queries, recalled >= queries * 0.95);
+	}
+
+	private static FSTNode method(String body) {
+		return new FSTTerminal("MethodDecl", body.substring(0, body.indexOf('(')), body, "");
+	}
+
+	private static List<FSTNode> randomMethods(Random random, int count) {
+		List<FSTNode> methods = new ArrayList<FSTNode>();
+		for (int i = 0; i < count; i++) {
+			methods.add(method(randomMethod(random, "method" + i)));
+		}
+		return methods;
+	}
+
+	private static String randomMethod(Random random, String name) {
+		StringBuilder method = new StringBuilder("public int " + name + "(int " + word(random) + ") {\n");
+		int statements = 2 + random.nextInt(6);
+		for (int i = 0; i < statements; i++) {
+			switch (random.nextInt(4)) {
+			case 0:
+				method.append("\tint " + word(random) + i + " = " + word(random) + " + " + random.nextInt(100) + ";\n");
+				break;
+			case 1:
+				method.append("\tif (" + word(random) + " > " + random.nextInt(10) + ") {\n\t\t" + word(random) + "++;\n\t}\n");
+				break;
+			case 2:
+				method.append("\t" + word(random) + ".add(" + word(random) + "." + word(random) + "());\n");
+				break;
+			default:
+				method.append("\tSystem.out.println(\"" + word(random) + " " + word(random) + "\");\n");
+			}
+		}
+		return method.append("\treturn " + word(random) + ";\n}").toString();
+	}
+
+	/**
+	 * Renames the method, and makes a small change to its body.
+	 */
+	private static String edit(Random random, String method) {
+		String renamed = method.replaceFirst("method\\d+", "renamed");
+		int line = renamed.indexOf('\n', random.nextInt(renamed.length() - 1));
+		if (line < 0 || line == renamed.length() - 1) {
+			return renamed;
+		}
+		return renamed.substring(0, line + 1) + "\t" + word(random) + "--;\n" + renamed.substring(line + 1);
+	}
+
+	private static String word(Random random) {
+		return WORDS[random.nextInt(WORDS.length)];
+	}
+}
@@ -52,6 +52,20 @@ public class RenamingConflictsHandlerTest {
 		assertTrue(ctx.renamingConflicts == 1);
 	}
 	
+	@Test
+	public void testConflictingRenamingAmongManyNewMethods() {
+		MergeContext ctx = 	new JFSTMerge().mergeFiles(
+				new File("testfiles/renamingmethodleftmanynew/left.java"), 
+				new File("testfiles/renamingmethodleftmanynew/base.java"), 
+				new File("testfiles/renamingmethodleftmanynew/right.java"),
+				null);
+		String mergeResult = FilesManager.getStringContentIntoSingleLineNoSpacing(ctx.semistructuredOutput);
+		
+		assertTrue(mergeResult.contains("<<<<<<<MINEpublicinttotal(int[]values){intsum=0,count=0;for(intv:values){sum+=v;count++;}returnsum;}=======publicintsumOf(int[]items){intsum=0;for(intitem:items){sum+=item;}returnsum;}>>>>>>>YOURS"));
+		assertTrue(ctx.renamingConflicts == 1);
+		assertTrue(ctx.deletionConflicts == 0);
+	}
+	
 	@Test
 	public void testNoConflictingRenamingInLeft() {
 		MergeContext ctx = 	new JFSTMerge().mergeFiles(
@@ -0,0 +1,95 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import br.ufpe.cin.logging.SegmentedLog;
+
+public class SegmentedLogTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testRecordsAreReadInOrder() throws Exception {
+		SegmentedLog log = new SegmentedLog(folder.getRoot(), 1024 * 1024);
+		List<String> records = append(log, 10);
+
+		assertEquals(records, log.readAll());
+		assertEquals(1, segments().length);
+	}
+
+	@Test
+	public void testRecordsAreEncrypted() throws Exception {
+		SegmentedLog log = new SegmentedLog(folder.getRoot(), 1024 * 1024);
+		log.append("20180101_000000,left.java#base.java#right.java,1,2,3");
+
+		String content = new String(Files.readAllBytes(segments()[0].toPath()), StandardCharsets.ISO_8859_1);
+		assertFalse(content.contains("left.java"));
+	}
+
+	@Test
+	public void testNewSegmentIsStartedWhenFull() throws Exception {
+		SegmentedLog log = new SegmentedLog(folder.getRoot(), 256);
+		List<String> records = append(log, 20);
+
+		assertTrue(segments().length > 1);
+		assertEquals(records, log.readAll());
+	}
+
+	@Test
+	public void testPartiallyWrittenRecordIsSkipped() throws Exception {
+		SegmentedLog log = new SegmentedLog(folder.getRoot(), 1024 * 1024);
+		List<String> records = append(log, 3);
+		File segment = segments()[0];
+		try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) { //as if the merge was interrupted
+			file.setLength(file.length() - 5);
+		}
+		List<String> newRecords = append(log, 2);
+
+		List<String> expected = new ArrayList<String>(records.subList(0, 2));
+		expected.addAll(newRecords);
+		assertEquals(expected, log.readAll());
+	}
+
+	@Test
+	public void testCorruptedRecordIsSkipped() throws Exception {
+		SegmentedLog log = new SegmentedLog(folder.getRoot(), 1024 * 1024);
+		List<String> records = append(log, 3);
+		File segment = segments()[0];
+		byte[] content = Files.readAllBytes(segment.toPath());
+		content[content.length / 2] ^= 0xFF; //inside the second record
+		Files.write(segment.toPath(), content);
+
+		assertEquals(Arrays.asList(records.get(0), records.get(2)), log.readAll());
+	}
+
+	private static List<String> append(SegmentedLog log, int count) throws Exception {
+		List<String> records = new ArrayList<String>();
+		for (int i = 0; i < count; i++) {
+			String record = System.nanoTime() + ",files" + i + ",1,2,3";
+			log.append(record);
+			records.add(record);
+		}
+		return records;
+	}
+
+	private File[] segments() {
+		File[] segments = folder.getRoot().listFiles((dir, name) -> name.endsWith(".log"));
+		Arrays.sort(segments);
+		return segments;
+	}
+}
@@ -0,0 +1,153 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.logging.AsyncLogWriter;
+import br.ufpe.cin.logging.SegmentedLog;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.statistics.StatisticsSpool;
+
+public class StatisticsSpoolTest {
+
+	@Rule
+	public TemporaryHome home = new TemporaryHome();
+
+	private File spoolDirectory;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		//hidding sysout output
+		@SuppressWarnings("unused")
+		PrintStream originalStream = System.out;
+		PrintStream hideStream    = new PrintStream(new OutputStream(){
+			public void write(int b) {}
+		});
+		System.setOut(hideStream);
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		spoolDirectory = new File(home.getLogFolder(), "spool");
+		spoolDirectory.mkdirs();
+		StatisticsSpool.startsBatchJob = false;
+	}
+
+	@After
+	public void tearDown() {
+		AsyncLogWriter.getInstance().flush(10000);
+		JFSTMerge.computeStatistics = true;
+		StatisticsSpool.startsBatchJob = true;
+	}
+
+	@Test
+	public void testSpooledMergeIsProcessedLater() throws Exception {
+		StatisticsSpool.spool(merge());
+		assertTrue(StatisticsSpool.hasPendingEntries());
+		assertFalse(statisticsLog().exists());
+
+		assertEquals(1, StatisticsSpool.processAll());
+		assertFalse(StatisticsSpool.hasPendingEntries());
+		assertEquals(1, readEntries().size());
+		String[] columns = readEntries().get(0).split(",");
+		assertTrue(columns[1].contains("renamingmethodleftconf"));
+		assertEquals("1", columns[4]); //renaming conflicts, counted by the merge before spooling
+	}
+
+	@Test
+	public void testSpoolIsProcessedOneMergeAtATime() throws Exception {
+		StatisticsSpool.spool(merge());
+		StatisticsSpool.spool(merge());
+
+		assertTrue(StatisticsSpool.processNext());
+		assertEquals(1, readEntries().size());
+		assertTrue(StatisticsSpool.hasPendingEntries());
+		assertEquals(1, StatisticsSpool.processAll());
+		assertEquals(2, readEntries().size());
+		assertEquals(0, StatisticsSpool.processAll());
+	}
+
+	@Test
+	public void testSpooledMergeIsLoggedWithTheTimeOfTheMerge() throws Exception {
+		MergeContext context = merge();
+		context.mergeTimestamp -= 2 * 24 * 3600 * 1000L; //as if the spool was processed two days after the merge
+		StatisticsSpool.spool(context);
+
+		assertEquals(1, StatisticsSpool.processAll());
+		String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date(context.mergeTimestamp));
+		assertEquals(timeStamp, readEntries().get(0).split(",")[0]);
+	}
+
+	@Test
+	public void testLogRecordsOfGitMergesAreSpooled() throws Exception {
+		File log = new File(home.getLogFolder(), "conflicts");
+		File segments = new File(home.getLogFolder(), "files");
+		JFSTMerge.isGit = true;
+		try {
+			AsyncLogWriter.getInstance().append(log, "header\n", "record\n");
+			AsyncLogWriter.getInstance().appendToBuffer(segments, "files\n", true, 1024 * 1024);
+		} finally {
+			JFSTMerge.isGit = false;
+		}
+		assertTrue(AsyncLogWriter.getInstance().flush(0)); //nothing queued for the driver to wait for
+		assertFalse(log.exists());
+		assertFalse(segments.exists());
+
+		assertEquals(2, StatisticsSpool.processAll());
+		assertTrue(AsyncLogWriter.getInstance().flush(10000));
+		assertEquals(Arrays.asList("header", "record"), Files.readAllLines(log.toPath()));
+		assertEquals(Arrays.asList("files\n"), new SegmentedLog(segments, 1024 * 1024).readAll());
+	}
+
+	@Test
+	public void testCorruptedEntryDoesNotBlockTheSpool() throws Exception {
+		Files.write(new File(spoolDirectory, "0000000000000000-corrupted.entry").toPath(), new byte[]{0, 0, 0, 2, 1});
+		StatisticsSpool.spool(merge());
+
+		assertEquals(2, StatisticsSpool.processAll());
+		assertFalse(StatisticsSpool.hasPendingEntries());
+		assertEquals(1, readEntries().size());
+	}
+
+	private static MergeContext merge() {
+		JFSTMerge.computeStatistics = false; //the statistics are computed from the spool
+		try {
+			return new JFSTMerge().mergeFiles(
+					new File("testfiles/renamingmethodleftconf/left.java"),
+					new File("testfiles/renamingmethodleftconf/base.java"),
+					new File("testfiles/renamingmethodleftconf/right.java"),
+					null);
+		} finally {
+			JFSTMerge.computeStatistics = true;
+		}
+	}
+
+	private File statisticsLog() {
+		return new File(home.getLogFolder(), "jfstmerge.statistics");
+	}
+
+	/**
+	 * @return the entries of the statistics log, without the header
+	 */
+	private List<String> readEntries() throws Exception {
+		List<String> lines = Files.readAllLines(statisticsLog().toPath());
+		return lines.subList(1, lines.size());
+	}
+}
@@ -0,0 +1,54 @@
+package br.ufpe.cin.tests;
+
+import java.io.File;
+
+import org.junit.rules.TemporaryFolder;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.files.ProjectResourceIndex;
+import br.ufpe.cin.parser.ParsedTreeCache;
+import br.ufpe.cin.statistics.BinaryStatisticsStore;
+import br.ufpe.cin.statistics.StatisticsSpool;
+
+/**
+ * Temporary user home, where the merges of a test write their statistics and logs in plain text,
+ * and keep their caches and indexes. The home of the user, the logging options and the folders
+ * of the caches and indexes are restored after the test.
+ */
+class TemporaryHome extends TemporaryFolder {
+
+	private String userHome;
+
+	@Override
+	protected void before() throws Throwable {
+		super.before();
+		userHome = System.getProperty("user.home");
+		System.setProperty("user.home", getRoot().getAbsolutePath());
+		JFSTMerge.isCryptographed = false;
+		JFSTMerge.logFiles = false;
+		configure(getLogFolder());
+	}
+
+	@Override
+	protected void after() {
+		System.setProperty("user.home", userHome);
+		JFSTMerge.isCryptographed = true;
+		JFSTMerge.logFiles = true;
+		configure(new File(userHome, ".jfstmerge"));
+		super.after();
+	}
+
+	/**
+	 * @return the folder of the logs and statistics in the temporary home
+	 */
+	File getLogFolder() {
+		return new File(getRoot(), ".jfstmerge");
+	}
+
+	private static void configure(File logFolder) {
+		ParsedTreeCache.configure(new File(logFolder, "cache"), 256L * 1024 * 1024);
+		ProjectResourceIndex.configure(new File(logFolder, "projects"));
+		StatisticsSpool.configure(new File(logFolder, "spool"));
+		BinaryStatisticsStore.configure(logFolder);
+	}
+}
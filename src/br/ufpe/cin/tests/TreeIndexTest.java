@@ -0,0 +1,174 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.mergers.SemistructuredMerge;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.TreeIndex;
+import br.ufpe.cin.parser.JParser;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+public class TreeIndexTest {
+
+	private FSTNonTerminal inputTree;
+	private FSTNonTerminal sharedClass;
+	private FSTNonTerminal mergedTree;
+	private Set<FSTNode> sharedSubtrees;
+	private TreeIndex index;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		//hidding sysout output
+		@SuppressWarnings("unused")
+		PrintStream originalStream = System.out;
+		PrintStream hideStream    = new PrintStream(new OutputStream(){
+			public void write(int b) {}
+		});
+		System.setOut(hideStream);
+	}
+
+	@Before
+	public void setUp() {
+		//a class of an input tree placed in the merged tree without being copied, as done by superimposition
+		inputTree = new FSTNonTerminal("CompilationUnit", "A");
+		sharedClass = new FSTNonTerminal("ClassDeclaration", "A");
+		sharedClass.addChild(new FSTTerminal("Id", "A", "A", ""));
+		sharedClass.addChild(new FSTTerminal("MethodDecl", "m1()", "void m1() {}", ""));
+		sharedClass.addChild(new FSTTerminal("MethodDecl", "m2()", "void m2() {}", ""));
+		inputTree.addChild(sharedClass);
+
+		mergedTree = new FSTNonTerminal("CompilationUnit", "A");
+		mergedTree.addChild(new FSTTerminal("ImportDeclaration", "java.util.List", "import java.util.List;", ""));
+		mergedTree.addChild(sharedClass);
+		sharedSubtrees = Collections.newSetFromMap(new IdentityHashMap<FSTNode, Boolean>());
+		sharedSubtrees.add(sharedClass);
+		index = new TreeIndex(mergedTree, sharedSubtrees);
+	}
+
+	@After
+	public void tearDown() {
+		JFSTMerge.shareSubtrees = false;
+	}
+
+	@Test
+	public void testSharedSubtreeIsNotCopiedUntilChanged() {
+		String input = Fixtures.describe(inputTree);
+		assertTrue(index.findAndReplaceASTNodeContent("import java.util.List;", "import java.util.Set;"));
+		assertTrue(index.findNodeByID("A") != null);
+
+		assertSame(sharedClass, mergedTree.getChildren().get(1));
+		assertTrue(sharedSubtrees.contains(sharedClass));
+		assertEquals(input, Fixtures.describe(inputTree));
+	}
+
+	@Test
+	public void testChangedSharedSubtreeIsCopied() {
+		String input = Fixtures.describe(inputTree);
+		assertTrue(index.findAndReplaceASTNodeContent("void m1() {}", "void m1() { changed(); }"));
+
+		assertNotSame(sharedClass, mergedTree.getChildren().get(1));
+		assertTrue(sharedSubtrees.isEmpty());
+		assertEquals(input, Fixtures.describe(inputTree));
+		assertTrue(Fixtures.describe(mergedTree).contains("changed();"));
+		assertSame(mergedTree.getChildren().get(1), index.findNodeByID("A").getParent());
+	}
+
+	@Test
+	public void testChangesThroughStaleReferencesGoToTheCopy() {
+		String input = Fixtures.describe(inputTree);
+		FSTNode m1 = sharedClass.getChildren().get(1);
+		FSTNode m2 = sharedClass.getChildren().get(2);
+		index.removeChild(sharedClass, m1);
+		index.setBody((FSTTerminal) m2, "void m2() { changed(); }");
+		index.addChild(sharedClass, new FSTTerminal("MethodDecl", "m3()", "void m3() {}", ""), 1);
+
+		assertEquals(input, Fixtures.describe(inputTree));
+		FSTNonTerminal copy = (FSTNonTerminal) mergedTree.getChildren().get(1);
+		assertEquals(3, copy.getChildren().size());
+		assertEquals("void m3() {}", ((FSTTerminal) copy.getChildren().get(1)).getBody());
+		assertEquals("void m2() { changed(); }", ((FSTTerminal) copy.getChildren().get(2)).getBody());
+		assertTrue(index.findAndDeleteASTNode("void m3() {}"));
+		assertEquals(2, copy.getChildren().size());
+	}
+
+	@Test
+	public void testSharingSubtreesKeepsOutputsAndInputs() {
+		for (File[] scenario : Fixtures.scenarios()) {
+			JFSTMerge.shareSubtrees = false;
+			MergeContext copied = merge(scenario);
+			JFSTMerge.shareSubtrees = true;
+			MergeContext shared = merge(scenario);
+			String message = scenario[0].getPath();
+
+			assertEquals(message, copied.semistructuredOutput, shared.semistructuredOutput);
+			assertEquals(message, copied.renamingConflicts, shared.renamingConflicts);
+			assertEquals(message, copied.deletionConflicts, shared.deletionConflicts);
+			assertEquals(message, copied.innerDeletionConflicts, shared.innerDeletionConflicts);
+			assertEquals(message, copied.typeAmbiguityErrorsConflicts, shared.typeAmbiguityErrorsConflicts);
+			assertEquals(message, copied.newElementReferencingEditedOneConflicts, shared.newElementReferencingEditedOneConflicts);
+			assertEquals(message, copied.initializationBlocksConflicts, shared.initializationBlocksConflicts);
+
+			//the merged trees and the nodes kept by the context are changed only as without sharing
+			assertEquals(message, Fixtures.describe(copied.leftTree), Fixtures.describe(shared.leftTree));
+			assertEquals(message, Fixtures.describe(copied.baseTree), Fixtures.describe(shared.baseTree));
+			assertEquals(message, Fixtures.describe(copied.rightTree), Fixtures.describe(shared.rightTree));
+			assertEquals(message, Fixtures.describe(copied.addedLeftNodes), Fixtures.describe(shared.addedLeftNodes));
+			assertEquals(message, Fixtures.describe(copied.addedRightNodes), Fixtures.describe(shared.addedRightNodes));
+			assertEquals(message, Fixtures.describe(copied.deletedBaseNodes), Fixtures.describe(shared.deletedBaseNodes));
+			assertEquals(message, Fixtures.describe(copied.nodesDeletedByLeft), Fixtures.describe(shared.nodesDeletedByLeft));
+			assertEquals(message, Fixtures.describe(copied.nodesDeletedByRight), Fixtures.describe(shared.nodesDeletedByRight));
+		}
+	}
+
+	@Test
+	public void testSharingSubtreesKeepsTheSuperimposedTrees() throws Exception {
+		//the merge of the matched contents and the removal of the remaining base nodes change the
+		//superimposed tree without the tree index, as in scenarios with subtrees shared by the second pass
+		for (File[] scenario : Fixtures.scenarios()) {
+			JFSTMerge.shareSubtrees = false;
+			MergeContext copied = superimpose(scenario);
+			JFSTMerge.shareSubtrees = true;
+			MergeContext shared = superimpose(scenario);
+			String message = scenario[0].getPath();
+
+			assertEquals(message, Fixtures.describe(copied.superImposedTree), Fixtures.describe(shared.superImposedTree));
+			assertEquals(message, Fixtures.describe(copied.leftTree), Fixtures.describe(shared.leftTree));
+			assertEquals(message, Fixtures.describe(copied.baseTree), Fixtures.describe(shared.baseTree));
+			assertEquals(message, Fixtures.describe(copied.rightTree), Fixtures.describe(shared.rightTree));
+			assertEquals(message, Fixtures.describe(copied.deletedBaseNodes), Fixtures.describe(shared.deletedBaseNodes));
+		}
+	}
+
+	private static MergeContext merge(File[] scenario) {
+		return new JFSTMerge().mergeFiles(scenario[0], scenario[1], scenario[2], null);
+	}
+
+	/**
+	 * Superimposes the trees of a scenario, without handling its conflicts.
+	 */
+	private static MergeContext superimpose(File[] scenario) throws Exception {
+		JParser parser = new JParser();
+		Method merge = SemistructuredMerge.class.getDeclaredMethod("merge", FSTNode.class, FSTNode.class, FSTNode.class);
+		merge.setAccessible(true);
+		return (MergeContext) merge.invoke(null, parser.parse(scenario[0]), parser.parse(scenario[1]), parser.parse(scenario[2]));
+	}
+}
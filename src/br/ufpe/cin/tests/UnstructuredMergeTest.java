@@ -0,0 +1,100 @@
+package br.ufpe.cin.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.mergers.util.MergeContext;
+
+public class UnstructuredMergeTest {
+
+	private static final File LEFT  = new File("testfiles/initlblocksthreeversions/left/Test.java");
+	private static final File BASE  = new File("testfiles/initlblocksthreeversions/base/Test.java");
+	private static final File RIGHT = new File("testfiles/initlblocksthreeversions/right/Test.java");
+
+	@Rule
+	public TemporaryHome home = new TemporaryHome();
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		//hidding sysout output
+		@SuppressWarnings("unused")
+		PrintStream originalStream = System.out;
+		PrintStream hideStream    = new PrintStream(new OutputStream(){
+			public void write(int b) {}
+		});
+		System.setOut(hideStream);
+	}
+
+	@After
+	public void tearDown() {
+		JFSTMerge.computeStatistics = true;
+	}
+
+	@Test
+	public void testConsoleMergeWithoutStatisticsDoesNotMergeUnstructured() {
+		JFSTMerge.computeStatistics = false;
+		MergeContext context = new JFSTMerge().mergeFiles(LEFT, BASE, RIGHT, null);
+		assertEquals(0, context.unstructuredMergeTime);
+	}
+
+	@Test
+	public void testUnstructuredMergeIsWrittenAndLogged() throws Exception {
+		JFSTMerge.computeStatistics = false;
+		String output = new File(home.getRoot(), "Test.java").getPath();
+		MergeContext context = new JFSTMerge().mergeFiles(LEFT, BASE, RIGHT, output);
+		assertTrue(context.unstructuredMergeTime > 0);
+		assertEquals(context.getUnstructuredOutput(), new String(Files.readAllBytes(new File(output + ".merge").toPath())));
+
+		JFSTMerge.computeStatistics = true;
+		context = new JFSTMerge().mergeFiles(LEFT, BASE, RIGHT, null);
+		assertTrue(context.unstructuredMergeTime > 0);
+	}
+
+	@Test
+	public void testUnstructuredMergeOfHandlersIsNotSemistructuredMergeTime() throws Exception {
+		//fields edited by left, and a field added by right, make a handler look for unstructured merge conflicts
+		File left  = write("left", 0, false);
+		File base  = write("base", -1, false);
+		File right = write("right", 1, true);
+		JFSTMerge.computeStatistics = false;
+
+		long t0 = System.nanoTime();
+		MergeContext context = new JFSTMerge().mergeFiles(left, base, right, null);
+		long mergeTime = System.nanoTime() - t0;
+
+		assertTrue(context.unstructuredMergeTime > 0);
+		assertTrue(context.semistructuredMergeTime > 0);
+		assertTrue(context.semistructuredMergeTime + context.unstructuredMergeTime <= mergeTime);
+	}
+
+	/**
+	 * Writes a class with many fields, so that its unstructured merge takes longer than the rest of the merge
+	 * besides the semistructured merge.
+	 * @param editedFields remainder of the fields edited, in a division by 3, or -1 to edit none
+	 * @param addsField whether a field referencing the others is added
+	 */
+	private File write(String name, int editedFields, boolean addsField) throws Exception {
+		StringBuilder code = new StringBuilder("public class Test {\n");
+		for (int i = 0; i < 1500; i++) {
+			code.append("\tint f").append(i).append(" = ").append((i % 3 == editedFields) ? i + 1 : i).append(";\n");
+		}
+		if (addsField) {
+			code.append("\tint g = f0;\n");
+		}
+		code.append("}\n");
+		File file = new File(home.newFolder(name), "Test.java");
+		Files.write(file.toPath(), code.toString().getBytes());
+		return file;
+	}
+}
@@ -0,0 +1,11 @@
+public class Test {
+
+	public int total(int[] values) {
+		int sum = 0;
+		for (int v : values) {
+			sum += v;
+		}
+		return sum;
+	}
+
+}
\ No newline at end of file
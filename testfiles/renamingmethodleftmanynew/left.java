@@ -0,0 +1,131 @@
+public class Test {
+
+	public int sumOf(int[] items) {
+		int sum = 0;
+		for (int item : items) {
+			sum += item;
+		}
+		return sum;
+	}
+
+	public String describe0(Object item) {
+		StringBuilder text = new StringBuilder("item 0: ");
+		text.append(String.valueOf(item)).append(" at 0");
+		return text.toString();
+	}
+
+	public String describe1(Object item) {
+		StringBuilder text = new StringBuilder("item 1: ");
+		text.append(String.valueOf(item)).append(" at 7");
+		return text.toString();
+	}
+
+	public String describe2(Object item) {
+		StringBuilder text = new StringBuilder("item 2: ");
+		text.append(String.valueOf(item)).append(" at 14");
+		return text.toString();
+	}
+
+	public String describe3(Object item) {
+		StringBuilder text = new StringBuilder("item 3: ");
+		text.append(String.valueOf(item)).append(" at 21");
+		return text.toString();
+	}
+
+	public String describe4(Object item) {
+		StringBuilder text = new StringBuilder("item 4: ");
+		text.append(String.valueOf(item)).append(" at 28");
+		return text.toString();
+	}
+
+	public String describe5(Object item) {
+		StringBuilder text = new StringBuilder("item 5: ");
+		text.append(String.valueOf(item)).append(" at 35");
+		return text.toString();
+	}
+
+	public String describe6(Object item) {
+		StringBuilder text = new StringBuilder("item 6: ");
+		text.append(String.valueOf(item)).append(" at 42");
+		return text.toString();
+	}
+
+	public String describe7(Object item) {
+		StringBuilder text = new StringBuilder("item 7: ");
+		text.append(String.valueOf(item)).append(" at 49");
+		return text.toString();
+	}
+
+	public String describe8(Object item) {
+		StringBuilder text = new StringBuilder("item 8: ");
+		text.append(String.valueOf(item)).append(" at 56");
+		return text.toString();
+	}
+
+	public String describe9(Object item) {
+		StringBuilder text = new StringBuilder("item 9: ");
+		text.append(String.valueOf(item)).append(" at 63");
+		return text.toString();
+	}
+
+	public String describe10(Object item) {
+		StringBuilder text = new StringBuilder("item 10: ");
+		text.append(String.valueOf(item)).append(" at 70");
+		return text.toString();
+	}
+
+	public String describe11(Object item) {
+		StringBuilder text = new StringBuilder("item 11: ");
+		text.append(String.valueOf(item)).append(" at 77");
+		return text.toString();
+	}
+
+	public String describe12(Object item) {
+		StringBuilder text = new StringBuilder("item 12: ");
+		text.append(String.valueOf(item)).append(" at 84");
+		return text.toString();
+	}
+
+	public String describe13(Object item) {
+		StringBuilder text = new StringBuilder("item 13: ");
+		text.append(String.valueOf(item)).append(" at 91");
+		return text.toString();
+	}
+
+	public String describe14(Object item) {
+		StringBuilder text = new StringBuilder("item 14: ");
+		text.append(String.valueOf(item)).append(" at 98");
+		return text.toString();
+	}
+
+	public String describe15(Object item) {
+		StringBuilder text = new StringBuilder("item 15: ");
+		text.append(String.valueOf(item)).append(" at 105");
+		return text.toString();
+	}
+
+	public String describe16(Object item) {
+		StringBuilder text = new StringBuilder("item 16: ");
+		text.append(String.valueOf(item)).append(" at 112");
+		return text.toString();
+	}
+
+	public String describe17(Object item) {
+		StringBuilder text = new StringBuilder("item 17: ");
+		text.append(String.valueOf(item)).append(" at 119");
+		return text.toString();
+	}
+
+	public String describe18(Object item) {
+		StringBuilder text = new StringBuilder("item 18: ");
+		text.append(String.valueOf(item)).append(" at 126");
+		return text.toString();
+	}
+
+	public String describe19(Object item) {
+		StringBuilder text = new StringBuilder("item 19: ");
+		text.append(String.valueOf(item)).append(" at 133");
+		return text.toString();
+	}
+
+}
\ No newline at end of file
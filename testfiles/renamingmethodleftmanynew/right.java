@@ -0,0 +1,12 @@
+public class Test {
+
+	public int total(int[] values) {
+		int sum = 0, count = 0;
+		for (int v : values) {
+			sum += v;
+			count++;
+		}
+		return sum;
+	}
+
+}
\ No newline at end of file
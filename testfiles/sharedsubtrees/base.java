@@ -0,0 +1,10 @@
+package com.example;
+
+public class Test {
+	class C {
+		int f;
+		void m() { a(); }
+	}
+	void n() {}
+	void k() {}
+}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.example;
+
+public class Test {
+	class C {
+		void m() { b(); }
+	}
+	void k() {}
+}
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.example;
+
+public class Test {
+	void k() {}
+	void r() {}
+}
\ No newline at end of file